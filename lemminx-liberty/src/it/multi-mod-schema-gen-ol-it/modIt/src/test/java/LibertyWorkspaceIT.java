@@ -3,6 +3,7 @@ package io.openliberty.tools.test;
 import static org.eclipse.lemminx.XMLAssert.r;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -16,7 +17,9 @@ import org.eclipse.lsp4j.WorkspaceFolder;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 
+import io.openliberty.tools.langserver.lemminx.LibertyXSDURIResolver;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
+import io.openliberty.tools.langserver.lemminx.services.SchemaGenerationService;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 
@@ -32,7 +35,7 @@ public class LibertyWorkspaceIT {
     }
 
     @Test
-    public void testWorkspace() throws BadLocationException, IOException, URISyntaxException {
+    public void testWorkspace() throws BadLocationException, IOException, URISyntaxException, InterruptedException {
         try {
             File testFolder = new File(System.getProperty("user.dir"));
 
@@ -92,6 +95,13 @@ public class LibertyWorkspaceIT {
                         "</server>" //
             );
 
+            // the schemas are generated in the background, the cached schema is used until they are available
+            LibertyXSDURIResolver xsdResolver = new LibertyXSDURIResolver();
+            xsdResolver.resolve(serverModAXmlFile.toURI().toString(), null, null);
+            xsdResolver.resolve(serverModBXmlFile.toURI().toString(), null, null);
+            xsdResolver.resolve(serverModCXmlFile.toURI().toString(), null, null);
+            SchemaGenerationService.getInstance().awaitGenerations(60, TimeUnit.SECONDS);
+
             XMLAssert.assertHover(serverXML, serverModAXmlFile.toURI().toString(), "Defines how the server loads features." + //
                         System.lineSeparator() + System.lineSeparator() + //
                         "Source: [" + schemaFileName + "](" + serverAGenXSDURI + ")", //
@@ -3,6 +3,7 @@ package io.openliberty.tools.test;
 import static org.eclipse.lemminx.XMLAssert.r;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
@@ -15,7 +16,9 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
 import org.eclipse.lsp4j.CompletionItem;
 
+import io.openliberty.tools.langserver.lemminx.LibertyXSDURIResolver;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
+import io.openliberty.tools.langserver.lemminx.services.SchemaGenerationService;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 
 import static org.eclipse.lemminx.XMLAssert.*;
@@ -30,7 +33,7 @@ public class LibertyWorkspaceIT {
     }
 
     @Test
-    public void testWorkspace() throws BadLocationException, IOException, URISyntaxException {
+    public void testWorkspace() throws BadLocationException, IOException, URISyntaxException, InterruptedException {
         File testFolder = new File(System.getProperty("user.dir"));
         File serverXmlFile = new File(testFolder, "src/main/liberty/config/server.xml");
 
@@ -52,6 +55,10 @@ public class LibertyWorkspaceIT {
                         "</server>" //
         );
 
+        // the schema is generated in the background, the cached schema is used until it is available
+        new LibertyXSDURIResolver().resolve(serverXmlFile.toURI().toString(), null, null);
+        SchemaGenerationService.getInstance().awaitGenerations(60, TimeUnit.SECONDS);
+
         XMLAssert.assertHover(serverXML, serverXmlFile.toURI().toString(), "Defines how the server loads features." + //
                         System.lineSeparator() + System.lineSeparator() + //
                         "Source: [" + schemaFileName + "](" + serverGenXSDURI + ")", //
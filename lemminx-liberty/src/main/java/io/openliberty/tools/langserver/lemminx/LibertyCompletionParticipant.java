@@ -15,8 +15,6 @@ package io.openliberty.tools.langserver.lemminx;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.eclipse.lemminx.commons.BadLocationException;
@@ -34,10 +32,9 @@ import org.eclipse.lsp4j.TextEdit;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 
-import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
 import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
-import io.openliberty.tools.langserver.lemminx.services.SettingsService;
+import io.openliberty.tools.langserver.lemminx.services.ValidationContext;
 import io.openliberty.tools.langserver.lemminx.util.LibertyConstants;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 
@@ -49,7 +46,7 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
         if (!LibertyUtils.isConfigXMLFile(request.getXMLDocument()))
             return;    
 
-        LibertyUtils.getLibertyRuntimeInfo(request.getXMLDocument());
+        ValidationContext context = ValidationContext.create(request.getXMLDocument());
 
         DOMElement parentElement = request.getParentElement();
         if (parentElement == null || parentElement.getTagName() == null)
@@ -71,7 +68,7 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
                 existingFeatures = FeatureService.getInstance().collectExistingFeatures(parentElement.getParentNode(), featureName);
             }
 
-            List<CompletionItem> featureCompletionItems = buildCompletionItems(parentElement, request.getXMLDocument(),
+            List<CompletionItem> featureCompletionItems = buildCompletionItems(parentElement, request.getXMLDocument(), context,
                     existingFeatures, featureName, featureMgrNode);
             featureCompletionItems.stream().forEach(item -> response.addCompletionItem(item));
         } else if (parentElement.getTagName().equals(LibertyConstants.PLATFORM_ELEMENT)) {
@@ -82,7 +79,7 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
             List<String> existingPlatforms = FeatureService.getInstance()
                     .collectExistingPlatforms(request.getXMLDocument(),currentPlatformNameWithoutVersion);
             List<String> existingPlatformsWithoutVersion = existingPlatforms.stream().map(LibertyUtils::stripVersion).collect(Collectors.toList());
-            this.buildPlatformCompletionItems(request, response, parentElement, existingPlatformsWithoutVersion);
+            this.buildPlatformCompletionItems(request, response, context, parentElement, existingPlatformsWithoutVersion);
         }
     }
 
@@ -91,33 +88,26 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
      *
      * @param request           request
      * @param response          response
+     * @param context           runtime info and feature catalog of the document
      * @param parentElement     parent element xml dom
      * @param existingPlatforms
      */
-    private void buildPlatformCompletionItems(ICompletionRequest request, ICompletionResponse response, DOMElement parentElement, List<String> existingPlatforms) {
+    private void buildPlatformCompletionItems(ICompletionRequest request, ICompletionResponse response, ValidationContext context, DOMElement parentElement, List<String> existingPlatforms) {
         DOMNode platformTextNode = (DOMNode) parentElement.getChildNodes().item(0);
         String platformName = platformTextNode != null ? platformTextNode.getTextContent() : null;
-        LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(request.getXMLDocument());
-        String libertyVersion =  runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
-        String libertyRuntime =  runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
-
-        final int requestDelay = SettingsService.getInstance().getRequestDelay();
-        //get all platforms
-        Set<String> platforms = FeatureService.getInstance().getAllPlatforms(libertyVersion, libertyRuntime, requestDelay,
-                request.getXMLDocument().getDocumentURI());
-        platforms.stream().filter(it->(Objects.isNull(platformName) || it.contains(platformName)))
-                .filter(p -> !existingPlatforms.contains(LibertyUtils.stripVersion(p).toLowerCase()))
-                .filter(p -> !existingPlatforms.contains(LibertyConstants.conflictingPlatforms.get(LibertyUtils.stripVersion(p).toLowerCase())))
-                .forEach(platformItem -> {
-                    Range range = XMLPositionUtility.createRange(parentElement.getStartTagCloseOffset() + 1,
-                            parentElement.getEndTagOpenOffset(), request.getXMLDocument());
-                    Either<TextEdit, InsertReplaceEdit> edit = Either.forLeft(new TextEdit(range, platformItem));
-                    CompletionItem completionItem = new CompletionItem();
-                    completionItem.setLabel(platformItem);
-                    completionItem.setTextEdit(edit);
-                    completionItem.setDocumentation(LibertyUtils.getPlatformDescription(platformItem));
-                    response.addCompletionItem(completionItem);
-                });
+        // get all platforms matching the entered name, excluding existing and conflicting platforms
+        List<String> platforms = FeatureService.getInstance().getPlatformCompletions(platformName, existingPlatforms,
+                context.getFeatureCatalog());
+        platforms.forEach(platformItem -> {
+            Range range = XMLPositionUtility.createRange(parentElement.getStartTagCloseOffset() + 1,
+                    parentElement.getEndTagOpenOffset(), request.getXMLDocument());
+            Either<TextEdit, InsertReplaceEdit> edit = Either.forLeft(new TextEdit(range, platformItem));
+            CompletionItem completionItem = new CompletionItem();
+            completionItem.setLabel(platformItem);
+            completionItem.setTextEdit(edit);
+            completionItem.setDocumentation(LibertyUtils.getPlatformDescription(platformItem));
+            response.addCompletionItem(completionItem);
+        });
     }
 
     private CompletionItem buildFeatureCompletionItem(Feature feature, DOMElement featureElement,
@@ -138,15 +128,9 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
         return item;
     }
 
-    private List<CompletionItem> buildCompletionItems(DOMElement featureElement, DOMDocument domDocument,
+    private List<CompletionItem> buildCompletionItems(DOMElement featureElement, DOMDocument domDocument, ValidationContext context,
             List<String> existingFeatures, String featureName, DOMNode featureMgrNode) {
 
-        LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(domDocument);
-        String libertyVersion =  runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
-        String libertyRuntime =  runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
-
-        final int requestDelay = SettingsService.getInstance().getRequestDelay();
-
         boolean checkFeatureName = featureName != null && !featureName.isBlank();
         
         if (checkFeatureName) {
@@ -155,11 +139,11 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
             // strip off version number after the - so that we can provide all possible valid versions of a feature for completion
             String featureNameToCompare = featureNameLowerCase.contains("-") ? featureNameLowerCase.substring(0, featureNameLowerCase.lastIndexOf("-")+1) : featureNameLowerCase;
 
-            List<Feature> completionFeatures = FeatureService.getInstance().getFeatureReplacements(featureNameToCompare, featureMgrNode, libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
+            List<Feature> completionFeatures = FeatureService.getInstance().getFeatureReplacements(featureNameToCompare, featureMgrNode, context.getFeatureCatalog());
             return getFeatureCompletionItems(featureElement, domDocument, completionFeatures);
         } else {
-            List<Feature> features = FeatureService.getInstance().getFeatures(libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
-            return getUniqueFeatureCompletionItems(featureElement, domDocument, features, existingFeatures);
+            List<Feature> completionFeatures = FeatureService.getInstance().getUniqueFeatures(existingFeatures, context.getFeatureCatalog());
+            return getFeatureCompletionItems(featureElement, domDocument, completionFeatures);
         }
     }
 
@@ -174,18 +158,4 @@ public class LibertyCompletionParticipant extends CompletionParticipantAdapter {
         return uniqueFeatureCompletionItems;
     }
 
-    private List<CompletionItem> getUniqueFeatureCompletionItems(DOMElement featureElement, DOMDocument domDocument, List<Feature> allFeatures, List<String> existingFeatureNames) {
-        List<CompletionItem> uniqueFeatureCompletionItems = new ArrayList<CompletionItem>();
-
-        for (Feature nextFeature : allFeatures) {
-            String nextFeatureName = nextFeature.getWlpInformation().getShortName().toLowerCase();
-            if (!existingFeatureNames.contains(nextFeatureName)) {
-                CompletionItem ci = buildFeatureCompletionItem(nextFeature, featureElement, domDocument);
-                uniqueFeatureCompletionItems.add(ci);
-            }
-        }
-
-        return uniqueFeatureCompletionItems;
-    }
-
 }
@@ -25,16 +25,15 @@ import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 
 import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
-import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
-import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
-import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
-import io.openliberty.tools.langserver.lemminx.services.SettingsService;
+import io.openliberty.tools.langserver.lemminx.services.StartupService;
+import io.openliberty.tools.langserver.lemminx.services.ValidationContext;
 import io.openliberty.tools.langserver.lemminx.util.*;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -72,17 +71,27 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
     public static final String INCORRECT_FEATURE_CODE = "incorrect_feature";
     public static final String INCORRECT_PLATFORM_CODE = "incorrect_platform";
 
+    // data of the diagnostics computed before the workspaces are initialized
+    public static final String PROVISIONAL_DIAGNOSTIC_DATA = "provisional";
+
     @Override
     public void doDiagnostics(DOMDocument domDocument, List<Diagnostic> diagnostics,
             XMLValidationSettings validationSettings, CancelChecker cancelChecker) {
         if (!LibertyUtils.isConfigXMLFile(domDocument))
             return;
+        int firstLibertyDiagnostic = diagnostics.size();
         try {
             validateDom(domDocument, diagnostics);
         } catch (IOException e) {
             LOGGER.severe("Error validating document " + domDocument.getDocumentURI());
             LOGGER.severe(e.getMessage());
         }
+        if (!StartupService.getInstance().isReady()) {
+            // based on the default features, the document is validated again when the workspaces are ready
+            for (Diagnostic diagnostic : diagnostics.subList(firstLibertyDiagnostic, diagnostics.size())) {
+                diagnostic.setData(PROVISIONAL_DIAGNOSTIC_DATA);
+            }
+        }
     }
 
     private void validateDom(DOMDocument domDocument, List<Diagnostic> diagnosticsList) throws IOException {
@@ -90,16 +99,17 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
         List<Diagnostic> tempDiagnosticsList = new ArrayList<Diagnostic>();
         Set<String> includedFeatures = new HashSet<String>();
         boolean featureManagerPresent = false;
-        LibertyWorkspace workspace = LibertyProjectsManager.getInstance().getWorkspaceFolder(domDocument.getDocumentURI());
-        if (workspace == null) {
+        // runtime info, feature catalog and feature list graph are resolved once and shared by all the checks below
+        ValidationContext context = ValidationContext.create(domDocument);
+        if (context.getWorkspace() == null) {
             LOGGER.warning("Could not get workspace, using default cached feature list");
         }
-        FeatureListGraph featureGraph = (workspace == null) ? FeatureService.getInstance().getDefaultFeatureList() : workspace.getFeatureListGraph();
+        FeatureListGraph featureGraph = context.getFeatureListGraph();
         for (DOMNode node : nodes) {
             String nodeName = node.getNodeName();
             if (LibertyConstants.FEATURE_MANAGER_ELEMENT.equals(nodeName)) {
                 featureManagerPresent = true;
-                validateFeaturesAndPlatforms(domDocument, diagnosticsList, node, includedFeatures);
+                validateFeaturesAndPlatforms(domDocument, context, diagnosticsList, node, includedFeatures);
             } else if (LibertyConstants.INCLUDE_ELEMENT.equals(nodeName)) {
                 validateIncludeLocation(domDocument, diagnosticsList, node);
             } else if (featureGraph.isConfigElement(nodeName)) {    // defaults to false
@@ -109,13 +119,7 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
         validateConfigElements(domDocument, diagnosticsList, tempDiagnosticsList, featureGraph, includedFeatures, featureManagerPresent);
     }
 
-    private void validateFeaturesAndPlatforms(DOMDocument domDocument, List<Diagnostic> list, DOMNode featureManager, Set<String> includedFeatures) {
-
-        LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(domDocument);
-        String libertyVersion = runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
-        String libertyRuntime = runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
-
-        final int requestDelay = SettingsService.getInstance().getRequestDelay();
+    private void validateFeaturesAndPlatforms(DOMDocument domDocument, ValidationContext context, List<Diagnostic> list, DOMNode featureManager, Set<String> includedFeatures) {
 
         Set<String> featuresWithoutVersions = new HashSet<String>();
         Set<String> versionlessFeatures = new HashSet<String>();
@@ -130,21 +134,21 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
             DOMNode featureTextNode = (DOMNode) featureNode.getChildNodes().item(0);
             // check for platform element
             if (LibertyConstants.PLATFORM_ELEMENT.equals(featureNode.getLocalName())) {
-                validatePlatform(domDocument, list, featureTextNode, preferredPlatformsWithoutVersion, preferredPlatforms);
+                validatePlatform(domDocument, context, list, featureTextNode, preferredPlatformsWithoutVersion, preferredPlatforms);
             } else {
-                validateFeature(domDocument, list, includedFeatures, featureTextNode, libertyVersion, libertyRuntime, requestDelay, versionedFeatures, versionlessFeatures, featuresWithoutVersions, featureList);
+                validateFeature(domDocument, context, list, includedFeatures, featureTextNode, versionedFeatures, versionlessFeatures, featuresWithoutVersions, featureList);
             }
         }
-        checkForPlatFormAndFeature(domDocument, list, versionlessFeatures, features, preferredPlatforms, versionedFeatures);
+        checkForPlatFormAndFeature(domDocument, context, list, versionlessFeatures, features, preferredPlatforms, versionedFeatures);
     }
 
-    private void validateFeature(DOMDocument domDocument, List<Diagnostic> list, Set<String> includedFeatures, DOMNode featureTextNode, String libertyVersion, String libertyRuntime, int requestDelay, Set<String> versionedFeatures, Set<String> versionlessFeatures, Set<String> featuresWithoutVersions, Set<String> featureList) {
+    private void validateFeature(DOMDocument domDocument, ValidationContext context, List<Diagnostic> list, Set<String> includedFeatures, DOMNode featureTextNode, Set<String> versionedFeatures, Set<String> versionlessFeatures, Set<String> featuresWithoutVersions, Set<String> featureList) {
         // skip nodes that do not have any text value (ie. comments)
         if (featureTextNode != null && featureTextNode.getTextContent() != null) {
             String featureName = featureTextNode.getTextContent().trim();
             // if the feature is not a user defined feature and the feature does not exist in the list of
             // supported features show a "Feature does not exist" diagnostic
-            if (!featureName.startsWith("usr:") && !FeatureService.getInstance().featureExists(featureName, libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI())) {
+            if (!featureName.startsWith("usr:") && !context.getFeatureCatalog().containsFeature(featureName)) {
                 Range range = XMLPositionUtility.createRange(featureTextNode.getStart(), featureTextNode.getEnd(),
                         domDocument);
                 String message = "ERROR: The feature \"" + featureName + "\" does not exist.";
@@ -332,32 +336,15 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
             }
             return;
         }
+        BitSet includedFeatureIds = featureGraph.getFeatureNameIds(includedFeatures);
         for (Diagnostic tempDiagnostic : tempDiagnosticsList) {
             String configElement = tempDiagnostic.getSource();
-            Set<String> compatibleFeaturesList = featureGraph.getAllEnabledBy(configElement);
-            Set<String> includedFeaturesCopy = getCompatibleFeatures(includedFeatures, compatibleFeaturesList);
-            if (includedFeaturesCopy.isEmpty()) {
+            if (!featureGraph.isEnabledByAny(configElement, includedFeatureIds)) {
                 diagnosticsList.add(tempDiagnostic);
             }
         }
     }
 
-    /**
-     * get compatible features for both versioned and versionless features
-     *
-     * @param includedFeatures       ll selected features
-     * @param compatibleFeaturesList enabled by feature list
-     * @return any compitable feature list
-     */
-    private Set<String> getCompatibleFeatures(Set<String> includedFeatures, Set<String> compatibleFeaturesList) {
-        Set<String> versionLessCompatibleFeatureList = compatibleFeaturesList.stream()
-                .map(f -> LibertyUtils.stripVersion(f))
-                .collect(Collectors.toSet());
-        return includedFeatures.stream().filter(included ->
-                compatibleFeaturesList.contains(included) || versionLessCompatibleFeatureList.contains(included)
-        ).collect(Collectors.toSet());
-    }
-
     /**
      * validate platform element. checks for
      *      1) if platform is invalid
@@ -365,25 +352,21 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
      *      3) if another version of same platform is included
      *      4) if any conflicting platform is included. for eg, j2ee and jakartaee are conflicting
      * @param domDocument xml document
+     * @param context runtime info and feature catalog of the document
      * @param list diagnostics list
      * @param featureTextNode current feature manager node
      * @param preferredPlatformsWithoutVersion platforms in xml without version
      * @param preferredPlatforms platforms in xml
      */
-    private void validatePlatform(DOMDocument domDocument, List<Diagnostic> list, DOMNode featureTextNode, Set<String> preferredPlatformsWithoutVersion,
+    private void validatePlatform(DOMDocument domDocument, ValidationContext context, List<Diagnostic> list, DOMNode featureTextNode, Set<String> preferredPlatformsWithoutVersion,
                                          Set<String> preferredPlatforms) {
-        LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(domDocument);
-        String libertyVersion = runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
-        String libertyRuntime = runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
-
-        final int requestDelay = SettingsService.getInstance().getRequestDelay();
         if (featureTextNode != null && featureTextNode.getTextContent() != null) {
             String platformName = featureTextNode.getTextContent().trim();
             String platformNameLowerCase = platformName.toLowerCase();
             String platformNoVersionLower = platformNameLowerCase.contains("-") ? platformNameLowerCase.substring(0, platformNameLowerCase.lastIndexOf("-"))
                     : platformNameLowerCase;
 
-            if (!FeatureService.getInstance().platformExists(platformName, libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI())) {
+            if (!context.getFeatureCatalog().containsPlatform(platformName)) {
                 Range range = XMLPositionUtility.createRange(featureTextNode.getStart(), featureTextNode.getEnd(),
                         domDocument);
                 String message = "ERROR: The platform \"" + platformName + "\" does not exist.";
@@ -457,13 +440,14 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
      * check for a combination of validations using preferred platforms and selected features
      *
      * @param domDocument
+     * @param context
      * @param list
      * @param versionlessFeatures
      * @param features
      * @param preferredPlatforms
      * @param versionedFeatures
      */
-    private void checkForPlatFormAndFeature(DOMDocument domDocument, List<Diagnostic> list, Set<String> versionlessFeatures, List<DOMNode> features, Set<String> preferredPlatforms, Set<String> versionedFeatures) {
+    private void checkForPlatFormAndFeature(DOMDocument domDocument, ValidationContext context, List<Diagnostic> list, Set<String> versionlessFeatures, List<DOMNode> features, Set<String> preferredPlatforms, Set<String> versionedFeatures) {
 
         for (DOMNode featureNode : features) {
             DOMNode featureTextNode = (DOMNode) featureNode.getChildNodes().item(0);
@@ -472,7 +456,7 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
                 String featureName = featureTextNode.getTextContent().trim();
                 if (versionlessFeatures.contains(featureName)) {
                     // versionless feature
-                    validateVersionLessFeatures(domDocument, list, preferredPlatforms, versionedFeatures, featureTextNode, featureName);
+                    validateVersionLessFeatures(domDocument, context, list, preferredPlatforms, versionedFeatures, featureTextNode, featureName);
                 }
             }
 
@@ -498,26 +482,21 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
      *          throw error if not found
      *
      * @param domDocument
+     * @param context
      * @param list
      * @param preferredPlatforms
      * @param versionedFeatures
      * @param versionLessFeatureTextNode
      * @param featureName
      */
-    private void validateVersionLessFeatures(DOMDocument domDocument, List<Diagnostic> list, Set<String> preferredPlatforms, Set<String> versionedFeatures,DOMNode versionLessFeatureTextNode, String featureName) {
-        LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(domDocument);
-        String libertyVersion = runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
-        String libertyRuntime = runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
-
-        final int requestDelay = SettingsService.getInstance().getRequestDelay();
+    private void validateVersionLessFeatures(DOMDocument domDocument, ValidationContext context, List<Diagnostic> list, Set<String> preferredPlatforms, Set<String> versionedFeatures,DOMNode versionLessFeatureTextNode, String featureName) {
         if (versionedFeatures.isEmpty() && preferredPlatforms.isEmpty()) {
             Range range = XMLPositionUtility.createRange(versionLessFeatureTextNode.getStart(),
                     versionLessFeatureTextNode.getEnd(), domDocument);
                 String message = "ERROR: The " + featureName + " versionless feature cannot be resolved. Specify a platform or a feature with a version to enable resolution.";
             list.add(new Diagnostic(range, message, DiagnosticSeverity.Error, LIBERTY_LEMMINX_SOURCE, INCORRECT_FEATURE_CODE));
         } else if (!versionedFeatures.isEmpty() && preferredPlatforms.isEmpty()) {
-            Set<String> commonPlatforms = FeatureService.getInstance()
-                    .getCommonPlatformsForFeatures(versionedFeatures, libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
+            Set<String> commonPlatforms = context.getFeatureCatalog().getCommonPlatforms(versionedFeatures);
             if (commonPlatforms == null ||
                     commonPlatforms.isEmpty()) {
                 Range range = XMLPositionUtility.createRange(versionLessFeatureTextNode.getStart(), versionLessFeatureTextNode.getEnd(),
@@ -532,24 +511,20 @@ public class LibertyDiagnosticParticipant implements IDiagnosticsParticipant {
                 list.add(new Diagnostic(range, message, DiagnosticSeverity.Error, LIBERTY_LEMMINX_SOURCE, INCORRECT_FEATURE_CODE));
             }
             else{
-                checkForVersionlessPlatforms(domDocument, list, commonPlatforms, versionLessFeatureTextNode, featureName, false);
+                checkForVersionlessPlatforms(domDocument, context, list, commonPlatforms, versionLessFeatureTextNode, featureName, false);
             }
         }
         if (!preferredPlatforms.isEmpty()) {
-            checkForVersionlessPlatforms(domDocument, list, preferredPlatforms, versionLessFeatureTextNode, featureName,true);
+            checkForVersionlessPlatforms(domDocument, context, list, preferredPlatforms, versionLessFeatureTextNode, featureName,true);
         }
     }
 
 
-    private void checkForVersionlessPlatforms(DOMDocument domDocument,
+    private void checkForVersionlessPlatforms(DOMDocument domDocument, ValidationContext context,
                                               List<Diagnostic> list, Set<String> platformsToCompare,
                                               DOMNode versionLessFeatureTextNode, String featureName, boolean isPlatformFromXml) {
-        LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(domDocument);
-        String libertyVersion = runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
-        String libertyRuntime = runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
-        final int requestDelay = SettingsService.getInstance().getRequestDelay();
         Set<String> allPlatforrmsForVersionLess = FeatureService.getInstance()
-                .getAllPlatformsForVersionLessFeature(featureName, libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
+                .getAllPlatformsForVersionLessFeature(featureName, context.getFeatureCatalog());
         if (Sets.intersection(allPlatforrmsForVersionLess, platformsToCompare).isEmpty()) {
             String message;
             if (isPlatformFromXml) {
@@ -28,8 +28,13 @@ import org.eclipse.lsp4j.WorkspaceFolder;
 import java.util.List;
 import java.util.logging.Logger;
 
+import io.openliberty.tools.langserver.lemminx.services.FileWatchService;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
+import io.openliberty.tools.langserver.lemminx.services.RevalidationService;
 import io.openliberty.tools.langserver.lemminx.services.SettingsService;
+import io.openliberty.tools.langserver.lemminx.services.StartupService;
+import io.openliberty.tools.langserver.lemminx.services.WorkspaceDiscovery;
+import io.openliberty.tools.langserver.lemminx.services.WorkspaceFileIndex;
 
 public class LibertyExtension implements IXMLExtension {
 
@@ -44,14 +49,8 @@ public class LibertyExtension implements IXMLExtension {
 
     @Override
     public void start(InitializeParams initializeParams, XMLExtensionsRegistry xmlExtensionsRegistry) {
-        try {
-            List<WorkspaceFolder> folders = initializeParams.getWorkspaceFolders();
-            if (folders != null) {
-                LibertyProjectsManager.getInstance().setWorkspaceFolders(folders);
-            }
-        } catch (NullPointerException e) {
-            LOGGER.warning("Could not get workspace folders: " + e.toString());
-        }
+        RevalidationService.getInstance().setExtensionsRegistry(xmlExtensionsRegistry);
+
         xsdResolver = new LibertyXSDURIResolver();
         xmlExtensionsRegistry.getResolverExtensionManager().registerResolver(xsdResolver);
 
@@ -69,13 +68,28 @@ public class LibertyExtension implements IXMLExtension {
 
         documentLinkParticipant = new LibertyDocumentLinkParticipant();
         xmlExtensionsRegistry.registerDocumentLinkParticipant(documentLinkParticipant);
+
+        // the participants use the default features until the workspaces are searched
+        List<WorkspaceFolder> folders = null;
+        try {
+            folders = initializeParams.getWorkspaceFolders();
+        } catch (NullPointerException e) {
+            LOGGER.warning("Could not get workspace folders: " + e.toString());
+        }
+        StartupService.getInstance().start(folders);
     }
 
     @Override
     public void stop(XMLExtensionsRegistry xmlExtensionsRegistry) {
+        RevalidationService.getInstance().setExtensionsRegistry(null);
+        StartupService.getInstance().stop();
+
         // clean up .libertyls folders
         LibertyProjectsManager.getInstance().cleanUpTempDirs();
         LibertyProjectsManager.getInstance().cleanInstance();
+        FileWatchService.getInstance().shutdown();
+        WorkspaceDiscovery.shutdown();
+        WorkspaceFileIndex.shutdown();
 
         xmlExtensionsRegistry.getResolverExtensionManager().unregisterResolver(xsdResolver);
         xmlExtensionsRegistry.unregisterCompletionParticipant(completionParticipant);
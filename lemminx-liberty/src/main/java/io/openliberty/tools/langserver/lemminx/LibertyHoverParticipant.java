@@ -22,10 +22,9 @@ import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 
 import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
 import io.openliberty.tools.langserver.lemminx.data.FeatureListNode;
-import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
 import io.openliberty.tools.langserver.lemminx.models.feature.*;
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
-import io.openliberty.tools.langserver.lemminx.services.SettingsService;
+import io.openliberty.tools.langserver.lemminx.services.ValidationContext;
 import io.openliberty.tools.langserver.lemminx.util.*;
 
 import java.util.ArrayList;
@@ -93,12 +92,8 @@ public class LibertyHoverParticipant implements IHoverParticipant {
     }
 
     private Hover getFeatureDescription(String featureName, DOMDocument domDocument) {
-        LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(domDocument);
-        String libertyVersion =  runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
-        String libertyRuntime =  runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
-
-        final int requestDelay = SettingsService.getInstance().getRequestDelay();
-        Optional<Feature> feature = FeatureService.getInstance().getFeature(featureName, libertyVersion, libertyRuntime, requestDelay, domDocument.getDocumentURI());
+        ValidationContext context = ValidationContext.create(domDocument);
+        Optional<Feature> feature = context.getFeatureCatalog().getFeature(featureName);
         if (feature.isPresent()) {
             return new Hover(new MarkupContent("plaintext", feature.get().getShortDescription()));
         }
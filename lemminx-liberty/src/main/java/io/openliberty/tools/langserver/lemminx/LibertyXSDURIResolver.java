@@ -18,7 +18,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 
 import org.eclipse.lemminx.uriresolver.CacheResourcesManager;
@@ -29,7 +29,7 @@ import org.eclipse.lemminx.uriresolver.URIResolverExtension;
 import io.openliberty.tools.langserver.lemminx.services.ContainerService;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
-import io.openliberty.tools.langserver.lemminx.util.DocumentUtil;
+import io.openliberty.tools.langserver.lemminx.services.SchemaGenerationService;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 
 public class LibertyXSDURIResolver implements URIResolverExtension, IExternalGrammarLocationProvider {
@@ -119,57 +119,26 @@ public class LibertyXSDURIResolver implements URIResolverExtension, IExternalGra
     }
 
     /**
-     * Generate the schema file for a LibertyWorkspace using the ws-schemagen.jar in the corresponding Liberty installation
+     * Returns the schema file generated for a LibertyWorkspace using the ws-schemagen.jar in the corresponding Liberty
+     * installation. If the schema file is not generated yet, its generation is started in the background and null is
+     * returned so that the cached schema file is used in the meantime.
      * @param libertyWorkspace
      * @param schemaGenJarPath
-     * @return Path to generated schema file.
+     * @return Path to generated schema file, or null if it is not available yet.
      */
     private String generateServerSchemaXsd(LibertyWorkspace libertyWorkspace, Path schemaGenJarPath) {
-        // java -jar {path to ws-schemagen.jar} {schemaVersion} {outputVersion} {outputFile}
-        File tempDir = LibertyUtils.getTempDir(libertyWorkspace);
+        File xsdDestFile = SchemaGenerationService.getServerSchemaFile(libertyWorkspace);
 
-        //If tempDir is null, issue a warning for the current LibertyWorkspace URI and use the default cached schema file
-        if (tempDir == null) {
+        //If xsdDestFile is null, issue a warning for the current LibertyWorkspace URI and use the default cached schema file
+        if (xsdDestFile == null) {
             LOGGER.warning("Could not create a temporary directory for generating the schema file. The cached schema file will be used for the current workspace: " + libertyWorkspace.getWorkspaceString());
             return null;
         }
 
-        File xsdDestFile = new File(tempDir, "server.xsd");
-        if (libertyWorkspace.isLibertyRuntimeAndVersionSet()) {
-            xsdDestFile = new File(tempDir, libertyWorkspace.getLibertyRuntime() + "-" + libertyWorkspace.getLibertyVersion() + ".xsd");
-        }
-
-        if (!xsdDestFile.exists()) {
-            try {
-                LOGGER.info("Generating schema file from: " + schemaGenJarPath.toString());
-                String xsdDestPath = xsdDestFile.getCanonicalPath();
-    
-                LOGGER.info("Generating schema file at: " + xsdDestPath);
-    
-                ProcessBuilder pb = new ProcessBuilder("java", "-jar", schemaGenJarPath.toAbsolutePath().toString(), "--schemaVersion=1.1",
-                        "--outputVersion=2", xsdDestPath); // Add locale param here
-                pb.directory(tempDir);
-                pb.redirectErrorStream(true);
-                pb.redirectOutput(new File(tempDir, "schemagen.log"));
-    
-                Process proc = pb.start();
-                if (!proc.waitFor(30, TimeUnit.SECONDS)) {
-                    proc.destroy();
-                    LOGGER.warning("Exceeded 30 second timeout during schema file generation. Using cached schema.xsd file.");
-                    return null;
-                }
-
-                if (xsdDestFile.exists()) {
-                    // do some post processing to remove the anyAttribute element from parent element if there is no extraProperties sibling
-                    DocumentUtil.removeExtraneousAnyAttributeElements(xsdDestFile);
-                }
-
-                LOGGER.info("Caching schema file with URI: " + xsdDestFile.toURI().toString());
-            } catch (Exception e) {
-                LOGGER.warning(e.getMessage());
-                LOGGER.warning("Due to an exception during schema file generation, a cached schema file will be used.");
-                return null;
-            }
+        CompletableFuture<File> schema = SchemaGenerationService.getInstance().getServerSchemaXsd(libertyWorkspace, schemaGenJarPath, xsdDestFile);
+        if (!schema.isDone() || schema.isCompletedExceptionally()) {
+            LOGGER.info("Schema file is not generated yet, using cached schema file for workspace: " + libertyWorkspace.getWorkspaceString());
+            return null;
         }
 
         LOGGER.info("Using schema file at: " + xsdDestFile.toURI().toString());
@@ -27,11 +27,9 @@ import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.jsonrpc.CancelChecker;
 
 import io.openliberty.tools.langserver.lemminx.LibertyExtension;
-import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
 import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
-import io.openliberty.tools.langserver.lemminx.services.SettingsService;
-import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+import io.openliberty.tools.langserver.lemminx.services.ValidationContext;
 import io.openliberty.tools.langserver.lemminx.util.LibertyConstants;
 
 public class ReplaceFeature implements ICodeActionParticipant {
@@ -62,13 +60,9 @@ public class ReplaceFeature implements ICodeActionParticipant {
             final String featureNameToReplace = replaceFeatureName && invalidFeature.contains("-") ? invalidFeature.substring(0, invalidFeature.lastIndexOf("-")+1) : invalidFeature;
     
             if (replaceFeatureName) {
-                LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(document);
-                String libertyVersion =  runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
-                String libertyRuntime =  runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
-        
-                final int requestDelay = SettingsService.getInstance().getRequestDelay();
+                ValidationContext context = ValidationContext.create(document);
                 FeatureService fs = FeatureService.getInstance();
-                List<Feature> replacementFeatures = fs.getFeatureReplacements(featureNameToReplace, featureManagerNode, libertyVersion, libertyRuntime, requestDelay, document.getDocumentURI());
+                List<Feature> replacementFeatures = fs.getFeatureReplacements(featureNameToReplace, featureManagerNode, context.getFeatureCatalog());
                 List<String> replacementFeatureNames = fs.getFeatureShortNames(replacementFeatures);
                 Collections.sort(replacementFeatureNames); // sort these so they appear in alphabetical order in quick fixes - also helps the test case pass reliably
 
@@ -14,9 +14,8 @@
 package io.openliberty.tools.langserver.lemminx.codeactions;
 
 import io.openliberty.tools.langserver.lemminx.LibertyExtension;
-import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
-import io.openliberty.tools.langserver.lemminx.services.SettingsService;
+import io.openliberty.tools.langserver.lemminx.services.ValidationContext;
 import io.openliberty.tools.langserver.lemminx.util.LibertyConstants;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 import org.eclipse.lemminx.commons.CodeActionFactory;
@@ -52,8 +51,7 @@ public class ReplacePlatform implements ICodeActionParticipant {
             final String platformNameToReplace = replacePlatformName && invalidPlatform.contains("-") ? invalidPlatform.substring(0, invalidPlatform.lastIndexOf("-")) : invalidPlatform;
 
             if (replacePlatformName) {
-                LibertyRuntime runtimeInfo = LibertyUtils.getLibertyRuntimeInfo(document);
-                Set<String> allPlatforms = getAllPlatforms(runtimeInfo, document);
+                Set<String> allPlatforms = ValidationContext.create(document).getFeatureCatalog().getAllPlatforms();
                 List<String> existingPlatforms = FeatureService.getInstance().collectExistingPlatforms(document, platformNameToReplace);
                 List<String> replacementPlatforms = getReplacementPlatforms(
                         allPlatforms, existingPlatforms);
@@ -114,13 +112,4 @@ public class ReplacePlatform implements ICodeActionParticipant {
         );
         return replacementPlatformsWithoutConflicts;
     }
-
-    private static Set<String> getAllPlatforms(LibertyRuntime runtimeInfo, DOMDocument document) {
-        String libertyVersion =  runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
-        String libertyRuntime =  runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
-
-        final int requestDelay = SettingsService.getInstance().getRequestDelay();
-        return FeatureService.getInstance().getAllPlatforms(libertyVersion, libertyRuntime, requestDelay,
-                document.getDocumentURI());
-    }
 }
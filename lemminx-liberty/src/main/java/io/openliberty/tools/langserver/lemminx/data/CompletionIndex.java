@@ -0,0 +1,207 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+
+/**
+ * Immutable index used to answer completion queries over feature or platform names without scanning and
+ * lower casing every name on each request. Names are matched case insensitively.
+ *
+ * Prefix queries use the keys sorted lexicographically, which acts as a flattened trie where every prefix
+ * maps to a contiguous range. Substring queries use postings lists for every 1, 2 and 3 character gram of
+ * the keys. Longer queries intersect the postings of their trigrams and verify the remaining candidates.
+ *
+ * Results are always returned in the order the items were passed in, and can be filtered by exact key
+ * or by versionless key (e.g. "servlet" for "servlet-4.0") so that entries already present in the
+ * featureManager are excluded.
+ */
+public class CompletionIndex<T> {
+
+    private static final int MAX_GRAM_LENGTH = 3;
+    private static final int[] NO_IDS = new int[0];
+
+    private final List<T> items;
+    private final String[] keys;            // lower case key per item id
+    private final String[] versionlessKeys; // lower case key without version per item id
+    private final Integer[] sortedIds;      // item ids sorted by key
+    private final Map<String, int[]> postings;
+
+    public CompletionIndex(List<T> items, Function<T, String> keyFunction) {
+        this.items = Collections.unmodifiableList(new ArrayList<T>(items));
+        int size = this.items.size();
+        this.keys = new String[size];
+        this.versionlessKeys = new String[size];
+
+        Map<String, List<Integer>> gramIds = new HashMap<String, List<Integer>>();
+        for (int id = 0; id < size; id++) {
+            String key = keyFunction.apply(this.items.get(id));
+            key = key == null ? "" : key.toLowerCase();
+            keys[id] = key;
+            versionlessKeys[id] = LibertyUtils.stripVersion(key);
+
+            for (int gramLength = 1; gramLength <= MAX_GRAM_LENGTH; gramLength++) {
+                for (int start = 0; start + gramLength <= key.length(); start++) {
+                    List<Integer> ids = gramIds.computeIfAbsent(key.substring(start, start + gramLength), k -> new ArrayList<Integer>());
+                    // ids are added in increasing order, so only the last entry needs to be checked for duplicates
+                    if (ids.isEmpty() || ids.get(ids.size() - 1) != id) {
+                        ids.add(id);
+                    }
+                }
+            }
+        }
+
+        this.postings = new HashMap<String, int[]>(gramIds.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : gramIds.entrySet()) {
+            this.postings.put(entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        this.sortedIds = new Integer[size];
+        for (int id = 0; id < size; id++) {
+            sortedIds[id] = id;
+        }
+        Arrays.sort(sortedIds, (a, b) -> keys[a].compareTo(keys[b]));
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Returns the items whose key starts with the passed prefix.
+     * @param prefix text to match, null or empty matches all items
+     * @param excludedKeys lower case keys to exclude, may be null
+     * @param excludedVersionlessKeys lower case versionless keys to exclude, may be null
+     * @return matching items in their original order
+     */
+    public List<T> findByPrefix(String prefix, Set<String> excludedKeys, Set<String> excludedVersionlessKeys) {
+        if (prefix == null || prefix.isEmpty()) {
+            return collect(null, excludedKeys, excludedVersionlessKeys);
+        }
+        String lowerCasePrefix = prefix.toLowerCase();
+        int low = lowerBound(lowerCasePrefix);
+        int high = low;
+        while (high < sortedIds.length && keys[sortedIds[high]].startsWith(lowerCasePrefix)) {
+            high++;
+        }
+        int[] ids = new int[high - low];
+        for (int i = low; i < high; i++) {
+            ids[i - low] = sortedIds[i];
+        }
+        Arrays.sort(ids);
+        return collect(ids, excludedKeys, excludedVersionlessKeys);
+    }
+
+    /**
+     * Returns the items whose key contains the passed text.
+     * @param text text to match, null or empty matches all items
+     * @param excludedKeys lower case keys to exclude, may be null
+     * @param excludedVersionlessKeys lower case versionless keys to exclude, may be null
+     * @return matching items in their original order
+     */
+    public List<T> findBySubstring(String text, Set<String> excludedKeys, Set<String> excludedVersionlessKeys) {
+        if (text == null || text.isEmpty()) {
+            return collect(null, excludedKeys, excludedVersionlessKeys);
+        }
+        String lowerCaseText = text.toLowerCase();
+        if (lowerCaseText.length() <= MAX_GRAM_LENGTH) {
+            return collect(postings.getOrDefault(lowerCaseText, NO_IDS), excludedKeys, excludedVersionlessKeys);
+        }
+
+        // intersect the postings of every trigram, starting with the shortest list
+        int[] candidates = null;
+        for (int start = 0; start + MAX_GRAM_LENGTH <= lowerCaseText.length(); start++) {
+            int[] ids = postings.getOrDefault(lowerCaseText.substring(start, start + MAX_GRAM_LENGTH), NO_IDS);
+            if (candidates == null || ids.length < candidates.length) {
+                candidates = candidates == null ? ids : intersect(ids, candidates);
+            } else {
+                candidates = intersect(candidates, ids);
+            }
+            if (candidates.length == 0) {
+                return Collections.emptyList();
+            }
+        }
+
+        // trigrams can match out of order, so verify each remaining candidate
+        List<T> result = new ArrayList<T>();
+        for (int id : candidates) {
+            if (keys[id].contains(lowerCaseText) && !isExcluded(id, excludedKeys, excludedVersionlessKeys)) {
+                result.add(items.get(id));
+            }
+        }
+        return result;
+    }
+
+    private List<T> collect(int[] ids, Set<String> excludedKeys, Set<String> excludedVersionlessKeys) {
+        List<T> result = new ArrayList<T>();
+        if (ids == null) {
+            for (int id = 0; id < items.size(); id++) {
+                if (!isExcluded(id, excludedKeys, excludedVersionlessKeys)) {
+                    result.add(items.get(id));
+                }
+            }
+        } else {
+            for (int id : ids) {
+                if (!isExcluded(id, excludedKeys, excludedVersionlessKeys)) {
+                    result.add(items.get(id));
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean isExcluded(int id, Set<String> excludedKeys, Set<String> excludedVersionlessKeys) {
+        return (excludedKeys != null && excludedKeys.contains(keys[id]))
+                || (excludedVersionlessKeys != null && excludedVersionlessKeys.contains(versionlessKeys[id]));
+    }
+
+    // returns the position of the first sorted key that is not less than the passed key
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sortedIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[sortedIds[mid]].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // both arrays must be sorted in increasing order
+    private static int[] intersect(int[] smaller, int[] larger) {
+        int[] result = new int[smaller.length];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < smaller.length && j < larger.length; i++) {
+            while (j < larger.length && larger[j] < smaller[i]) {
+                j++;
+            }
+            if (j < larger.length && larger[j] == smaller[i]) {
+                result[count++] = smaller[i];
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.data;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
+import io.openliberty.tools.langserver.lemminx.models.feature.WlpInformation;
+
+/**
+ * Immutable index over a list of features for a single Liberty runtime/version. All lookups are
+ * case insensitive. When the same short name appears more than once (for example a WLP catalog
+ * that also contains the OL features), the first occurrence wins to match the previous linear search.
+ *
+ * Features and platforms are assigned dense integer ids in catalog order, and the platforms allowed
+ * for each feature are stored as a bitset so that platform intersections are bitwise operations.
+ */
+public class FeatureCatalog {
+
+    public static final FeatureCatalog EMPTY = new FeatureCatalog(Collections.<Feature>emptyList());
+
+    private final List<Feature> features;                     // feature id -> feature
+    private final Map<String, Integer> featureIdsByShortName; // lower case short name -> feature id
+    private final Map<String, Feature> featuresByName;        // lower case symbolic name -> feature
+    private final Set<String> platforms;
+    private final Set<String> platformsLowerCase;
+    private final String[] platformNames;                     // platform id -> platform
+    private final BitSet[] featurePlatforms;                  // feature id -> allowed platform ids
+    private final Map<String, BitSet> versionlessPlatforms = new ConcurrentHashMap<String, BitSet>();
+    private final CompletionIndex<Feature> featureCompletionIndex;
+    private final CompletionIndex<String> platformCompletionIndex;
+
+    public FeatureCatalog(List<Feature> features) {
+        this.features = features == null ? Collections.<Feature>emptyList() : Collections.unmodifiableList(new ArrayList<Feature>(features));
+
+        Map<String, Integer> idsByShortName = new HashMap<String, Integer>();
+        Map<String, Feature> byName = new HashMap<String, Feature>();
+        Map<String, Integer> platformIds = new LinkedHashMap<String, Integer>();
+        Set<String> allPlatformsLowerCase = new HashSet<String>();
+        this.featurePlatforms = new BitSet[this.features.size()];
+
+        for (int id = 0; id < this.features.size(); id++) {
+            Feature feature = this.features.get(id);
+            WlpInformation wlpInfo = feature.getWlpInformation();
+            String shortName = wlpInfo == null ? null : wlpInfo.getShortName();
+            if (shortName != null) {
+                idsByShortName.putIfAbsent(shortName.toLowerCase(), id);
+            }
+            if (feature.getName() != null) {
+                byName.putIfAbsent(feature.getName().toLowerCase(), feature);
+            }
+            BitSet allowedPlatforms = new BitSet();
+            if (wlpInfo != null && wlpInfo.getPlatforms() != null) {
+                for (String platform : wlpInfo.getPlatforms()) {
+                    Integer platformId = platformIds.get(platform);
+                    if (platformId == null) {
+                        platformId = platformIds.size();
+                        platformIds.put(platform, platformId);
+                        allPlatformsLowerCase.add(platform.toLowerCase());
+                    }
+                    allowedPlatforms.set(platformId);
+                }
+            }
+            featurePlatforms[id] = allowedPlatforms;
+        }
+
+        this.featureIdsByShortName = Collections.unmodifiableMap(idsByShortName);
+        this.featuresByName = Collections.unmodifiableMap(byName);
+        this.platforms = Collections.unmodifiableSet(platformIds.keySet());
+        this.platformsLowerCase = Collections.unmodifiableSet(allPlatformsLowerCase);
+        this.platformNames = platformIds.keySet().toArray(new String[0]);
+        this.featureCompletionIndex = new CompletionIndex<Feature>(this.features,
+                f -> f.getWlpInformation() == null ? null : f.getWlpInformation().getShortName());
+        this.platformCompletionIndex = new CompletionIndex<String>(new ArrayList<String>(this.platforms), p -> p);
+    }
+
+    public List<Feature> getFeatures() {
+        return features;
+    }
+
+    public boolean isEmpty() {
+        return features.isEmpty();
+    }
+
+    public int size() {
+        return features.size();
+    }
+
+    /**
+     * Returns the feature with the given short name (e.g. servlet-4.0).
+     * @param shortName
+     * @return
+     */
+    public Optional<Feature> getFeature(String shortName) {
+        int id = getFeatureId(shortName);
+        return id < 0 ? Optional.<Feature>empty() : Optional.of(features.get(id));
+    }
+
+    /**
+     * Returns the feature with the given symbolic name (e.g. com.ibm.websphere.appserver.servlet-4.0).
+     * @param name
+     * @return
+     */
+    public Optional<Feature> getFeatureByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(featuresByName.get(name.toLowerCase()));
+    }
+
+    public boolean containsFeature(String shortName) {
+        return getFeatureId(shortName) >= 0;
+    }
+
+    /**
+     * Returns the dense id of the feature with the given short name, or -1 if it is not part of the catalog.
+     * @param shortName
+     * @return
+     */
+    public int getFeatureId(String shortName) {
+        if (shortName == null) {
+            return -1;
+        }
+        Integer id = featureIdsByShortName.get(shortName.toLowerCase());
+        return id == null ? -1 : id;
+    }
+
+    public Set<String> getAllPlatforms() {
+        return platforms;
+    }
+
+    public boolean containsPlatform(String platformName) {
+        return platformName != null && platformsLowerCase.contains(platformName.toLowerCase());
+    }
+
+    /**
+     * Returns the platforms allowed for the feature with the given short name, or an empty set if the
+     * feature is not part of the catalog. The returned set may be modified by the caller.
+     * @param shortName
+     * @return
+     */
+    public Set<String> getPlatformsForFeature(String shortName) {
+        int id = getFeatureId(shortName);
+        return id < 0 ? new HashSet<String>() : toPlatformNames(featurePlatforms[id], false);
+    }
+
+    /**
+     * Returns the platforms allowed for every one of the passed features, or null if no feature names are passed.
+     * A feature that is not part of the catalog has no platforms, so the result is then empty.
+     * @param shortNames
+     * @return
+     */
+    public Set<String> getCommonPlatforms(Collection<String> shortNames) {
+        BitSet common = null;
+        for (String shortName : shortNames) {
+            int id = getFeatureId(shortName);
+            if (common == null) {
+                common = id < 0 ? new BitSet() : (BitSet) featurePlatforms[id].clone();
+            } else if (id < 0) {
+                common.clear();
+            } else {
+                common.and(featurePlatforms[id]);
+            }
+        }
+        return common == null ? null : toPlatformNames(common, false);
+    }
+
+    /**
+     * Returns the lower case platforms any of the features resolved for the passed versionless feature
+     * are allowed on. The platforms are computed once per versionless feature and cached.
+     * @param versionlessName versionless feature short name (e.g. servlet)
+     * @param resolver returns the short names of the versioned features a versionless feature can resolve to
+     * @return
+     */
+    public Set<String> getPlatformsForVersionlessFeature(String versionlessName, Function<Feature, Set<String>> resolver) {
+        int id = getFeatureId(versionlessName);
+        if (id < 0) {
+            return new HashSet<String>();
+        }
+        BitSet allowedPlatforms = versionlessPlatforms.computeIfAbsent(versionlessName.toLowerCase(), k -> {
+            BitSet union = new BitSet();
+            for (String shortName : resolver.apply(features.get(id))) {
+                int resolvedId = getFeatureId(shortName);
+                if (resolvedId >= 0) {
+                    union.or(featurePlatforms[resolvedId]);
+                }
+            }
+            return union;
+        });
+        return toPlatformNames(allowedPlatforms, true);
+    }
+
+    private Set<String> toPlatformNames(BitSet platformIds, boolean lowerCase) {
+        Set<String> names = new HashSet<String>();
+        for (int id = platformIds.nextSetBit(0); id >= 0; id = platformIds.nextSetBit(id + 1)) {
+            names.add(lowerCase ? platformNames[id].toLowerCase() : platformNames[id]);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the completion index over the feature short names, in catalog order.
+     * @return
+     */
+    public CompletionIndex<Feature> getFeatureCompletionIndex() {
+        return featureCompletionIndex;
+    }
+
+    /**
+     * Returns the completion index over the platform names, in catalog order.
+     * @return
+     */
+    public CompletionIndex<String> getPlatformCompletionIndex() {
+        return platformCompletionIndex;
+    }
+}
@@ -12,33 +12,41 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.lemminx.data;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+
+/**
+ * Graph of the features and config elements found in a feature list xml. The graph is built by adding nodes,
+ * then frozen: the nodes get dense ids and the transitive enabled-by closure of every node is computed as a
+ * bitset, both over the node ids and over the lower case feature names with and without their version.
+ * A frozen graph is immutable and can be used by concurrent readers without locking.
+ */
 public class FeatureListGraph {
-    private String runtime = "";
+    private volatile String runtime = "";
     private Map<String, FeatureListNode> featureNodes;
     private Map<String, ConfigElementNode> configElementNodes;
     private Map<String, Node> nodes;
-    private Map<String, Set<String>> enabledByCache; 
-    private Map<String, Set<String>> enabledByCacheLowerCase; // storing in lower case to enable diagnostics with configured features
-    
+    private volatile Closures closures;
+
     public FeatureListGraph() {
         nodes = new HashMap<String, Node>();
         featureNodes = new HashMap<String, FeatureListNode>();
         configElementNodes = new HashMap<String, ConfigElementNode>();
-        enabledByCacheLowerCase = new HashMap<String, Set<String>>();
-        enabledByCache = new HashMap<String, Set<String>>();
     }
 
     public FeatureListNode addFeature(String nodeName) {
         if (featureNodes.containsKey(nodeName)) {
             return featureNodes.get(nodeName);
         }
+        checkNotFrozen();
         FeatureListNode node = new FeatureListNode(nodeName);
         featureNodes.put(nodeName, node);
         nodes.put(nodeName, node);
@@ -49,10 +57,12 @@ public class FeatureListGraph {
         if (featureNodes.containsKey(nodeName)) {
             FeatureListNode node = featureNodes.get(nodeName);
             if (node.getDescription().isEmpty()) {
+                checkNotFrozen();
                 node.setDescription(description);
             }
             return node;
         }
+        checkNotFrozen();
         FeatureListNode node = new FeatureListNode(nodeName, description);
         featureNodes.put(nodeName, node);
         nodes.put(nodeName, node);
@@ -63,6 +73,7 @@ public class FeatureListGraph {
         if (configElementNodes.containsKey(nodeName)) {
             return configElementNodes.get(nodeName);
         }
+        checkNotFrozen();
         ConfigElementNode node = new ConfigElementNode(nodeName);
         configElementNodes.put(nodeName, node);
         nodes.put(nodeName, node);
@@ -77,6 +88,25 @@ public class FeatureListGraph {
         return configElementNodes.get(nodeName);
     }
 
+    // used by FeatureListGraphSnapshot
+    Collection<FeatureListNode> getFeatureNodes() {
+        return featureNodes.values();
+    }
+
+    Collection<ConfigElementNode> getConfigElementNodes() {
+        return configElementNodes.values();
+    }
+
+    // a feature and a config element can have the same name, in which case the last one added is used by getAllEnabledBy
+    Node getNode(String nodeName) {
+        return nodes.get(nodeName);
+    }
+
+    void setNode(Node node) {
+        checkNotFrozen();
+        nodes.put(node.getNodeName(), node);
+    }
+
     public boolean isEmpty() {
         return configElementNodes.isEmpty() && featureNodes.isEmpty();
     }
@@ -93,6 +123,19 @@ public class FeatureListGraph {
         return this.runtime;
     }
 
+    /**
+     * Freezes the graph once all the nodes are added. Further calls to add nodes fail. The graph is frozen
+     * on first use if this method is not called, but calling it right after loading keeps that cost off
+     * the first validation.
+     */
+    public void freeze() {
+        getClosures();
+    }
+
+    public boolean isFrozen() {
+        return closures != null;
+    }
+
     /**
      * Returns a superset of 'owning' features that enable a given config element or feature.
      * The features are returned in lower case to make the diagnostic code easier.
@@ -111,50 +154,163 @@ public class FeatureListGraph {
      * @return
      */
     public Set<String> getAllEnabledBy(String elementName, boolean lowerCase) {
-
-        if (lowerCase && enabledByCacheLowerCase.containsKey(elementName)) {
-            return enabledByCacheLowerCase.get(elementName);
+        Closures frozen = getClosures();
+        Integer id = frozen.nodeIds.get(elementName);
+        if (id == null) {
+            return null;
+        }
+        BitSet closure = frozen.enabledBy[id];
+        Set<String> allEnabledBy = new HashSet<String>();
+        for (int i = closure.nextSetBit(0); i >= 0; i = closure.nextSetBit(i + 1)) {
+            allEnabledBy.add(lowerCase ? frozen.nodeNames[i].toLowerCase() : frozen.nodeNames[i]);
         }
+        return Collections.unmodifiableSet(allEnabledBy);
+    }
 
-        if (enabledByCache.containsKey(elementName)) {
-            return enabledByCache.get(elementName);
+    /**
+     * Returns the ids of the passed lower case feature names, to be used with isEnabledByAny. Names of
+     * features that are not in the graph are ignored.
+     * @param featureNames lower case feature names, with or without version
+     * @return
+     */
+    public BitSet getFeatureNameIds(Collection<String> featureNames) {
+        Closures frozen = getClosures();
+        BitSet ids = new BitSet(frozen.featureNameIds.size());
+        for (String featureName : featureNames) {
+            Integer id = frozen.featureNameIds.get(featureName);
+            if (id != null) {
+                ids.set(id);
+            }
         }
+        return ids;
+    }
 
-        if (!nodes.containsKey(elementName)) {
-            return null;
+    /**
+     * Returns true if the config element or feature is enabled, directly or transitively, by one of the
+     * passed features. A feature without version matches all versions of that feature.
+     * @param elementName
+     * @param featureNameIds ids returned by getFeatureNameIds
+     * @return
+     */
+    public boolean isEnabledByAny(String elementName, BitSet featureNameIds) {
+        Closures frozen = getClosures();
+        Integer id = frozen.nodeIds.get(elementName);
+        return id != null && frozen.enabledByNames[id].intersects(featureNameIds);
+    }
+
+    private void checkNotFrozen() {
+        if (closures != null) {
+            throw new IllegalStateException("The feature list graph is frozen");
         }
+    }
 
-        // Implements a breadth-first-search on parent nodes
-        Set<String> allEnabledBy = new HashSet<String>(nodes.get(elementName).getEnabledBy());;
-        Deque<String> queue = new ArrayDeque<String>(allEnabledBy);
-        Set<String> visited = new HashSet<String>();
-        while (!queue.isEmpty()) {
-            String node = queue.getFirst();
-            queue.removeFirst();
-            if (visited.contains(node)) {
-                continue;
+    private Closures getClosures() {
+        Closures frozen = closures;
+        if (frozen == null) {
+            synchronized (this) {
+                frozen = closures;
+                if (frozen == null) {
+                    for (Node node : nodes.values()) {
+                        node.freeze();
+                    }
+                    frozen = new Closures(nodes);
+                    closures = frozen;
+                }
             }
-            Set<String> enablers = nodes.get(node).getEnabledBy();
-            visited.add(node);
-            allEnabledBy.addAll(enablers);
-            queue.addAll(enablers);
         }
-        return addToEnabledByCache(elementName, allEnabledBy, lowerCase);
+        return frozen;
     }
 
-    private Set<String> addToEnabledByCache(String configElement, Set<String> allEnabledBy, boolean lowerCase) {
-        Set<String> lowercaseEnabledBy = new HashSet<String>();
-        Set<String> originalcaseEnabledBy = new HashSet<String>();
-        originalcaseEnabledBy.addAll(allEnabledBy);
+    // Immutable enabled-by closures of a frozen graph
+    private static class Closures {
+        private final Map<String, Integer> nodeIds;
+        private final String[] nodeNames;
+        // transitive enablers of each node, as node ids
+        private final BitSet[] enabledBy;
+        private final Map<String, Integer> featureNameIds;
+        // transitive enablers of each node, as ids of their lower case names with and without version
+        private final BitSet[] enabledByNames;
 
-        for (String nextFeature: allEnabledBy) {
-            lowercaseEnabledBy.add(nextFeature.toLowerCase());
+        Closures(Map<String, Node> nodes) {
+            int nodeCount = nodes.size();
+            nodeIds = new HashMap<String, Integer>(nodeCount * 2);
+            nodeNames = nodes.keySet().toArray(new String[nodeCount]);
+            for (int i = 0; i < nodeCount; i++) {
+                nodeIds.put(nodeNames[i], i);
+            }
+
+            int[][] directEnabledBy = new int[nodeCount][];
+            for (int i = 0; i < nodeCount; i++) {
+                Set<String> enablers = nodes.get(nodeNames[i]).getEnabledBy();
+                int[] enablerIds = new int[enablers.size()];
+                int enablerCount = 0;
+                for (String enabler : enablers) {
+                    Integer enablerId = nodeIds.get(enabler);
+                    if (enablerId != null) {
+                        enablerIds[enablerCount++] = enablerId;
+                    }
+                }
+                directEnabledBy[i] = enablerCount == enablerIds.length ? enablerIds : Arrays.copyOf(enablerIds, enablerCount);
+            }
+
+            enabledBy = new BitSet[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                enabledBy[i] = computeClosure(i, directEnabledBy);
+            }
+
+            featureNameIds = new HashMap<String, Integer>();
+            int[][] nameIds = new int[nodeCount][];
+            for (int i = 0; i < nodeCount; i++) {
+                String lowerCaseName = nodeNames[i].toLowerCase();
+                nameIds[i] = new int[] { getNameId(lowerCaseName), getNameId(LibertyUtils.stripVersion(lowerCaseName)) };
+            }
+            enabledByNames = new BitSet[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                BitSet names = new BitSet(featureNameIds.size());
+                BitSet closure = enabledBy[i];
+                for (int j = closure.nextSetBit(0); j >= 0; j = closure.nextSetBit(j + 1)) {
+                    names.set(nameIds[j][0]);
+                    names.set(nameIds[j][1]);
+                }
+                enabledByNames[i] = names;
+            }
         }
 
-        enabledByCacheLowerCase.put(configElement, lowercaseEnabledBy);
-        enabledByCache.put(configElement, originalcaseEnabledBy);
+        // Breadth-first search on the enablers of the node. The closure of an enabler that is already computed
+        // is complete, so it is added as a whole instead of visiting the enablers of that enabler.
+        private BitSet computeClosure(int id, int[][] directEnabledBy) {
+            BitSet closure = new BitSet(nodeNames.length);
+            BitSet visited = new BitSet(nodeNames.length);
+            int[] queue = new int[nodeNames.length];
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = id;
+            visited.set(id);
+            while (head < tail) {
+                for (int enabler : directEnabledBy[queue[head++]]) {
+                    closure.set(enabler);
+                    if (visited.get(enabler)) {
+                        continue;
+                    }
+                    visited.set(enabler);
+                    if (enabledBy[enabler] != null) {
+                        closure.or(enabledBy[enabler]);
+                        visited.or(enabledBy[enabler]);
+                    } else {
+                        queue[tail++] = enabler;
+                    }
+                }
+            }
+            return closure;
+        }
 
-        return lowerCase ? lowercaseEnabledBy : originalcaseEnabledBy;
+        private int getNameId(String name) {
+            Integer id = featureNameIds.get(name);
+            if (id == null) {
+                id = featureNameIds.size();
+                featureNameIds.put(name, id);
+            }
+            return id;
+        }
     }
-   
-}
\ No newline at end of file
+}
@@ -0,0 +1,243 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+import io.openliberty.tools.langserver.lemminx.util.FeatureListXmlReader;
+
+/**
+ * Compact binary form of a FeatureListGraph. The snapshot of the default featurelist xml is generated by the
+ * Maven build (see the main method) and loaded at runtime instead of parsing the xml.
+ *
+ * Layout: magic, format version, source name, runtime, string table, features (name, description and the ids
+ * of the enabled features and config elements), config elements (name and whether a feature of the same name
+ * takes precedence). The enabledBy sets are the inverse of the enables sets and are rebuilt when the snapshot
+ * is read.
+ */
+public class FeatureListGraphSnapshot {
+
+    private static final int MAGIC = 0x4C464C47;
+    private static final int FORMAT_VERSION = 1;
+    private static final int NO_STRING = -1;
+
+    private FeatureListGraphSnapshot() {
+    }
+
+    /**
+     * Writes the passed graph.
+     * @param featureListGraph graph to write
+     * @param source name of the featurelist the graph was built from, checked when the snapshot is read
+     * @param out
+     * @throws IOException
+     */
+    public static void write(FeatureListGraph featureListGraph, String source, OutputStream out) throws IOException {
+        List<FeatureListNode> features = new ArrayList<FeatureListNode>(featureListGraph.getFeatureNodes());
+        List<ConfigElementNode> configElements = new ArrayList<ConfigElementNode>(featureListGraph.getConfigElementNodes());
+        // sorted so that the build output is reproducible
+        Collections.sort(features, (a, b) -> a.getNodeName().compareTo(b.getNodeName()));
+        Collections.sort(configElements, (a, b) -> a.getNodeName().compareTo(b.getNodeName()));
+
+        List<String> strings = new ArrayList<String>();
+        Map<String, Integer> stringIds = new HashMap<String, Integer>();
+        for (FeatureListNode feature : features) {
+            addString(feature.getNodeName(), strings, stringIds);
+            addString(feature.description, strings, stringIds);
+        }
+        for (ConfigElementNode configElement : configElements) {
+            addString(configElement.getNodeName(), strings, stringIds);
+        }
+
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+        dos.writeInt(MAGIC);
+        dos.writeInt(FORMAT_VERSION);
+        writeString(dos, source);
+        writeString(dos, featureListGraph.getRuntime());
+
+        dos.writeInt(strings.size());
+        for (String string : strings) {
+            writeString(dos, string);
+        }
+
+        dos.writeInt(features.size());
+        for (FeatureListNode feature : features) {
+            dos.writeInt(stringIds.get(feature.getNodeName()));
+            dos.writeInt(feature.description == null ? NO_STRING : stringIds.get(feature.description));
+            writeIds(dos, sorted(feature.getEnablesFeatures()), stringIds);
+            writeIds(dos, sorted(feature.getEnablesConfigElements()), stringIds);
+        }
+
+        dos.writeInt(configElements.size());
+        for (ConfigElementNode configElement : configElements) {
+            dos.writeInt(stringIds.get(configElement.getNodeName()));
+            // true if a feature with the same name was added after the config element
+            dos.writeBoolean(featureListGraph.getNode(configElement.getNodeName()) != configElement);
+        }
+        dos.flush();
+    }
+
+    /**
+     * Reads a snapshot with a single read of the passed stream.
+     * @param in
+     * @param source expected name of the featurelist the snapshot was built from
+     * @return the graph, or null if the snapshot has another format version or was built from another featurelist
+     * @throws IOException if the snapshot cannot be read or is truncated
+     */
+    public static FeatureListGraph read(InputStream in, String source) throws IOException {
+        return read(ByteBuffer.wrap(in.readAllBytes()), source);
+    }
+
+    /**
+     * Reads a snapshot from the passed buffer, which may be memory mapped.
+     * @param buffer
+     * @param source expected name of the featurelist the snapshot was built from
+     * @return the graph, or null if the snapshot has another format version or was built from another featurelist
+     * @throws IOException if the snapshot is truncated
+     */
+    public static FeatureListGraph read(ByteBuffer buffer, String source) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !readString(buffer).equals(source)) {
+                return null;
+            }
+            FeatureListGraph featureListGraph = new FeatureListGraph();
+            featureListGraph.setRuntime(readString(buffer));
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer);
+            }
+
+            int featureCount = buffer.getInt();
+            String[] featureNames = new String[featureCount];
+            int[][] enablesFeatures = new int[featureCount][];
+            int[][] enablesConfigElements = new int[featureCount][];
+            for (int i = 0; i < featureCount; i++) {
+                featureNames[i] = strings[buffer.getInt()];
+                int descriptionId = buffer.getInt();
+                featureListGraph.addFeature(featureNames[i], descriptionId == NO_STRING ? null : strings[descriptionId]);
+                enablesFeatures[i] = readIds(buffer);
+                enablesConfigElements[i] = readIds(buffer);
+            }
+
+            int configElementCount = buffer.getInt();
+            List<String> shadowedConfigElements = new ArrayList<String>();
+            for (int i = 0; i < configElementCount; i++) {
+                String configElement = strings[buffer.getInt()];
+                featureListGraph.addConfigElement(configElement);
+                if (buffer.get() != 0) {
+                    shadowedConfigElements.add(configElement);
+                }
+            }
+            for (String configElement : shadowedConfigElements) {
+                featureListGraph.setNode(featureListGraph.getFeatureListNode(configElement));
+            }
+
+            for (int i = 0; i < featureCount; i++) {
+                FeatureListNode featureNode = featureListGraph.getFeatureListNode(featureNames[i]);
+                for (int id : enablesFeatures[i]) {
+                    featureNode.addEnablesFeature(strings[id]);
+                    featureListGraph.addFeature(strings[id]).addEnabledBy(featureNames[i]);
+                }
+                for (int id : enablesConfigElements[i]) {
+                    featureNode.addEnablesConfigElement(strings[id]);
+                    featureListGraph.addConfigElement(strings[id]).addEnabledBy(featureNames[i]);
+                }
+            }
+            featureListGraph.freeze();
+            return featureListGraph;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            throw new IOException("Truncated or corrupt feature list snapshot", e);
+        }
+    }
+
+    /**
+     * Generates the snapshot of a featurelist xml. Run by the Maven build for the default featurelist.
+     * @param args featurelist xml file, snapshot file, source name stored in the snapshot
+     */
+    public static void main(String[] args) throws IOException, XMLStreamException {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: FeatureListGraphSnapshot <featurelist xml> <snapshot file> <source name>");
+        }
+        FeatureListGraph featureListGraph = new FeatureListGraph();
+        FeatureListXmlReader.readFeatureList(new File(args[0]), featureListGraph, null);
+        File snapshotFile = new File(args[1]);
+        try (OutputStream out = Files.newOutputStream(snapshotFile.toPath())) {
+            write(featureListGraph, args[2], out);
+        }
+    }
+
+    private static void addString(String string, List<String> strings, Map<String, Integer> stringIds) {
+        if (string != null && !stringIds.containsKey(string)) {
+            stringIds.put(string, strings.size());
+            strings.add(string);
+        }
+    }
+
+    private static List<String> sorted(Iterable<String> values) {
+        List<String> sortedValues = new ArrayList<String>();
+        values.forEach(sortedValues::add);
+        Collections.sort(sortedValues);
+        return sortedValues;
+    }
+
+    private static void writeIds(DataOutputStream dos, List<String> values, Map<String, Integer> stringIds) throws IOException {
+        dos.writeInt(values.size());
+        for (String value : values) {
+            dos.writeInt(stringIds.get(value));
+        }
+    }
+
+    private static int[] readIds(ByteBuffer buffer) {
+        int[] ids = new int[buffer.getInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = buffer.getInt();
+        }
+        return ids;
+    }
+
+    private static void writeString(DataOutputStream dos, String string) throws IOException {
+        byte[] bytes = (string == null ? "" : string).getBytes(StandardCharsets.UTF_8);
+        dos.writeInt(bytes.length);
+        dos.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String string;
+        if (buffer.hasArray()) {
+            string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return string;
+    }
+}
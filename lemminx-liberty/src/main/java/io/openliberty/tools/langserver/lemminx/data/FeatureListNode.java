@@ -12,6 +12,7 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.lemminx.data;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -56,4 +57,11 @@ public class FeatureListNode extends Node {
     public Set<String> getEnablesConfigElements() {
         return enablesConfigElements;
     }
+
+    @Override
+    void freeze() {
+        super.freeze();
+        enablesFeatures = Collections.unmodifiableSet(enablesFeatures);
+        enablesConfigElements = Collections.unmodifiableSet(enablesConfigElements);
+    }
 }
\ No newline at end of file
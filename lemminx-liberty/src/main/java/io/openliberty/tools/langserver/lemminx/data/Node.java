@@ -12,6 +12,7 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.lemminx.data;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -24,6 +25,10 @@ public class Node {
         this.nodeName = nodeName;
     }
     
+    public String getNodeName() {
+        return nodeName;
+    }
+
     public void addEnabledBy(String nodeName) {
         enabledBy.add(nodeName);
     }
@@ -31,4 +36,9 @@ public class Node {
     public Set<String> getEnabledBy() {
         return enabledBy;
     }
+
+    // called when the graph containing this node is frozen
+    void freeze() {
+        enabledBy = Collections.unmodifiableSet(enabledBy);
+    }
 }
\ No newline at end of file
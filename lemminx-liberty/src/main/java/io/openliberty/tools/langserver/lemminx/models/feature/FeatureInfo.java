@@ -1,36 +0,0 @@
-/*******************************************************************************
-* Copyright (c) 2020, 2023 IBM Corporation and others.
-*
-* This program and the accompanying materials are made available under the
-* terms of the Eclipse Public License v. 2.0 which is available at
-* http://www.eclipse.org/legal/epl-2.0.
-*
-* SPDX-License-Identifier: EPL-2.0
-*
-* Contributors:
-*     IBM Corporation - initial API and implementation
-*******************************************************************************/
-package io.openliberty.tools.langserver.lemminx.models.feature;
-
-import java.util.List;
-
-import jakarta.xml.bind.annotation.XmlAccessType;
-import jakarta.xml.bind.annotation.XmlAccessorType;
-import jakarta.xml.bind.annotation.XmlElement;
-import jakarta.xml.bind.annotation.XmlRootElement;
-
-@XmlRootElement(name = "featureInfo")
-@XmlAccessorType(XmlAccessType.FIELD)
-public class FeatureInfo {
-
-    @XmlElement(name = "feature")
-    private List<Feature> features = null;
-
-    public List<Feature> getFeatures() {
-        return features;
-    }
-
-    public void setFeatures(List<Feature> features) {
-        this.features = features;
-    }
-}
\ No newline at end of file
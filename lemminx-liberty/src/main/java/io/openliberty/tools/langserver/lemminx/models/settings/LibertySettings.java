@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2020, 2022 IBM Corporation and others.
+* Copyright (c) 2020, 2024 IBM Corporation and others.
 *
 * This program and the accompanying materials are made available under the
 * terms of the Eclipse Public License v. 2.0 which is available at
@@ -21,6 +21,7 @@ public class LibertySettings {
     private String version;
     private String runtime;
     private int requestDelay; // in seconds
+    private boolean inProcessTools; // run ws-schemagen.jar and ws-featurelist.jar in the language server JVM
 
     public String getVersion() {
         return version;
@@ -46,4 +47,12 @@ public class LibertySettings {
         this.requestDelay = requestDelay;
     }
 
+    public boolean isInProcessTools() {
+        return inProcessTools;
+    }
+
+    public void setInProcessTools(boolean inProcessTools) {
+        this.inProcessTools = inProcessTools;
+    }
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2022, 2023 IBM Corporation and others.
+* Copyright (c) 2022, 2024 IBM Corporation and others.
 *
 * This program and the accompanying materials are made available under the
 * terms of the Eclipse Public License v. 2.0 which is available at
@@ -13,17 +13,29 @@
 
 package io.openliberty.tools.langserver.lemminx.services;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
-import java.text.MessageFormat;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
+import io.openliberty.tools.langserver.lemminx.services.ProcessExecutor.ProcessResult;
 import io.openliberty.tools.langserver.lemminx.util.DocumentUtil;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+import io.openliberty.tools.langserver.lemminx.util.TarExtractor;
 
 public class ContainerService {
     private static final Logger LOGGER = Logger.getLogger(ContainerService.class.getName());
@@ -55,17 +67,59 @@ public class ContainerService {
     public static final String DEFAULT_CONTAINER_WLP_SCHEMAGEN_JAR_PATH = DEFAULT_CONTAINER_WLP_DIR + SCHEMA_GEN_JAR_PATH;
     public static final String DEFAULT_CONTAINER_WLP_FEATURELIST_JAR_PATH = DEFAULT_CONTAINER_WLP_DIR + FEATURE_LIST_JAR_PATH;
 
+    // files of the batched container job, extracted to the "container" directory of the workspace temp dir
+    public static final String CONTAINER_ARTIFACTS_DIR = "container";
+    public static final String CONTAINER_PROPERTIES_ARTIFACT = "liberty.properties";
+    public static final String CONTAINER_SCHEMA_ARTIFACT = "server.xsd";
+    public static final String CONTAINER_FEATURE_LIST_ARTIFACT = "featurelist.xml";
+    private static final int CONTAINER_ARTIFACTS_TIMEOUT = 90; // seconds, the job runs ws-schemagen.jar and ws-featurelist.jar
+    private static final String[] CONTAINER_ARTIFACTS = { CONTAINER_PROPERTIES_ARTIFACT, CONTAINER_SCHEMA_ARTIFACT, CONTAINER_FEATURE_LIST_ARTIFACT };
+    private static final Pattern IMAGE_ID_PATTERN = Pattern.compile("[A-Za-z0-9]+(:[A-Za-z0-9]+)?");
+
+    /*
+     * Finds the Liberty installation of the container, generates the schema and feature list next to a copy of its
+     * properties file in a directory of its own, writes a tar of the three files on stdout and removes the directory.
+     * Concurrent jobs for the same container do not share their files.
+     */
+    private static final String CONTAINER_ARTIFACTS_SCRIPT = String.join("\n",
+            "for p in /" + DEFAULT_CONTAINER_WLP_PROPERTIES_PATH + " /" + DEFAULT_CONTAINER_OL_PROPERTIES_PATH + "; do",
+            "  if [ -f $p ]; then props=$p; break; fi",
+            "done",
+            "[ -n \"$props\" ] || exit 2",
+            "wlp=${props%/lib/versions/*}",
+            "d=$(mktemp -d) || exit 1",
+            "java -jar $wlp/" + SCHEMA_GEN_JAR_PATH + " --schemaVersion=1.1 --outputVersion=2 $d/" + CONTAINER_SCHEMA_ARTIFACT + " >&2",
+            "java -jar $wlp/" + FEATURE_LIST_JAR_PATH + " $d/" + CONTAINER_FEATURE_LIST_ARTIFACT + " >&2",
+            "cp $props $d/" + CONTAINER_PROPERTIES_ARTIFACT,
+            "tar -cf - -C $d .",
+            "rc=$?",
+            "rm -rf $d",
+            "exit $rc");
+
+    // writes the properties file of the Liberty installation of the container on stdout
+    private static final String CONTAINER_PROPERTIES_SCRIPT = "cat /" + DEFAULT_CONTAINER_WLP_PROPERTIES_PATH + " 2>/dev/null || cat /" + DEFAULT_CONTAINER_OL_PROPERTIES_PATH;
+
+    // workspace and container -> batched job, completed with whether it succeeded. Failed jobs are replaced.
+    private final Map<String, CompletableFuture<Boolean>> containerArtifactJobs = new ConcurrentHashMap<String, CompletableFuture<Boolean>>();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "liberty-ls-container");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /** ===== Public Methods ===== **/
 
     /**
      * Method to execute a command inside the specified container
      * @param containerType
      * @param containerName
-     * @param cmd
+     * @param cmd the command and its arguments
      */
-    public void containerExec(String containerType, String containerName, String cmd) {
+    public void containerExec(String containerType, String containerName, String... cmd) {
         // $ docker exec [OPTIONS] CONTAINER COMMAND [ARG...]
-        String containerExec = MessageFormat.format("{0} exec {1} {2}", containerType, containerName, cmd);
+        List<String> containerExec = new ArrayList<String>(Arrays.asList(containerType, "exec", containerName));
+        containerExec.addAll(Arrays.asList(cmd));
         execContainerCmd(containerExec);
     }
 
@@ -90,14 +144,100 @@ public class ContainerService {
      */
     public void containerCp(String containerType, String containerName, String containerSrc, String localDest, boolean suppressError) {
         // $ docker cp [OPTIONS] CONTAINER:SRC_PATH DEST_PATH|-
-        String containerCp = MessageFormat.format("{0} cp {1}:{2} {3}", containerType, containerName, containerSrc, localDest);
+        List<String> containerCp = Arrays.asList(containerType, "cp", containerName + ":" + containerSrc, localDest);
         execContainerCmd(containerCp, suppressError);
     }
 
+    /**
+     * Returns a file of the batched container job, without waiting for the job: the properties file of the Liberty
+     * installation, the generated schema and the generated feature list are retrieved with a single exec, instead of
+     * an exec and a copy for each of them. The job is started in the background if needed, and the open documents of
+     * the workspace are validated again once it succeeded.
+     * @param libertyWorkspace
+     * @param artifact CONTAINER_PROPERTIES_ARTIFACT, CONTAINER_SCHEMA_ARTIFACT or CONTAINER_FEATURE_LIST_ARTIFACT
+     * @return the file, or null if the job did not complete yet, failed or did not produce it
+     */
+    public File getContainerArtifact(LibertyWorkspace libertyWorkspace, String artifact) {
+        CompletableFuture<Boolean> job = startContainerArtifactsJob(libertyWorkspace);
+        if (job == null || !job.isDone() || !job.join()) {
+            return null;
+        }
+        File artifactFile = new File(getContainerArtifactsDir(libertyWorkspace), artifact);
+        return artifactFile.exists() ? artifactFile : null;
+    }
+
+    /**
+     * Waits for the batched container job of the workspace, starting it if needed. Declared public to be used by tests.
+     * @return true if the job succeeded
+     */
+    public boolean awaitContainerArtifacts(LibertyWorkspace libertyWorkspace, long timeout, TimeUnit unit) throws InterruptedException {
+        CompletableFuture<Boolean> job = startContainerArtifactsJob(libertyWorkspace);
+        try {
+            return job != null && job.get(timeout, unit);
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warning("Container job did not complete: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the properties file of the Liberty installation of the container of the workspace, without waiting for
+     * the generation of the schema and feature list. The batched job is started in the background if needed, and
+     * its properties file is used once it completed. Until then, the properties file is retrieved on its own with a
+     * single exec.
+     * @param libertyWorkspace
+     * @return the properties file, or null if it cannot be retrieved
+     */
+    public File getContainerPropertiesFile(LibertyWorkspace libertyWorkspace) {
+        File tempDir = LibertyUtils.getTempDir(libertyWorkspace);
+        if (tempDir == null) {
+            return null;
+        }
+        File artifactFile = getContainerArtifact(libertyWorkspace, CONTAINER_PROPERTIES_ARTIFACT);
+        if (artifactFile != null) {
+            return artifactFile;
+        }
+        File propertiesFile = new File(tempDir, "container.properties");
+        List<String> command = Arrays.asList(libertyWorkspace.getContainerType(), "exec", libertyWorkspace.getContainerName(), "sh", "-c", CONTAINER_PROPERTIES_SCRIPT);
+        try {
+            ProcessResult result = ProcessExecutor.getInstance().runToFile(command, propertiesFile, CONTAINER_TIMEOUT, TimeUnit.SECONDS);
+            if (result.isSuccessful() && propertiesFile.length() > 0) {
+                return propertiesFile;
+            }
+            LOGGER.warning("Could not retrieve the properties file of container " + libertyWorkspace.getContainerName() + ", RC=" + result.getExitValue() + ": " + result.getStderr().trim());
+        } catch (IOException e) {
+            LOGGER.warning("Could not retrieve the properties file of container " + libertyWorkspace.getContainerName() + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        propertiesFile.delete();
+        return null;
+    }
+
+    /**
+     * Forgets the files of the batched container job of the workspace and the files generated from them, the image
+     * of the container is checked again the next time a file is requested. Called when the container of the
+     * workspace changes.
+     * @param libertyWorkspace
+     */
+    public void clearContainerArtifacts(LibertyWorkspace libertyWorkspace) {
+        String prefix = getContainerArtifactsKey(libertyWorkspace, "");
+        containerArtifactJobs.keySet().removeIf(key -> key.startsWith(prefix));
+        if (!libertyWorkspace.isLibertyInstalled() && libertyWorkspace.isLibertyRuntimeAndVersionSet()) {
+            // the schema and feature list of the previous container, the image of the new one may have other features
+            File tempDir = LibertyUtils.getTempDir(libertyWorkspace);
+            if (tempDir != null) {
+                String runtimeAndVersion = libertyWorkspace.getLibertyRuntime() + "-" + libertyWorkspace.getLibertyVersion();
+                new File(tempDir, runtimeAndVersion + ".xsd").delete();
+                new File(tempDir, "featurelist-" + runtimeAndVersion + ".xml").delete();
+            }
+        }
+    }
+
     /**
      * Generate the schema file for a LibertyWorkspace using the ws-schemagen.jar from the corresponding container
      * @param libertyWorkspace
-     * @return Path to generated schema file or null if failed.
+     * @return Path to generated schema file or null if failed or not retrieved from the container yet.
      * @throws IOException
      */
     public String generateServerSchemaXsdFromContainer(LibertyWorkspace libertyWorkspace) throws IOException {
@@ -109,20 +249,10 @@ public class ContainerService {
                             "server.xsd";
         File xsdFile = new File(tempDir, xsdFileName);
 
-        if (!xsdFile.exists()) {
-            // java -jar {path to ws-schemagen.jar} {schemaVersion} {outputVersion} {outputFile}
-            String containerOutputFileString = "/tmp/" + xsdFileName;
-            String jarPath = (libertyRuntime != null && !libertyRuntime.isEmpty() && libertyRuntime.equals("wlp")) ? DEFAULT_CONTAINER_WLP_SCHEMAGEN_JAR_PATH.toString() : DEFAULT_CONTAINER_OL_SCHEMAGEN_JAR_PATH.toString();
-            String schemaVersion = "--schemaVersion=1.1";
-            String outputVersion = "--outputVersion=2";
-            String cmd = MessageFormat.format("java -jar {0} {1} {2} {3}", jarPath, schemaVersion, outputVersion, containerOutputFileString);
-
-            LOGGER.info("Generating schema file for container at: " + xsdFile.getCanonicalPath());
-
-            // generate xsd file inside container
-            containerExec(libertyWorkspace.getContainerType(), libertyWorkspace.getContainerName(), cmd);
-            // extract xsd file to local/temp dir
-            containerCp(libertyWorkspace.getContainerType(), libertyWorkspace.getContainerName(), containerOutputFileString, tempDir.getCanonicalPath());
+        // the cached schema is used until the batched job succeeded, a failed job is run again by the next request
+        File containerXsdFile = xsdFile.exists() ? null : getContainerArtifact(libertyWorkspace, CONTAINER_SCHEMA_ARTIFACT);
+        if (containerXsdFile != null) {
+            Files.copy(containerXsdFile.toPath(), xsdFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
         // (re)confirm xsd generation
         if (!xsdFile.exists()) {
@@ -139,7 +269,7 @@ public class ContainerService {
     /**
      * Generate the feature list for a LibertyWorkspace using the ws-featurelist.jar from the corresponding container
      * @param libertyWorkspace
-     * @return File the generated feature list file or null if failed.
+     * @return File the generated feature list file or null if failed or not retrieved from the container yet.
      * @throws IOException
      */
     public File generateFeatureListFromContainer(LibertyWorkspace libertyWorkspace) throws IOException {
@@ -151,18 +281,10 @@ public class ContainerService {
                             "featurelist.xml";
         File featureListFile = new File(tempDir, featureListFileName);
 
-        if (!featureListFile.exists()) {
-            // java -jar {path to ws-featurelist.jar} {outputFile}
-            String containerOutputFileString = "/tmp/" + featureListFileName;
-            String jarPath = (libertyRuntime != null && !libertyRuntime.isEmpty() && libertyRuntime.equals("wlp")) ? DEFAULT_CONTAINER_WLP_FEATURELIST_JAR_PATH.toString() : DEFAULT_CONTAINER_OL_FEATURELIST_JAR_PATH.toString();
-            String cmd = MessageFormat.format("java -jar {0} {1}", jarPath, containerOutputFileString);
-
-            LOGGER.info("Generating feature list file for container at: " + featureListFile.getCanonicalPath());
-
-            // generate feature list file inside container
-            containerExec(libertyWorkspace.getContainerType(), libertyWorkspace.getContainerName(), cmd);
-            // extract feature list file to local/temp dir
-            containerCp(libertyWorkspace.getContainerType(), libertyWorkspace.getContainerName(), containerOutputFileString, tempDir.getCanonicalPath());
+        // the default feature list is used until the batched job succeeded, a failed job is run again by the next request
+        File containerFeatureListFile = featureListFile.exists() ? null : getContainerArtifact(libertyWorkspace, CONTAINER_FEATURE_LIST_ARTIFACT);
+        if (containerFeatureListFile != null) {
+            Files.copy(containerFeatureListFile.toPath(), featureListFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
         // (re)confirm feature list generation
         if (!featureListFile.exists()) {
@@ -173,55 +295,143 @@ public class ContainerService {
     }
     /** ===== Protected/Helper Methods ===== **/
 
+    private static String getContainerArtifactsKey(LibertyWorkspace libertyWorkspace, String containerName) {
+        return libertyWorkspace.getWorkspaceString() + "|" + containerName;
+    }
+
+    private static File getContainerArtifactsDir(LibertyWorkspace libertyWorkspace) {
+        File tempDir = LibertyUtils.getTempDir(libertyWorkspace);
+        return tempDir == null ? null : new File(tempDir, CONTAINER_ARTIFACTS_DIR);
+    }
+
     /**
-     * @param command String containing the command to run
+     * Starts the batched container job of the workspace in the background, if it is not started yet. Concurrent
+     * requests share the job, and the requests for the containers of other workspaces do not wait for it. A job that
+     * failed is run again by the next request. Once a job succeeded, the open documents of the workspace are
+     * validated again, so that the schema and feature list of the container are used.
+     * @return the job, completed with whether it succeeded, or null if the workspace has no temp dir
+     */
+    private CompletableFuture<Boolean> startContainerArtifactsJob(LibertyWorkspace libertyWorkspace) {
+        File artifactsDir = getContainerArtifactsDir(libertyWorkspace);
+        if (artifactsDir == null) {
+            return null;
+        }
+        String key = getContainerArtifactsKey(libertyWorkspace, libertyWorkspace.getContainerName());
+        return containerArtifactJobs.compute(key, (k, job) -> {
+            if (job != null && (!job.isDone() || job.join())) {
+                return job;
+            }
+            CompletableFuture<Boolean> newJob = CompletableFuture.supplyAsync(() -> extractContainerArtifacts(libertyWorkspace, artifactsDir), executor).exceptionally(e -> false);
+            newJob.thenAcceptAsync(succeeded -> {
+                if (succeeded) {
+                    RevalidationService.getInstance().revalidateOpenDocuments(libertyWorkspace);
+                }
+            }, executor);
+            return newJob;
+        });
+    }
+
+    /**
+     * Runs the batched container job and extracts its files. The files of a container image are kept in the
+     * GeneratedArtifactCache, and the job does not run for the containers of an image that is already cached.
+     * @return true if the job succeeded or the files were cached
+     */
+    protected boolean extractContainerArtifacts(LibertyWorkspace libertyWorkspace, File artifactsDir) {
+        GeneratedArtifactCache artifactCache = GeneratedArtifactCache.getInstance();
+        String imageId = getContainerImageId(libertyWorkspace);
+        if (imageId != null && artifactCache.copyImageArtifactsTo(imageId, artifactsDir, CONTAINER_ARTIFACTS)) {
+            return true;
+        }
+        boolean extracted = runContainerArtifactsJob(libertyWorkspace, artifactsDir);
+        if (extracted && imageId != null && Arrays.stream(CONTAINER_ARTIFACTS).allMatch(artifact -> new File(artifactsDir, artifact).exists())) {
+            artifactCache.storeImageArtifacts(imageId, artifactsDir, CONTAINER_ARTIFACTS);
+        }
+        return extracted;
+    }
+
+    /**
+     * @return the ID of the image of the container of the workspace, or null if it cannot be retrieved
+     */
+    protected String getContainerImageId(LibertyWorkspace libertyWorkspace) {
+        // $ docker inspect --format {{.Image}} CONTAINER
+        List<String> command = Arrays.asList(libertyWorkspace.getContainerType(), "inspect", "--format", "{{.Image}}", libertyWorkspace.getContainerName());
+        try {
+            ProcessResult result = ProcessExecutor.getInstance().run(command, null, null, CONTAINER_TIMEOUT, TimeUnit.SECONDS);
+            String imageId = result.getStdout().trim();
+            if (result.isSuccessful() && IMAGE_ID_PATTERN.matcher(imageId).matches()) {
+                return imageId;
+            }
+            LOGGER.warning("Could not retrieve the image of container " + libertyWorkspace.getContainerName() + ": " + result.getStderr().trim());
+        } catch (IOException e) {
+            LOGGER.warning("Could not retrieve the image of container " + libertyWorkspace.getContainerName() + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private boolean runContainerArtifactsJob(LibertyWorkspace libertyWorkspace, File artifactsDir) {
+        File tarFile = new File(artifactsDir.getParentFile(), CONTAINER_ARTIFACTS_DIR + ".tar");
+        List<String> command = Arrays.asList(libertyWorkspace.getContainerType(), "exec", libertyWorkspace.getContainerName(), "sh", "-c", CONTAINER_ARTIFACTS_SCRIPT);
+        try {
+            LOGGER.info("Retrieving Liberty files from container: " + libertyWorkspace.getContainerName());
+            ProcessResult result = ProcessExecutor.getInstance().runToFile(command, tarFile, CONTAINER_ARTIFACTS_TIMEOUT, TimeUnit.SECONDS);
+            if (!result.isSuccessful()) {
+                LOGGER.warning("Could not retrieve Liberty files from container " + libertyWorkspace.getContainerName() + ", RC=" + result.getExitValue() + ": " + result.getStderr().trim());
+                return false;
+            }
+            Files.createDirectories(artifactsDir.toPath());
+            // files of a previous job, the job may not produce all of them
+            for (File previousFile : artifactsDir.listFiles()) {
+                previousFile.delete();
+            }
+            try (InputStream is = Files.newInputStream(tarFile.toPath())) {
+                TarExtractor.extract(is, artifactsDir.toPath());
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warning("Could not retrieve Liberty files from container " + libertyWorkspace.getContainerName() + ": " + e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            tarFile.delete();
+        }
+    }
+
+    /**
+     * @param command the command and its arguments
      * @return the stdout of the command or null for no output on stdout
      */
-    protected String execContainerCmd(String command) {
+    protected String execContainerCmd(List<String> command) {
         return execContainerCmd(command, false);
     }
 
     /**
-     * @param command String containing the command to run
+     * @param command the command and its arguments
      * @param suppressError If it is expected that the command may fail, pass true for this boolean parameter to suppress the error/exception.
      * @return the stdout of the command or null for no output on stdout
      */
-    protected String execContainerCmd(String command, boolean suppressError) {
-        String result = null;
+    protected String execContainerCmd(List<String> command, boolean suppressError) {
+        ProcessResult result;
         try {
-            // debug("execDocker, timeout=" + timeout + ", cmd=" + command);
-            Process p = Runtime.getRuntime().exec(command);
-            p.waitFor(CONTAINER_TIMEOUT, TimeUnit.SECONDS);
-            // After waiting for the process, handle the error case and normal termination.
-            if (p.exitValue() != 0 && !suppressError) {
-                LOGGER.severe("Received exit value=" + p.exitValue() + " when running container command: " + command);
-                // read messages from standard err
-                char[] d = new char[1023];
-                new InputStreamReader(p.getErrorStream(), StandardCharsets.UTF_8).read(d);
-                String stdErrString = new String(d).trim()+" RC="+p.exitValue();
-                //LOGGER.severe(stdErrString);
-                throw new RuntimeException(stdErrString);
-            }
-            result = readStdOut(p);
-        } catch (IllegalThreadStateException  e) {
-            // the timeout was too short and the container command has not yet completed. There is no exit value.
-            LOGGER.warning("IllegalThreadStateException, message="+e.getMessage());
-            throw new RuntimeException("The container command did not complete within the timeout period: " + CONTAINER_TIMEOUT + " seconds. ");
-        } catch (InterruptedException | IOException e) {
+            result = ProcessExecutor.getInstance().run(command, null, null, CONTAINER_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e.getMessage());
+        } catch (IOException e) {
             // If a runtime exception occurred in the server task, log and rethrow
             throw new RuntimeException(e.getMessage());
         }
-        return result;
-    }
-
-    protected String readStdOut(Process p) throws IOException, InterruptedException {
-        // Read all the output on stdout and return it to the caller
-        BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()));
-        String line;
-        StringBuffer allLines = new StringBuffer();
-        while ((line = in.readLine())!= null) {
-            allLines.append(line).append(" ");
+        if (result.isTimedOut()) {
+            throw new RuntimeException("The container command did not complete within the timeout period: " + CONTAINER_TIMEOUT + " seconds. ");
+        }
+        if (result.getExitValue() != 0 && !suppressError) {
+            LOGGER.severe("Received exit value=" + result.getExitValue() + " when running container command: " + String.join(" ", command));
+            throw new RuntimeException(result.getStderr().trim() + " RC=" + result.getExitValue());
         }
-        return (allLines.length() > 0) ? allLines.toString() : null;
+        String stdout = result.getStdout().trim();
+        return stdout.isEmpty() ? null : stdout.replaceAll("\\R", " ");
     }
 }
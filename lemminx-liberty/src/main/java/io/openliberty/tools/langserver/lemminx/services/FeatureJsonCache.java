@@ -0,0 +1,163 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.eclipse.lemminx.uriresolver.CacheResourcesManager;
+
+/**
+ * Persistent cache of the features json files downloaded from Maven Central. Each downloaded file is stored
+ * in the lemminx cache directory at the location lemminx uses for the remote resource, for example:
+ * ~/.lemminx/cache/https/repo1.maven.org/maven2/io/openliberty/features/features/24.0.0.10/features-24.0.0.10.json
+ *
+ * Next to the raw file, the public features are stored in a smaller "parsed" json file, and the ETag and
+ * Last-Modified response headers are stored in a properties file so that the download can be revalidated.
+ */
+public class FeatureJsonCache {
+
+    private static final String PUBLIC_FEATURES_SUFFIX = ".public.json";
+    private static final String METADATA_SUFFIX = ".properties";
+    private static final String ETAG_PROPERTY = "etag";
+    private static final String LAST_MODIFIED_PROPERTY = "lastModified";
+
+    private Path cacheDirectory;
+
+    /**
+     * Overrides the directory the features json files are stored in. Passing null restores the lemminx cache directory.
+     * Declared public to be used by tests
+     * @param cacheDirectory
+     */
+    public void setCacheDirectory(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Returns the location of the raw features json downloaded from the passed endpoint.
+     * @param featureEndpoint
+     * @return
+     * @throws IOException
+     */
+    public Path getFeaturesFile(String featureEndpoint) throws IOException {
+        if (cacheDirectory == null) {
+            return CacheResourcesManager.getResourceCachePath(featureEndpoint);
+        }
+        URI uri = URI.create(featureEndpoint);
+        return cacheDirectory.resolve(uri.getHost()).resolve(uri.getPath().substring(1));
+    }
+
+    public boolean isCached(String featureEndpoint) {
+        try {
+            return Files.isRegularFile(getPublicFeaturesFile(featureEndpoint));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a reader for the cached public features json downloaded from the passed endpoint.
+     * @param featureEndpoint
+     * @return
+     * @throws IOException
+     */
+    public InputStreamReader readPublicFeatures(String featureEndpoint) throws IOException {
+        return new InputStreamReader(Files.newInputStream(getPublicFeaturesFile(featureEndpoint)), StandardCharsets.UTF_8);
+    }
+
+    public String getETag(String featureEndpoint) {
+        return readMetadata(featureEndpoint).getProperty(ETAG_PROPERTY);
+    }
+
+    public String getLastModified(String featureEndpoint) {
+        return readMetadata(featureEndpoint).getProperty(LAST_MODIFIED_PROPERTY);
+    }
+
+    /**
+     * Stores a downloaded features json. Every file is written to a temporary file first and then moved into
+     * place, so a concurrent reader never sees a partially written file.
+     * @param featureEndpoint endpoint the features json was downloaded from
+     * @param content raw content of the downloaded features json
+     * @param publicFeaturesJson json of the public features found in the content
+     * @param eTag ETag response header, may be null
+     * @param lastModified Last-Modified response header, may be null
+     * @throws IOException
+     */
+    public void store(String featureEndpoint, byte[] content, String publicFeaturesJson, String eTag, String lastModified) throws IOException {
+        Path featuresFile = getFeaturesFile(featureEndpoint);
+        Files.createDirectories(featuresFile.getParent());
+        writeAtomically(featuresFile, content);
+
+        Properties metadata = new Properties();
+        if (eTag != null) {
+            metadata.setProperty(ETAG_PROPERTY, eTag);
+        }
+        if (lastModified != null) {
+            metadata.setProperty(LAST_MODIFIED_PROPERTY, lastModified);
+        }
+        ByteArrayOutputStream metadataContent = new ByteArrayOutputStream();
+        metadata.store(metadataContent, featureEndpoint);
+        writeAtomically(getMetadataFile(featureEndpoint), metadataContent.toByteArray());
+
+        // the public features file is written last since its presence marks the cache entry as complete
+        writeAtomically(getPublicFeaturesFile(featureEndpoint), publicFeaturesJson.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path getPublicFeaturesFile(String featureEndpoint) throws IOException {
+        Path featuresFile = getFeaturesFile(featureEndpoint);
+        return featuresFile.resolveSibling(featuresFile.getFileName().toString() + PUBLIC_FEATURES_SUFFIX);
+    }
+
+    private Path getMetadataFile(String featureEndpoint) throws IOException {
+        Path featuresFile = getFeaturesFile(featureEndpoint);
+        return featuresFile.resolveSibling(featuresFile.getFileName().toString() + METADATA_SUFFIX);
+    }
+
+    private Properties readMetadata(String featureEndpoint) {
+        Properties metadata = new Properties();
+        try {
+            Path metadataFile = getMetadataFile(featureEndpoint);
+            if (Files.isRegularFile(metadataFile)) {
+                try (InputStream is = Files.newInputStream(metadataFile)) {
+                    metadata.load(is);
+                }
+            }
+        } catch (IOException e) {
+            // no metadata, the features json will be downloaded unconditionally
+        }
+        return metadata;
+    }
+
+    private static void writeAtomically(Path file, byte[] content) throws IOException {
+        Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        Files.write(tempFile, content);
+        moveIntoPlace(tempFile, file);
+    }
+
+    private static void moveIntoPlace(Path tempFile, Path file) throws IOException {
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters for each step of the chain used to resolve a features json: the local Maven repository,
+ * the persistent cache and the remote Maven Central endpoint.
+ */
+public class FeatureResolverMetrics {
+
+    public enum Step {
+        LOCAL_REPOSITORY,
+        CACHE,
+        REMOTE
+    }
+
+    private final AtomicLongArray attempts = new AtomicLongArray(Step.values().length);
+    private final AtomicLongArray hits = new AtomicLongArray(Step.values().length);
+    private final AtomicLongArray elapsedNanos = new AtomicLongArray(Step.values().length);
+
+    /**
+     * Records one attempt to resolve a features json with the given step.
+     * @param step
+     * @param hit true if the step provided the features json
+     * @param elapsed time spent in the step, in nanoseconds
+     */
+    public void record(Step step, boolean hit, long elapsed) {
+        attempts.incrementAndGet(step.ordinal());
+        if (hit) {
+            hits.incrementAndGet(step.ordinal());
+        }
+        elapsedNanos.addAndGet(step.ordinal(), elapsed);
+    }
+
+    public long getAttempts(Step step) {
+        return attempts.get(step.ordinal());
+    }
+
+    public long getHits(Step step) {
+        return hits.get(step.ordinal());
+    }
+
+    public long getElapsedMillis(Step step) {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos.get(step.ordinal()));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Step step : Step.values()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(step).append(": ").append(getHits(step)).append('/').append(getAttempts(step))
+                    .append(" hits in ").append(getElapsedMillis(step)).append("ms");
+        }
+        return sb.toString();
+    }
+}
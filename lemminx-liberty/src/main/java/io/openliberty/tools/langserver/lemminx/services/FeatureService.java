@@ -12,22 +12,23 @@
 *******************************************************************************/
 package io.openliberty.tools.langserver.lemminx.services;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.File;
+import java.net.HttpURLConnection;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -38,22 +39,24 @@ import org.eclipse.lemminx.dom.DOMNode;
 import org.eclipse.lemminx.uriresolver.CacheResourcesManager;
 import org.eclipse.lemminx.uriresolver.CacheResourcesManager.ResourceToDeploy;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
-import jakarta.xml.bind.JAXBContext;
-import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonParseException;
 
-import io.openliberty.tools.langserver.lemminx.data.ConfigElementNode;
+import io.openliberty.tools.langserver.lemminx.data.FeatureCatalog;
 import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
-import io.openliberty.tools.langserver.lemminx.data.FeatureListNode;
+import io.openliberty.tools.langserver.lemminx.data.FeatureListGraphSnapshot;
 import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
-import io.openliberty.tools.langserver.lemminx.models.feature.FeatureInfo;
-import io.openliberty.tools.langserver.lemminx.models.feature.WlpInformation;
+import io.openliberty.tools.langserver.lemminx.services.ProcessExecutor.ProcessResult;
+import io.openliberty.tools.langserver.lemminx.util.FeatureJsonReader;
+import io.openliberty.tools.langserver.lemminx.util.FeatureListXmlReader;
 import io.openliberty.tools.langserver.lemminx.util.LibertyConstants;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 
@@ -68,6 +71,15 @@ public class FeatureService {
     private static FeatureService instance;
     private static String olFeatureEndpoint = "https://repo1.maven.org/maven2/io/openliberty/features/features/%1$s/features-%1$s.json";
     private static String wlpFeatureEndpoint = "https://repo1.maven.org/maven2/com/ibm/websphere/appserver/features/features/%1$s/features-%1$s.json";
+    private static final String DEFAULT_OL_FEATURE_ENDPOINT = olFeatureEndpoint;
+    private static final String DEFAULT_WLP_FEATURE_ENDPOINT = wlpFeatureEndpoint;
+    // Location of the features json in a Maven repository
+    private static final String OL_FEATURES_REPOSITORY_PATH = "io/openliberty/features/features/%1$s/features-%1$s.json";
+    private static final String WLP_FEATURES_REPOSITORY_PATH = "com/ibm/websphere/appserver/features/features/%1$s/features-%1$s.json";
+
+    // Timeouts (in milliseconds) for downloading a features json from Maven Central
+    private static final int CONNECT_TIMEOUT = 5000;
+    private static final int READ_TIMEOUT = 30000;
 
     // This file is copied to the local .lemminx cache. 
     // This is how we ensure the latest default featurelist xml gets used in each developer environment. 
@@ -87,6 +99,10 @@ public class FeatureService {
     public static final ResourceToDeploy FEATURELIST_XML_RESOURCE = new ResourceToDeploy(FEATURELIST_XML_RESOURCE_URL,
             FEATURELIST_XML_CLASSPATH_LOCATION);
 
+    // Binary snapshot of the graph built from FEATURELIST_XML_CLASSPATH_LOCATION, generated by the Maven build.
+    // The xml is only parsed when the snapshot is missing or was built from another featurelist.
+    private static final String FEATURELIST_SNAPSHOT_CLASSPATH_LOCATION = "/featurelist-cached-24.0.0.10.bin";
+
     public static FeatureService getInstance() {
         if (instance == null) {
             instance = new FeatureService();
@@ -94,15 +110,72 @@ public class FeatureService {
         return instance;
     }
 
-    // Cache of Liberty version -> list of supported features
-    private Map<String, List<Feature>> featureCache;   // the key consists of runtime-version, where runtime is 'ol' or 'wlp'
-    private List<Feature> defaultFeatures;
-    private FeatureListGraph defaultFeatureList;
-    private long featureUpdateTime;
+    // Cache of Liberty version -> catalog of supported features
+    private Map<String, FeatureCatalog> featureCache;   // the key consists of runtime-version, where runtime is 'ol' or 'wlp'
+    // Downloads from Maven Central that are still in progress, using the same key as the featureCache
+    private Map<String, CompletableFuture<FeatureCatalog>> pendingDownloads;
+    private ExecutorService downloadExecutor;
+    private FeatureJsonCache featureJsonCache;
+    private FeatureResolverMetrics resolverMetrics;
+    private volatile Path localMavenRepository;
+    // read once, by the first thread requesting them, see getDefaultFeatures and getDefaultFeatureList
+    private volatile FeatureCatalog defaultFeatures;
+    private volatile FeatureListGraph defaultFeatureList;
+    // Time of the last download attempt of each features json, using the same key as the featureCache
+    private Map<String, Long> featureUpdateTimes;
+    // Workspace -> lock held while generating its installed feature list, so that it is generated once
+    private Map<String, Object> featureListLocks;
 
     private FeatureService() {
-        featureCache = new HashMap<>();
-        featureUpdateTime = -1;
+        featureCache = new ConcurrentHashMap<>();
+        featureListLocks = new ConcurrentHashMap<>();
+        pendingDownloads = new ConcurrentHashMap<>();
+        downloadExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "liberty-feature-download");
+            thread.setDaemon(true);
+            return thread;
+        });
+        featureJsonCache = new FeatureJsonCache();
+        resolverMetrics = new FeatureResolverMetrics();
+        featureUpdateTimes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Overrides the local Maven repository features json files are looked up in. Passing null restores the
+     * repository configured for the user.
+     * Declared public to be used by tests
+     * @param repository
+     */
+    public void setLocalMavenRepository(Path repository) {
+        localMavenRepository = repository;
+    }
+
+    /**
+     * Returns the counters for each step used to resolve a features json.
+     * @return
+     */
+    public FeatureResolverMetrics getResolverMetrics() {
+        return resolverMetrics;
+    }
+
+    /**
+     * Overrides the directory downloaded features json files are cached in. Passing null restores the lemminx cache directory.
+     * Declared public to be used by tests
+     * @param cacheDirectory
+     */
+    public void setFeatureCacheDirectory(Path cacheDirectory) {
+        featureJsonCache.setCacheDirectory(cacheDirectory);
+    }
+
+    /**
+     * Overrides the Maven Central endpoints used to download the features json. Passing null restores the defaults.
+     * Declared public to be used by tests
+     * @param olEndpoint format string taking the Liberty version, for Open Liberty features
+     * @param wlpEndpoint format string taking the Liberty version, for WebSphere Liberty features
+     */
+    public static void setFeatureEndpoints(String olEndpoint, String wlpEndpoint) {
+        olFeatureEndpoint = olEndpoint == null ? DEFAULT_OL_FEATURE_ENDPOINT : olEndpoint;
+        wlpFeatureEndpoint = wlpEndpoint == null ? DEFAULT_WLP_FEATURE_ENDPOINT : wlpEndpoint;
     }
 
     /**
@@ -112,13 +185,7 @@ public class FeatureService {
      * @return list of features supported by the provided version of Liberty
      */
     private List<Feature> fetchFeaturesForVersion(String libertyVersion, String libertyRuntime) throws IOException, JsonParseException {
-        String featureEndpoint = libertyRuntime.equals("wlp") ? String.format(wlpFeatureEndpoint, libertyVersion) : 
-                                                                String.format(olFeatureEndpoint, libertyVersion);
-
-        InputStreamReader reader = new InputStreamReader(new URL(featureEndpoint).openStream());
-
-        // Only need the public features
-        List<Feature> publicFeatures = readPublicFeatures(reader);
+        List<Feature> publicFeatures = resolvePublicFeatures(libertyVersion, libertyRuntime, true);
 
         if (libertyRuntime.equals("wlp")) {
             // need to also get the OpenLiberty features and add them to the list to return
@@ -131,29 +198,189 @@ public class FeatureService {
     }
 
     /**
-     * Returns the default list of features
-     *
-     * @return list of features supported by the default version of Liberty
+     * Returns the catalog of features for the passed runtime/version from the local Maven repository or the
+     * persistent cache, or null if the features json is not available without network access.
      */
-    private List<Feature> getDefaultFeatures() {
+    private FeatureCatalog resolveLocalFeatureCatalog(String libertyVersion, String libertyRuntime) {
         try {
-            if (defaultFeatures == null) {
-                // Changing this to contain the version in the file name since the file is copied to the local .lemminx cache. 
-                // This is how we ensure the latest default features json gets used in each developer environment. 
-                InputStream is = getClass().getClassLoader().getResourceAsStream("features-cached-24.0.0.10.json");
-                InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8);
-
-                // Only need the public features
-                defaultFeatures = readPublicFeatures(reader);
+            List<Feature> publicFeatures = resolvePublicFeatures(libertyVersion, libertyRuntime, false);
+            if (publicFeatures == null) {
+                return null;
             }
-            LOGGER.info("Returning default list of features");
-            return defaultFeatures;
+            if (libertyRuntime.equals("wlp")) {
+                List<Feature> olFeatures = resolvePublicFeatures(libertyVersion, "ol", false);
+                if (olFeatures == null) {
+                    return null;
+                }
+                publicFeatures.addAll(olFeatures);
+            }
+            LOGGER.info("Returning public features from local features json: " + publicFeatures.size());
+            return new FeatureCatalog(publicFeatures);
+        } catch (Exception e) {
+            LOGGER.warning("Unable to read the local features json for " + libertyRuntime + "-" + libertyVersion + ": " + e.getMessage());
+        }
+        return null;
+    }
 
-        } catch (JsonParseException e) {
-            // unable to read json in resources file, return empty list
-            LOGGER.severe("Error: Unable to get default features.");
+    /**
+     * Resolves the public features of a single runtime (not including the Open Liberty features a wlp runtime also
+     * has) by trying, in order, the local Maven repository, the persistent cache and the remote Maven Central endpoint.
+     * A cached features json of an unreleased version is only used as is without network access. Otherwise it is
+     * revalidated against the remote endpoint.
+     * 
+     * @param remote whether the remote endpoint may be used
+     * @return list of public features, or null if not found and remote is false
+     */
+    private ArrayList<Feature> resolvePublicFeatures(String libertyVersion, String libertyRuntime, boolean remote) throws IOException, JsonParseException {
+        ArrayList<Feature> publicFeatures = readLocalRepositoryPublicFeatures(libertyVersion, libertyRuntime);
+        if (publicFeatures != null) {
+            return publicFeatures;
+        }
+
+        String featureEndpoint = getFeatureEndpoint(libertyVersion, libertyRuntime);
+        if (!remote || isReleasedVersion(libertyVersion)) {
+            publicFeatures = readCachedPublicFeatures(featureEndpoint);
+            if (publicFeatures != null || !remote) {
+                return publicFeatures;
+            }
+        }
+        return downloadPublicFeatures(featureEndpoint);
+    }
+
+    private String getFeatureEndpoint(String libertyVersion, String libertyRuntime) {
+        return libertyRuntime.equals("wlp") ? String.format(wlpFeatureEndpoint, libertyVersion) : 
+                                              String.format(olFeatureEndpoint, libertyVersion);
+    }
+
+    /**
+     * Returns the public features from the features json installed in the local Maven repository (for example
+     * by the Liberty Maven plugin), or null if it is not installed.
+     */
+    private ArrayList<Feature> readLocalRepositoryPublicFeatures(String libertyVersion, String libertyRuntime) {
+        long startTime = System.nanoTime();
+        ArrayList<Feature> publicFeatures = null;
+        Path featuresFile = getLocalMavenRepository().resolve(libertyRuntime.equals("wlp") ? String.format(WLP_FEATURES_REPOSITORY_PATH, libertyVersion) :
+                                                                                           String.format(OL_FEATURES_REPOSITORY_PATH, libertyVersion));
+        if (Files.isRegularFile(featuresFile)) {
+            try (InputStreamReader reader = new InputStreamReader(Files.newInputStream(featuresFile), StandardCharsets.UTF_8)) {
+                publicFeatures = readPublicFeatures(reader);
+                LOGGER.info("Using features json from local Maven repository: " + featuresFile);
+            } catch (IOException | JsonParseException e) {
+                LOGGER.warning("Unable to read features json from local Maven repository: " + featuresFile + ": " + e.getMessage());
+            }
+        }
+        resolverMetrics.record(FeatureResolverMetrics.Step.LOCAL_REPOSITORY, publicFeatures != null, System.nanoTime() - startTime);
+        return publicFeatures;
+    }
+
+    /**
+     * Returns the public features from the persistent cache, or null if the features json was not downloaded yet.
+     */
+    private ArrayList<Feature> readCachedPublicFeatures(String featureEndpoint) throws IOException, JsonParseException {
+        long startTime = System.nanoTime();
+        ArrayList<Feature> publicFeatures = null;
+        try {
+            if (featureJsonCache.isCached(featureEndpoint)) {
+                try (InputStreamReader reader = featureJsonCache.readPublicFeatures(featureEndpoint)) {
+                    publicFeatures = readPublicFeatures(reader);
+                }
+            }
+        } finally {
+            resolverMetrics.record(FeatureResolverMetrics.Step.CACHE, publicFeatures != null, System.nanoTime() - startTime);
+        }
+        return publicFeatures;
+    }
+
+    /**
+     * Downloads the features json at the passed endpoint and returns its public features. If the features json
+     * is in the persistent cache, the request is conditional on the cached ETag/Last-Modified values.
+     */
+    private ArrayList<Feature> downloadPublicFeatures(String featureEndpoint) throws IOException, JsonParseException {
+        long startTime = System.nanoTime();
+        ArrayList<Feature> publicFeatures = null;
+        try {
+            URLConnection connection = new URL(featureEndpoint).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            connection.setReadTimeout(READ_TIMEOUT);
+            if (featureJsonCache.isCached(featureEndpoint)) {
+                String eTag = featureJsonCache.getETag(featureEndpoint);
+                String lastModified = featureJsonCache.getLastModified(featureEndpoint);
+                if (eTag != null) {
+                    connection.setRequestProperty("If-None-Match", eTag);
+                }
+                if (lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", lastModified);
+                }
+                if (connection instanceof HttpURLConnection && ((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    LOGGER.info("Cached features json is up to date: " + featureEndpoint);
+                    try (InputStreamReader reader = featureJsonCache.readPublicFeatures(featureEndpoint)) {
+                        publicFeatures = readPublicFeatures(reader);
+                    }
+                    return publicFeatures;
+                }
+            }
+
+            byte[] content;
+            try (InputStream is = connection.getInputStream()) {
+                content = is.readAllBytes();
+            }
+
+            // Only need the public features
+            publicFeatures = readPublicFeatures(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+            try {
+                featureJsonCache.store(featureEndpoint, content, new Gson().toJson(publicFeatures),
+                        connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"));
+            } catch (IOException e) {
+                LOGGER.warning("Unable to cache the features json downloaded from " + featureEndpoint + ": " + e.getMessage());
+            }
+            return publicFeatures;
+        } finally {
+            resolverMetrics.record(FeatureResolverMetrics.Step.REMOTE, publicFeatures != null, System.nanoTime() - startTime);
+        }
+    }
+
+    private Path getLocalMavenRepository() {
+        if (localMavenRepository == null) {
+            localMavenRepository = LibertyUtils.getLocalMavenRepository();
+        }
+        return localMavenRepository;
+    }
+
+    // Released versions (e.g. 24.0.0.10) are never republished, so a cached features json for them never needs to be refreshed
+    private static boolean isReleasedVersion(String libertyVersion) {
+        return libertyVersion.matches("\\d+(\\.\\d+)+");
+    }
+
+    /**
+     * Returns the default catalog of features
+     *
+     * @return catalog of features supported by the default version of Liberty
+     */
+    private FeatureCatalog getDefaultFeatures() {
+        FeatureCatalog features = defaultFeatures;
+        if (features == null) {
+            features = readDefaultFeatures();
+        }
+        LOGGER.info("Returning default list of features");
+        return features;
+    }
+
+    private synchronized FeatureCatalog readDefaultFeatures() {
+        if (defaultFeatures != null) {
             return defaultFeatures;
         }
+        // Changing this to contain the version in the file name since the file is copied to the local .lemminx cache. 
+        // This is how we ensure the latest default features json gets used in each developer environment. 
+        try (InputStream is = getClass().getClassLoader().getResourceAsStream("features-cached-24.0.0.10.json");
+                InputStreamReader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+            // Only need the public features
+            defaultFeatures = new FeatureCatalog(readPublicFeatures(reader));
+            return defaultFeatures;
+        } catch (JsonParseException | IOException e) {
+            // unable to read json in resources file, return empty catalog
+            LOGGER.severe("Error: Unable to get default features.");
+            return FeatureCatalog.EMPTY;
+        }
     }
 
     /**
@@ -163,21 +390,15 @@ public class FeatureService {
      * @return list of public features
      */
     private ArrayList<Feature> readPublicFeatures(InputStreamReader reader) throws JsonParseException {
-        Feature[] featureList = new Gson().fromJson(reader, Feature[].class);
-
-        ArrayList<Feature> publicFeatures = new ArrayList<>();
-        // Guard against null visibility field. Ran into this during manual testing of a wlp installation.
-        Arrays.asList(featureList).stream()
-            .filter(f -> f.getWlpInformation().getVisibility() != null && f.getWlpInformation().getVisibility().equals(LibertyConstants.PUBLIC_VISIBILITY))
-            .forEach(publicFeatures::add);
-        return publicFeatures;
+        return FeatureJsonReader.readPublicFeatures(reader);
     }
 
     /**
-     * Returns the Liberty features corresponding to the Liberty version. First
-     * attempts to fetch the feature json from Maven, otherwise falls back to the
-     * list of installed features. If the installed features list cannot be
-     * gathered, falls back to the default cached features json file.
+     * Returns the Liberty features corresponding to the Liberty version. Uses the
+     * feature json downloaded from Maven if available, otherwise starts downloading
+     * it in the background and falls back to the list of installed features. If the
+     * installed features list cannot be gathered, falls back to the default cached
+     * features json file.
      * 
      * @param libertyVersion Liberty version (corresponds to XML document)
      * @param libertyRuntime Liberty runtime (corresponds to XML document)
@@ -186,9 +407,24 @@ public class FeatureService {
      * @return List of possible features
      */
     public List<Feature> getFeatures(String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
+        return getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI).getFeatures();
+    }
+
+    /**
+     * Returns the indexed catalog of Liberty features corresponding to the Liberty version. The catalog is
+     * resolved the same way as {@link #getFeatures(String, String, int, String)} and is built once per
+     * runtime/version so that subsequent lookups do not need to scan the feature list.
+     * 
+     * @param libertyVersion Liberty version (corresponds to XML document)
+     * @param libertyRuntime Liberty runtime (corresponds to XML document)
+     * @param requestDelay Time to wait in between feature list requests to Maven
+     * @param documentURI Liberty XML document
+     * @return FeatureCatalog of possible features
+     */
+    public FeatureCatalog getFeatureCatalog(String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
         if (libertyRuntime == null || libertyVersion == null) {
             // return default list of features
-            List<Feature> defaultFeatures = getDefaultFeatures(); 
+            FeatureCatalog defaultFeatures = getDefaultFeatures(); 
             getDefaultFeatureList();
             return defaultFeatures;
         }
@@ -203,42 +439,88 @@ public class FeatureService {
 
         LOGGER.info("Getting features for: " + featureCacheKey);
 
-        // if not a beta runtime, fetch features from maven central
+        // if not a beta runtime, fetch features from maven central in the background
         // - beta runtimes do not have a published features.json in mc
         if (!libertyVersion.endsWith("-beta")) {
-            try {
-                // verify that request delay (seconds) has gone by since last fetch request
-                // Note that the default delay is 10 seconds and can cause us to generate a feature list instead of download from MC when
-                // switching back and forth between projects.
-                long currentTime = System.currentTimeMillis();
-                if (this.featureUpdateTime == -1 || currentTime >= (this.featureUpdateTime + (requestDelay * 1000))) {
-                    List<Feature> features = fetchFeaturesForVersion(libertyVersion, libertyRuntime);
-                    featureCache.put(featureCacheKey, features);
-                    this.featureUpdateTime = System.currentTimeMillis();
-                    return features;
+            // a features json from the local Maven repository or the persistent cache is used right away,
+            // and only revalidated if the version is not a release
+            FeatureCatalog cachedFeatures = resolveLocalFeatureCatalog(libertyVersion, libertyRuntime);
+            if (cachedFeatures != null) {
+                featureCache.put(featureCacheKey, cachedFeatures);
+                if (!isReleasedVersion(libertyVersion)) {
+                    downloadFeatureCatalog(featureCacheKey, libertyVersion, libertyRuntime, requestDelay);
                 }
-            } catch (Exception e) {
-                // do nothing, continue on to returning default feature list
-                LOGGER.warning("Received exception when trying to download features from Maven Central: "+e.getMessage());
+                return cachedFeatures;
             }
+            downloadFeatureCatalog(featureCacheKey, libertyVersion, libertyRuntime, requestDelay);
         }
 
-        // fetch installed features list - this would only happen if a features.json was not able to be downloaded from Maven Central
-        // This is the case for beta runtimes and for very old runtimes pre 18.0.0.2 (or if within the requestDelay window of 120 seconds).
-        List<Feature> installedFeatures = getInstalledFeaturesList(documentURI, libertyRuntime, libertyVersion);
+        // fetch installed features list - this happens until a features.json is downloaded from Maven Central, and for good
+        // if it cannot be downloaded. This is the case for beta runtimes and for very old runtimes pre 18.0.0.2.
+        LibertyWorkspace libertyWorkspace = LibertyProjectsManager.getInstance().getWorkspaceFolder(documentURI);
+        List<Feature> installedFeatures = getInstalledFeaturesList(libertyWorkspace, libertyRuntime, libertyVersion);
         if (installedFeatures.size() != 0) {
-            return installedFeatures;
+            return libertyWorkspace.getInstalledFeatureCatalog();
         }
 
         // return default list of features
-        List<Feature> defaultFeatures = getDefaultFeatures(); 
+        FeatureCatalog defaultFeatures = getDefaultFeatures(); 
         return defaultFeatures;
     }
 
+    /**
+     * Starts downloading the features json for the passed runtime/version from Maven Central on a background
+     * thread, unless a download is already in progress or the request delay has not passed since the last download
+     * attempt. Once the download completes, the catalog is added to the feature cache and the open documents are
+     * re-validated so that they pick up the downloaded catalog.
+     */
+    private void downloadFeatureCatalog(String featureCacheKey, String libertyVersion, String libertyRuntime, int requestDelay) {
+        // verify that request delay (seconds) has gone by since the last fetch request for this runtime/version, so that
+        // the download of one version does not delay the first download of another version when switching between projects
+        long currentTime = System.currentTimeMillis();
+        Long featureUpdateTime = featureUpdateTimes.get(featureCacheKey);
+        if (pendingDownloads.containsKey(featureCacheKey)
+                || (featureUpdateTime != null && currentTime < (featureUpdateTime + (requestDelay * 1000)))) {
+            return;
+        }
+        featureUpdateTimes.put(featureCacheKey, currentTime);
+
+        CompletableFuture<FeatureCatalog> download = new CompletableFuture<FeatureCatalog>();
+        if (pendingDownloads.putIfAbsent(featureCacheKey, download) != null) {
+            return;
+        }
+        downloadExecutor.execute(() -> {
+            FeatureCatalog features = null;
+            try {
+                features = new FeatureCatalog(fetchFeaturesForVersion(libertyVersion, libertyRuntime));
+                featureCache.put(featureCacheKey, features);
+            } catch (Exception e) {
+                LOGGER.warning("Received exception when trying to download features from Maven Central: " + e.getMessage());
+            } finally {
+                featureUpdateTimes.put(featureCacheKey, System.currentTimeMillis());
+                pendingDownloads.remove(featureCacheKey);
+                download.complete(features);
+            }
+            if (features != null) {
+                RevalidationService.getInstance().revalidateOpenDocuments();
+            }
+        });
+    }
+
+    /**
+     * Returns the download of the features json for the passed runtime/version if one is in progress, otherwise null.
+     * The returned future completes with the downloaded catalog, or with null if the download failed.
+     * Declared public to be used by tests
+     * @param libertyVersion
+     * @param libertyRuntime
+     * @return
+     */
+    public CompletableFuture<FeatureCatalog> getPendingDownload(String libertyVersion, String libertyRuntime) {
+        return pendingDownloads.get(libertyRuntime + "-" + libertyVersion);
+    }
+
     public Optional<Feature> getFeature(String featureName, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
-        List<Feature> features = getFeatures(libertyVersion, libertyRuntime, requestDelay, documentURI);
-        return features.stream().filter(f -> f.getWlpInformation().getShortName().equalsIgnoreCase(featureName))
-            .findFirst();
+        return getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI).getFeature(featureName);
     }
 
     public List<String> getFeatureShortNames(List<Feature> features) {
@@ -256,42 +538,68 @@ public class FeatureService {
     }
 
     public boolean featureExists(String featureName, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
-        return this.getFeature(featureName, libertyVersion, libertyRuntime, requestDelay, documentURI).isPresent();
+        return getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI).containsFeature(featureName);
     }
 
     public List<Feature> getFeatureReplacements(String featureName, DOMNode featureManagerNode, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
-        List<Feature> features = getFeatures(libertyVersion, libertyRuntime, requestDelay, documentURI);
-        List<String> featureNamesLowerCase = getFeatureShortNames(features, true);
+        return getFeatureReplacements(featureName, featureManagerNode, getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI));
+    }
 
+    public List<Feature> getFeatureReplacements(String featureName, DOMNode featureManagerNode, FeatureCatalog catalog) {
         // get list of existing features to exclude from list of possible replacements
         List<String> existingFeatures = collectExistingFeatures(featureManagerNode, featureName);
 
         // also exclude any feature with a different version that matches an existing feature
         Set<String> featuresWithoutVersionsToExclude = new HashSet<String>();
-        for (String nextFeatureName : featureNamesLowerCase) {
-            if (existingFeatures.contains(nextFeatureName)) {
-                // collect feature name minus version number to know which other features to exclude
-                String featureNameMinusVersion = nextFeatureName.contains("-") ?
-                        nextFeatureName.substring(0, nextFeatureName.lastIndexOf("-") + 1) : nextFeatureName + "-";
-                featuresWithoutVersionsToExclude.add(featureNameMinusVersion);
+        for (String nextFeatureName : existingFeatures) {
+            if (catalog.containsFeature(nextFeatureName)) {
+                featuresWithoutVersionsToExclude.add(LibertyUtils.stripVersion(nextFeatureName));
             }
         }
 
-        List<Feature> replacementFeatures = new ArrayList<Feature>();
-        String featureNameLowerCase = featureName.toLowerCase();
+        return catalog.getFeatureCompletionIndex().findBySubstring(featureName, null, featuresWithoutVersionsToExclude);
+    }
 
-        for (int i = 0; i < featureNamesLowerCase.size(); i++) {
-            String nextFeatureName = featureNamesLowerCase.get(i);
-            if (nextFeatureName.contains(featureNameLowerCase)) {
-                String comparingFeatureName = nextFeatureName.contains("-") ?
-                        nextFeatureName.substring(0, nextFeatureName.lastIndexOf("-") + 1) : nextFeatureName + "-";
-                if (!featuresWithoutVersionsToExclude.contains(comparingFeatureName)) {
-                    replacementFeatures.add(features.get(i));
-                }
+    /**
+     * Returns all features for the given runtime that are not already specified in the featureManager.
+     * @param existingFeatures lower case feature names already specified
+     * @param libertyVersion
+     * @param libertyRuntime
+     * @param requestDelay
+     * @param documentURI
+     * @return
+     */
+    public List<Feature> getUniqueFeatures(List<String> existingFeatures, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
+        return getUniqueFeatures(existingFeatures, getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI));
+    }
+
+    public List<Feature> getUniqueFeatures(List<String> existingFeatures, FeatureCatalog catalog) {
+        return catalog.getFeatureCompletionIndex().findBySubstring(null, new HashSet<String>(existingFeatures), null);
+    }
+
+    /**
+     * Returns the platforms containing the passed platform name, excluding platforms that are already
+     * specified (with any version) or that conflict with an already specified platform.
+     * @param platformName text entered so far, may be null
+     * @param existingPlatforms lower case platform names without version already specified
+     * @param libertyVersion
+     * @param libertyRuntime
+     * @param requestDelay
+     * @param documentURI
+     * @return
+     */
+    public List<String> getPlatformCompletions(String platformName, List<String> existingPlatforms, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
+        return getPlatformCompletions(platformName, existingPlatforms, getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI));
+    }
+
+    public List<String> getPlatformCompletions(String platformName, List<String> existingPlatforms, FeatureCatalog catalog) {
+        Set<String> platformsToExclude = new HashSet<String>(existingPlatforms);
+        for (Map.Entry<String, String> conflict : LibertyConstants.conflictingPlatforms.entrySet()) {
+            if (existingPlatforms.contains(conflict.getValue())) {
+                platformsToExclude.add(conflict.getKey());
             }
         }
-
-        return replacementFeatures;
+        return catalog.getPlatformCompletionIndex().findBySubstring(platformName, null, platformsToExclude);
     }
 
     /*
@@ -345,6 +653,21 @@ public class FeatureService {
             return cachedFeatures;
         }
 
+        // the feature list may be generated in the background when the workspace is detected, wait for it
+        synchronized (featureListLocks.computeIfAbsent(libertyWorkspace.getWorkspaceString(), k -> new Object())) {
+            cachedFeatures = libertyWorkspace.getInstalledFeatureList();
+            if (cachedFeatures.size() != 0) {
+                return cachedFeatures;
+            }
+            return generateInstalledFeaturesList(libertyWorkspace);
+        }
+    }
+
+    private List<Feature> generateInstalledFeaturesList(LibertyWorkspace libertyWorkspace) {
+        List<Feature> installedFeatures = new ArrayList<Feature>();
+        // read before the generation, so that features installed meanwhile make the feature list stale
+        String fingerprint = libertyWorkspace.getInstallationFingerprint();
+        libertyWorkspace.setFeatureListFingerprint(fingerprint);
         try {
             // Need to handle both local installation and container
             File featureListFile = null;
@@ -362,7 +685,7 @@ public class FeatureService {
             if (featureListFile != null && featureListFile.exists()) {
                 try {
                     installedFeatures = readFeaturesFromFeatureListFile(installedFeatures, libertyWorkspace, featureListFile);
-                } catch (JAXBException e) {
+                } catch (XMLStreamException e) {
                     LOGGER.severe("Error: Unable to load the generated feature list file for the target Liberty runtime due to exception: "+e.getMessage());
                 }
             } else {
@@ -382,6 +705,16 @@ public class FeatureService {
     }
 
     public FeatureListGraph getDefaultFeatureList() {
+        FeatureListGraph featureList = defaultFeatureList;
+        return featureList != null ? featureList : readDefaultFeatureList();
+    }
+
+    private synchronized FeatureListGraph readDefaultFeatureList() {
+        if (defaultFeatureList != null) {
+            return defaultFeatureList;
+        }
+
+        defaultFeatureList = readDefaultFeatureListSnapshot();
         if (defaultFeatureList != null) {
             return defaultFeatureList;
         }
@@ -395,7 +728,7 @@ public class FeatureService {
             if (featureListFile != null && featureListFile.exists()) {
                 try {
                     readFeaturesFromFeatureListFile(null, null, featureListFile, true);
-                } catch (JAXBException e) {
+                } catch (XMLStreamException e) {
                     LOGGER.severe("Error: Unable to load the default cached featurelist file due to exception: "+e.getMessage());
                 }
             } else {
@@ -412,18 +745,25 @@ public class FeatureService {
         return defaultFeatureList;
     }
 
-    public boolean doesGeneratedFeatureListExist(LibertyWorkspace libertyWorkspace) {
-        File tempDir = LibertyUtils.getTempDir(libertyWorkspace);
-
-        //If tempDir is null, issue a warning for the current LibertyWorkspace URI
-        if (tempDir == null) {
-            LOGGER.warning("Unable to locate the feature list for the current Liberty workspace:" + libertyWorkspace.getWorkspaceString());
-            return false;
+    /**
+     * Returns the default feature list graph read from the snapshot generated at build time, or null
+     * if the snapshot is missing or does not match the default featurelist xml.
+     */
+    private FeatureListGraph readDefaultFeatureListSnapshot() {
+        try (InputStream is = FeatureService.class.getResourceAsStream(FEATURELIST_SNAPSHOT_CLASSPATH_LOCATION)) {
+            if (is == null) {
+                LOGGER.info("No default featurelist snapshot found, the cached featurelist xml will be used");
+                return null;
+            }
+            FeatureListGraph featureListGraph = FeatureListGraphSnapshot.read(is, FEATURELIST_XML_CLASSPATH_LOCATION);
+            if (featureListGraph == null) {
+                LOGGER.warning("The default featurelist snapshot does not match " + FEATURELIST_XML_CLASSPATH_LOCATION + ", the cached featurelist xml will be used");
+            }
+            return featureListGraph;
+        } catch (IOException e) {
+            LOGGER.warning("Unable to read the default featurelist snapshot due to exception: " + e.getMessage());
+            return null;
         }
-
-        File featureListFile = getGeneratedFeatureListFileLocation(libertyWorkspace, tempDir);
-
-        return featureListFile.exists();
     }
 
     public File getGeneratedFeatureListFileLocation(LibertyWorkspace libertyWorkspace, File tempDir) {
@@ -453,23 +793,31 @@ public class FeatureService {
 
         File featureListFile = getGeneratedFeatureListFileLocation(libertyWorkspace, tempDir);
 
+        // a feature list generated from the same installation content by another workspace, or before a restart
+        GeneratedArtifactCache artifactCache = GeneratedArtifactCache.getInstance();
+        String fingerprint = artifactCache.getFingerprint(libertyWorkspace, featurelistJarPath);
+        String runtime = libertyWorkspace.getLibertyRuntime();
+        String version = libertyWorkspace.getLibertyVersion();
+        if (fingerprint != null && artifactCache.copyTo(runtime, version, fingerprint, GeneratedArtifactCache.FEATURE_LIST, featureListFile)) {
+            LOGGER.info("Using feature list file at: " + featureListFile.toURI().toString());
+            return featureListFile;
+        }
+
         try {
             LOGGER.info("Generating feature list file from: " + featurelistJarPath.toString());
             String xmlDestPath = featureListFile.getCanonicalPath();
 
             LOGGER.info("Generating feature list file at: " + xmlDestPath);
 
-            ProcessBuilder pb = new ProcessBuilder("java", "-jar", featurelistJarPath.toAbsolutePath().toString(), xmlDestPath);
-            pb.directory(tempDir);
-            pb.redirectErrorStream(true);
-            pb.redirectOutput(new File(tempDir, "ws-featurelist.log"));
-
-            Process proc = pb.start();
-            if (!proc.waitFor(30, TimeUnit.SECONDS)) {
-                proc.destroy();
+            ProcessResult result = LibertyToolRunner.getInstance().run(featurelistJarPath, Arrays.asList(xmlDestPath), tempDir,
+                    new File(tempDir, "ws-featurelist.log"), 30, TimeUnit.SECONDS);
+            if (result.isTimedOut()) {
                 LOGGER.warning("Exceeded 30 second timeout during feature list generation. Using cached features json file.");
                 return null;
             }
+            if (fingerprint != null && result.isSuccessful() && featureListFile.exists()) {
+                artifactCache.store(runtime, version, fingerprint, GeneratedArtifactCache.FEATURE_LIST, featureListFile);
+            }
 
         } catch (Exception e) {
             LOGGER.warning(e.getMessage());
@@ -482,51 +830,23 @@ public class FeatureService {
     }
 
     public List<Feature> readFeaturesFromFeatureListFile(List<Feature> installedFeatures, LibertyWorkspace libertyWorkspace,
-        File featureListFile) throws JAXBException {
+        File featureListFile) throws XMLStreamException {
             return readFeaturesFromFeatureListFile(installedFeatures, libertyWorkspace, featureListFile, false);
     }
 
     // If the graphOnly boolean is true, the libertyWorkspace parameter may be null. Also, the defaultFeatureList should be initialized
     // after calling this method with graphOnly set to true.
     public List<Feature> readFeaturesFromFeatureListFile(List<Feature> installedFeatures, LibertyWorkspace libertyWorkspace,
-        File featureListFile, boolean graphOnly) throws JAXBException {
-        JAXBContext jaxbContext = JAXBContext.newInstance(FeatureInfo.class);
-        Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-        FeatureInfo featureInfo = (FeatureInfo) jaxbUnmarshaller.unmarshal(featureListFile);
+        File featureListFile, boolean graphOnly) throws XMLStreamException {
         FeatureListGraph featureListGraph = new FeatureListGraph();
-        
-        // Note: Only the public features are loaded when unmarshalling the passed featureListFile.
-        if ((featureInfo.getFeatures() != null) && (featureInfo.getFeatures().size() > 0)) {
-            for (Feature f : featureInfo.getFeatures()) {
-                f.setShortDescription(f.getDescription());
-                // The xml featureListFile does not have a wlpInformation element like the json does, but our code depends on looking up 
-                // features by the shortName found in wlpInformation. So create a WlpInformation object and initialize the shortName to 
-                // the feature name.
-                WlpInformation wlpInfo = new WlpInformation(f.getName());
-                f.setWlpInformation(wlpInfo);
-
-                String currentFeature = f.getName();            
-                List<String> enables = f.getEnables();
-                List<String> configElements = f.getConfigElements();
-                FeatureListNode currentFeatureNode = featureListGraph.addFeature(currentFeature, f.getDescription());
-                if (enables != null) {
-                    for (String enabledFeature : enables) {
-                        FeatureListNode feature = featureListGraph.addFeature(enabledFeature);
-                        feature.addEnabledBy(currentFeature);
-                        currentFeatureNode.addEnablesFeature(enabledFeature);
-                    }
-                }
-                if (configElements != null) {
-                    for (String configElement : configElements) {
-                        ConfigElementNode configNode = featureListGraph.addConfigElement(configElement);
-                        configNode.addEnabledBy(currentFeature);
-                        currentFeatureNode.addEnablesConfigElement(configElement);
-                    }
-                }
-            }
+        List<Feature> features = graphOnly ? null : new ArrayList<Feature>();
 
+        // Note: Only the public features are loaded when reading the passed featureListFile.
+        int featureCount = FeatureListXmlReader.readFeatureList(featureListFile, featureListGraph, features);
+        featureListGraph.freeze();
+        if (featureCount > 0) {
             if (!graphOnly) {
-                installedFeatures = featureInfo.getFeatures();
+                installedFeatures = features;
                 libertyWorkspace.setInstalledFeatureList(installedFeatures);
                 libertyWorkspace.setFeatureListGraph(featureListGraph);
             } else {
@@ -552,13 +872,7 @@ public class FeatureService {
      * @return set of unique platforms
      */
     public Set<String> getAllPlatforms(String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
-        List<Feature> features = this.getFeatures(libertyVersion, libertyRuntime, requestDelay, documentURI);
-        return features.stream()
-                .map(Feature::getWlpInformation)
-                .filter(Objects::nonNull)
-                .map(WlpInformation::getPlatforms)
-                .filter(Objects::nonNull)
-                .flatMap(List::stream).collect(Collectors.toSet());
+        return getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI).getAllPlatforms();
     }
 
     /**
@@ -571,9 +885,7 @@ public class FeatureService {
      * @return true or false
      */
     public boolean platformExists(String platformName, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
-        Set<String> platforms = this.getAllPlatforms(libertyVersion, libertyRuntime, requestDelay, documentURI);
-        return platforms.stream()
-                .anyMatch(platform -> platform.equalsIgnoreCase(platformName));
+        return getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI).containsPlatform(platformName);
     }
 
 
@@ -588,11 +900,7 @@ public class FeatureService {
      */
     public Set<String> getAllPlatformsForFeature(String featureName, String libertyVersion, String libertyRuntime,
                                                      int requestDelay, String documentURI) {
-        Optional<Feature> feature=this.getFeature(featureName,libertyVersion, libertyRuntime, requestDelay, documentURI);
-        if (feature.isPresent() && feature.get().getWlpInformation().getPlatforms() != null) {
-            return new HashSet<>(feature.get().getWlpInformation().getPlatforms());
-        }
-       return Collections.emptySet();
+        return getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI).getPlatformsForFeature(featureName);
     }
 
     /**
@@ -606,16 +914,7 @@ public class FeatureService {
      */
     public Set<String> getCommonPlatformsForFeatures(Set<String> featureNames, String libertyVersion, String libertyRuntime,
                                                       int requestDelay, String documentURI) {
-        Set<String> commonPlatforms = null;
-        for (String featureName : featureNames) {
-            Set<String> platforms = this.getAllPlatformsForFeature(featureName, libertyVersion, libertyRuntime, requestDelay, documentURI);
-            if (commonPlatforms == null) {
-                commonPlatforms = platforms;
-            } else {
-                commonPlatforms.retainAll(platforms);
-            }
-        }
-        return commonPlatforms;
+        return getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI).getCommonPlatforms(featureNames);
     }
 
     /**
@@ -630,15 +929,22 @@ public class FeatureService {
      * @return platform list
      */
     public Set<String> getAllPlatformsForVersionLessFeature(String featureName, String libertyVersion, String libertyRuntime, int requestDelay, String documentURI) {
-        Optional<Feature> feature = this.getFeature(featureName, libertyVersion, libertyRuntime, requestDelay, documentURI);
-        Set<String> featureNames = new HashSet<>();
-        if (feature.isPresent()) {
-            this.addRequiredFeatureNames(feature.get(), featureNames);
-            this.addRequireTolerateFeatureNames(feature.get(), featureNames);
-        }
-        return featureNames.stream()
-                .map(f -> getAllPlatformsForFeature(f, libertyVersion, libertyRuntime, requestDelay, documentURI))
-                .flatMap(Set::stream).map(String::toLowerCase).collect(Collectors.toSet());
+        return getAllPlatformsForVersionLessFeature(featureName, getFeatureCatalog(libertyVersion, libertyRuntime, requestDelay, documentURI));
+    }
+
+    /**
+     * get all platforms for a version less feature from an already resolved feature catalog
+     * @param featureName current feature name
+     * @param catalog     features and platforms of the liberty runtime and version
+     * @return platform list
+     */
+    public Set<String> getAllPlatformsForVersionLessFeature(String featureName, FeatureCatalog catalog) {
+        return catalog.getPlatformsForVersionlessFeature(featureName, feature -> {
+            Set<String> featureNames = new HashSet<>();
+            this.addRequiredFeatureNames(feature, featureNames);
+            this.addRequireTolerateFeatureNames(feature, featureNames);
+            return featureNames;
+        });
     }
 
     /**
@@ -648,6 +954,9 @@ public class FeatureService {
      */
     private void addRequireTolerateFeatureNames(Feature feature, Set<String> featureNames) {
         List<FeatureTolerate> featureTolerates = feature.getWlpInformation().getRequireFeatureWithTolerates();
+        if (featureTolerates == null) {
+            return;
+        }
 
         for(FeatureTolerate featureTolerate: featureTolerates) {
             String extractedFeatureName = featureTolerate.getFeature().contains(IO_OPENLIBERTY_INTERNAL_VERSIONLESS) ?
@@ -678,6 +987,9 @@ public class FeatureService {
      */
     private void addRequiredFeatureNames(Feature feature, Set<String> requiredFeatureNames) {
         ArrayList<String> requireFeatures = feature.getWlpInformation().getRequireFeature();
+        if (requireFeatures == null) {
+            return;
+        }
 
         for(String requireFeature: requireFeatures) {
             String extractedFeatureName = requireFeature.contains(IO_OPENLIBERTY_INTERNAL_VERSIONLESS) ?
@@ -0,0 +1,181 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+/**
+ * Single WatchService shared by the language server. Directories are registered with a listener, and the events
+ * of all the registered directories are dispatched to their listeners by one daemon thread, so the number of
+ * threads does not depend on the number of workspaces or watched files. A directory registered by several
+ * listeners is only watched once, and registering the same listener twice for a directory has no effect.
+ */
+public class FileWatchService {
+
+    private static final Logger LOGGER = Logger.getLogger(FileWatchService.class.getName());
+
+    private static final FileWatchService INSTANCE = new FileWatchService();
+
+    public static FileWatchService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Receives the events of a watched directory. Called on the watcher thread, so implementations should return quickly.
+     */
+    public interface Listener {
+        /**
+         * @param dir watched directory
+         * @param kind ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY or OVERFLOW
+         * @param path path of the created, deleted or modified entry, or null for OVERFLOW
+         */
+        void onEvent(Path dir, WatchEvent.Kind<?> kind, Path path);
+
+        /**
+         * The directory can no longer be watched, typically because it was deleted.
+         * @param dir watched directory
+         */
+        void onInvalid(Path dir);
+    }
+
+    private static class Registration {
+        private final Path dir;
+        private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+        private Registration(Path dir) {
+            this.dir = dir;
+        }
+    }
+
+    private final Map<WatchKey, Registration> registrations = new ConcurrentHashMap<WatchKey, Registration>();
+    private WatchService watcher;
+
+    private FileWatchService() {
+    }
+
+    /**
+     * Starts watching the passed directory for created, deleted and modified entries.
+     * @param dir directory to watch
+     * @param listener
+     * @return key to pass to unregister
+     * @throws IOException if the directory cannot be watched, for example because the limit of watches is reached
+     */
+    public synchronized WatchKey register(Path dir, Listener listener) throws IOException {
+        if (watcher == null) {
+            WatchService newWatcher = FileSystems.getDefault().newWatchService();
+            Thread thread = new Thread(() -> processEvents(newWatcher), "liberty-ls-file-watcher");
+            thread.setDaemon(true);
+            thread.start();
+            watcher = newWatcher;
+        }
+        WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        List<Listener> listeners = registrations.computeIfAbsent(key, k -> new Registration(dir)).listeners;
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+        return key;
+    }
+
+    /**
+     * Stops dispatching the events of the directory to the passed listener. The directory is no longer watched once
+     * it has no listener left.
+     * @param key key returned by register
+     * @param listener
+     */
+    public synchronized void unregister(WatchKey key, Listener listener) {
+        Registration registration = registrations.get(key);
+        if (registration == null) {
+            return;
+        }
+        registration.listeners.remove(listener);
+        if (registration.listeners.isEmpty()) {
+            registrations.remove(key);
+            key.cancel();
+        }
+    }
+
+    /**
+     * Stops watching all the registered directories and stops the watcher thread. A later registration starts
+     * a new watcher thread.
+     */
+    public synchronized void shutdown() {
+        if (watcher == null) {
+            return;
+        }
+        try {
+            watcher.close();
+        } catch (IOException e) {
+            LOGGER.warning("Could not close file watcher: " + e.getMessage());
+        }
+        registrations.clear();
+        watcher = null;
+    }
+
+    /**
+     * Returns the number of watched directories. Declared public to be used by tests.
+     */
+    public int getWatchedDirectoryCount() {
+        return registrations.size();
+    }
+
+    private void processEvents(WatchService watcher) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                Registration registration = registrations.get(key);
+                if (registration == null) {
+                    // unregistered, or registered so recently that the registration is not recorded yet
+                    key.pollEvents();
+                    key.reset();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Path path = event.context() == null ? null : registration.dir.resolve((Path) event.context());
+                    for (Listener listener : registration.listeners) {
+                        notify(() -> listener.onEvent(registration.dir, event.kind(), path));
+                    }
+                }
+                if (!key.reset()) {
+                    registrations.remove(key);
+                    for (Listener listener : registration.listeners) {
+                        notify(() -> listener.onInvalid(registration.dir));
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOGGER.info("Stopped watching files: " + e.getMessage());
+        }
+    }
+
+    // a failing listener must not stop the dispatching of events to the other listeners
+    private static void notify(Runnable notification) {
+        try {
+            notification.run();
+        } catch (RuntimeException e) {
+            LOGGER.warning("Error processing file event: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.lemminx.uriresolver.CacheResourcesManager;
+
+/**
+ * User-level cache of the files generated from Liberty installations (server schema and featurelist), shared by all
+ * the workspaces and kept across restarts, so that ws-schemagen.jar and ws-featurelist.jar run once per installation
+ * content rather than once per project. Files are stored in the lemminx cache directory, for example:
+ * ~/.lemminx/cache/https/github.com/OpenLiberty/liberty-language-server/generated/ol-24.0.0.10/{fingerprint}/server.xsd
+ *
+ * The fingerprint of an installation is a hash of the names, sizes and modification times of its feature manifests
+ * and version properties files, so installing or removing a feature selects a new cache entry. The files retrieved
+ * from a container are keyed by the ID of its image instead, which changes when features are added to the image.
+ *
+ * Only the most recently used entries of each runtime/version, and of the container images, are kept. The other
+ * entries are deleted when a new entry is stored.
+ */
+public class GeneratedArtifactCache {
+
+    private static final Logger LOGGER = Logger.getLogger(GeneratedArtifactCache.class.getName());
+
+    private static final String CACHE_RESOURCE_URL = "https://github.com/OpenLiberty/liberty-language-server/generated";
+    private static final String IMAGES_DIR = "images";
+    // directories of an installation the fingerprint is computed from, relative to the installation directory
+    public static final List<String> FINGERPRINT_DIRS = Collections.unmodifiableList(Arrays.asList("lib/features", "lib/versions", "usr/extension/lib/features"));
+    // length of the fingerprint in hex characters
+    private static final int FINGERPRINT_LENGTH = 32;
+    // entries kept per runtime/version, and container images kept
+    private static final int MAX_FINGERPRINTS = 3;
+    private static final int MAX_IMAGES = 5;
+
+    public static final String SERVER_SCHEMA = "server.xsd";
+    public static final String FEATURE_LIST = "featurelist.xml";
+
+    private static final GeneratedArtifactCache INSTANCE = new GeneratedArtifactCache();
+
+    public static GeneratedArtifactCache getInstance() {
+        return INSTANCE;
+    }
+
+    private Path cacheDirectory;
+
+    private GeneratedArtifactCache() {
+    }
+
+    /**
+     * Overrides the directory the generated files are stored in. Passing null restores the lemminx cache directory.
+     * Declared public to be used by tests
+     * @param cacheDirectory
+     */
+    public void setCacheDirectory(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Returns the installation a tool jar belongs to.
+     * @param toolJar jar in the bin/tools directory of the installation, for example ws-schemagen.jar
+     * @return the installation directory, or null if the jar is not in a bin/tools directory
+     */
+    public static Path getInstallationDir(Path toolJar) {
+        Path toolsDir = toolJar.toAbsolutePath().getParent();
+        if (toolsDir == null || toolsDir.getParent() == null || !toolsDir.endsWith(Path.of("bin", "tools"))) {
+            return null;
+        }
+        return toolsDir.getParent().getParent();
+    }
+
+    /**
+     * Computes the fingerprint of an installation.
+     * @param installationDir
+     * @return the fingerprint, or null if the installation has no feature manifests
+     */
+    public String getFingerprint(Path installationDir) {
+        List<String> entries = new ArrayList<String>();
+        for (String dir : FINGERPRINT_DIRS) {
+            Path fingerprintDir = installationDir.resolve(dir);
+            if (!Files.isDirectory(fingerprintDir)) {
+                continue;
+            }
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(fingerprintDir)) {
+                for (Path file : files) {
+                    BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                    if (attrs.isRegularFile()) {
+                        entries.add(dir + "/" + file.getFileName() + ":" + attrs.size() + ":" + attrs.lastModifiedTime().toMillis());
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.warning("Could not compute the fingerprint of " + installationDir + ": " + e.getMessage());
+                return null;
+            }
+        }
+        if (entries.isEmpty()) {
+            return null;
+        }
+        // the order of directory entries is not specified
+        Collections.sort(entries);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String entry : entries) {
+                digest.update(entry.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest()).substring(0, FINGERPRINT_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the installation a tool jar belongs to. The fingerprint of the installation of the
+     * workspace is kept current by the workspace, and is not computed again.
+     * @param libertyWorkspace
+     * @param toolJar jar in the bin/tools directory of the installation
+     * @return the fingerprint, or null if the jar is not in an installation with feature manifests
+     */
+    public String getFingerprint(LibertyWorkspace libertyWorkspace, Path toolJar) {
+        Path installationDir = getInstallationDir(toolJar);
+        if (installationDir == null) {
+            return null;
+        }
+        String workspaceInstallationDir = libertyWorkspace.getLibertyInstallationDir();
+        if (workspaceInstallationDir != null && installationDir.equals(Paths.get(workspaceInstallationDir).toAbsolutePath())) {
+            return libertyWorkspace.getInstallationFingerprint();
+        }
+        return getFingerprint(installationDir);
+    }
+
+    /**
+     * Returns a cached file.
+     * @param runtime Liberty runtime, may be null if unknown
+     * @param version Liberty version, may be null if unknown
+     * @param fingerprint fingerprint of the installation the file was generated from
+     * @param fileName SERVER_SCHEMA or FEATURE_LIST
+     * @return the cached file, or null if it is not cached
+     */
+    public Path get(String runtime, String version, String fingerprint, String fileName) {
+        try {
+            Path cachedFile = getEntryDirectory(runtime, version, fingerprint).resolve(fileName);
+            if (!Files.isRegularFile(cachedFile)) {
+                return null;
+            }
+            markUsed(cachedFile.getParent());
+            return cachedFile;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copies a cached file to the passed location.
+     * @return true if the file was cached and copied
+     */
+    public boolean copyTo(String runtime, String version, String fingerprint, String fileName, File destFile) {
+        Path cachedFile = get(runtime, version, fingerprint, fileName);
+        if (cachedFile == null) {
+            return false;
+        }
+        try {
+            writeAtomically(cachedFile, destFile.toPath());
+            LOGGER.info("Using cached generated file " + cachedFile + " for " + destFile);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warning("Could not copy cached generated file " + cachedFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stores a generated file. Failures are logged, the file is then generated again the next time.
+     * @param runtime Liberty runtime, may be null if unknown
+     * @param version Liberty version, may be null if unknown
+     * @param fingerprint fingerprint of the installation the file was generated from
+     * @param fileName SERVER_SCHEMA or FEATURE_LIST
+     * @param generatedFile
+     */
+    public void store(String runtime, String version, String fingerprint, String fileName, File generatedFile) {
+        try {
+            Path entryDirectory = getEntryDirectory(runtime, version, fingerprint);
+            Files.createDirectories(entryDirectory);
+            writeAtomically(generatedFile.toPath(), entryDirectory.resolve(fileName));
+            markUsed(entryDirectory);
+            evict(entryDirectory.getParent(), MAX_FINGERPRINTS);
+        } catch (IOException e) {
+            LOGGER.warning("Could not cache generated file " + generatedFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Copies the files retrieved from a container image to the passed directory.
+     * @param imageId ID of the image of the container, for example sha256:{digest}
+     * @param dir
+     * @param fileNames
+     * @return true if all the files were cached and copied
+     */
+    public boolean copyImageArtifactsTo(String imageId, File dir, String... fileNames) {
+        try {
+            Path imageDirectory = getImageDirectory(imageId);
+            for (String fileName : fileNames) {
+                if (!Files.isRegularFile(imageDirectory.resolve(fileName))) {
+                    return false;
+                }
+            }
+            markUsed(imageDirectory);
+            Files.createDirectories(dir.toPath());
+            for (String fileName : fileNames) {
+                writeAtomically(imageDirectory.resolve(fileName), dir.toPath().resolve(fileName));
+            }
+            LOGGER.info("Using cached files of container image " + imageId);
+            return true;
+        } catch (IOException e) {
+            LOGGER.warning("Could not copy cached files of container image " + imageId + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stores the files retrieved from a container image. Failures are logged, the files are then retrieved from the
+     * container again the next time.
+     * @param imageId ID of the image of the container, for example sha256:{digest}
+     * @param dir directory containing the files
+     * @param fileNames
+     */
+    public void storeImageArtifacts(String imageId, File dir, String... fileNames) {
+        try {
+            Path imageDirectory = getImageDirectory(imageId);
+            Files.createDirectories(imageDirectory);
+            for (String fileName : fileNames) {
+                writeAtomically(dir.toPath().resolve(fileName), imageDirectory.resolve(fileName));
+            }
+            markUsed(imageDirectory);
+            evict(imageDirectory.getParent(), MAX_IMAGES);
+        } catch (IOException e) {
+            LOGGER.warning("Could not cache files of container image " + imageId + ": " + e.getMessage());
+        }
+    }
+
+    private Path getCacheDirectory() throws IOException {
+        return cacheDirectory == null ? CacheResourcesManager.getResourceCachePath(CACHE_RESOURCE_URL) : cacheDirectory;
+    }
+
+    private Path getEntryDirectory(String runtime, String version, String fingerprint) throws IOException {
+        String runtimeAndVersion = runtime == null || version == null ? "unknown" : runtime + "-" + version;
+        return getCacheDirectory().resolve(runtimeAndVersion).resolve(fingerprint);
+    }
+
+    private Path getImageDirectory(String imageId) throws IOException {
+        // the ':' of sha256:{digest} is not valid in Windows file names
+        return getCacheDirectory().resolve(IMAGES_DIR).resolve(imageId.replace(':', '-'));
+    }
+
+    // the modification time of an entry directory is the last time it was stored or used
+    private static void markUsed(Path entryDirectory) {
+        try {
+            Files.setLastModifiedTime(entryDirectory, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the entry is then evicted earlier
+        }
+    }
+
+    /**
+     * Deletes the least recently used entry directories of the passed directory, keeping maxEntries of them.
+     */
+    private static void evict(Path parentDirectory, int maxEntries) {
+        List<Path> entryDirectories = new ArrayList<Path>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(parentDirectory, Files::isDirectory)) {
+            for (Path entry : entries) {
+                entryDirectories.add(entry);
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Could not list cached generated files " + parentDirectory + ": " + e.getMessage());
+            return;
+        }
+        if (entryDirectories.size() <= maxEntries) {
+            return;
+        }
+        Map<Path, Long> lastUsedTimes = new HashMap<Path, Long>();
+        for (Path entry : entryDirectories) {
+            lastUsedTimes.put(entry, entry.toFile().lastModified());
+        }
+        entryDirectories.sort(Comparator.comparing((Path entry) -> lastUsedTimes.get(entry)).reversed());
+        for (Path entry : entryDirectories.subList(maxEntries, entryDirectories.size())) {
+            try (Stream<Path> files = Files.walk(entry)) {
+                // the files are deleted before their directory
+                for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                    Files.deleteIfExists(file);
+                }
+                LOGGER.info("Evicted cached generated files " + entry);
+            } catch (IOException e) {
+                LOGGER.warning("Could not evict cached generated files " + entry + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // the file is copied to a temporary file that is then moved into place, so a concurrent reader never sees a partial file
+    private static void writeAtomically(Path source, Path target) throws IOException {
+        Path tempFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.copy(source, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
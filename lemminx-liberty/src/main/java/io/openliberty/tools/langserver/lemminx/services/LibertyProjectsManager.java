@@ -21,8 +21,14 @@ import java.util.List;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -39,93 +45,191 @@ public class LibertyProjectsManager {
 
     private static final Set<String> SRC_AND_BUILD_DIRS = Stream.of("target", "build", "src").collect(Collectors.toCollection(HashSet::new));
 
-    private Map<String, LibertyWorkspace> libertyWorkspaceFolders;
+    // time setWorkspaceFolders waits for the discovery of the workspace folders, in milliseconds
+    private static final long DEFAULT_DISCOVERY_TIME_BUDGET = 5000;
+    private static final long DISCOVERY_PROGRESS_INTERVAL = 1000;
+
+    private volatile Map<String, LibertyWorkspace> libertyWorkspaceFolders;
+    private volatile WorkspaceFolderTrie workspaceFolderTrie;
+    private final Map<String, WorkspaceDiscovery> pendingDiscoveries = new ConcurrentHashMap<String, WorkspaceDiscovery>();
+    private volatile long discoveryTimeBudget = DEFAULT_DISCOVERY_TIME_BUDGET;
 
     public static LibertyProjectsManager getInstance() {
         return INSTANCE;
     }
 
     private LibertyProjectsManager() {
-        libertyWorkspaceFolders = new HashMap<String,LibertyWorkspace>();
+        libertyWorkspaceFolders = new ConcurrentHashMap<String,LibertyWorkspace>();
+        workspaceFolderTrie = new WorkspaceFolderTrie(libertyWorkspaceFolders.values());
     }
 
-    public void setWorkspaceFolders(List<WorkspaceFolder> workspaceFolders) {
-        for (WorkspaceFolder folder : workspaceFolders) {
-            // Add logic here to see if child folders are sub-modules in a multi-module project.
-            // If child folder is a Liberty project (has any xml files with a <server> root element),
-            // then create a LibertyWorkspace for it and do not create one for the parent folder.
+    /**
+     * Adds a Liberty workspace for each workspace folder, or for each of its sub-modules if the folder is a
+     * multi-module project. The Liberty config files of the folders are searched in parallel. A folder whose search
+     * does not complete within the discovery time budget is added as a single workspace, and replaced by its
+     * sub-modules if the search, which continues in the background, finds some.
+     * 
+     * @param workspaceFolders
+     */
+    public synchronized void setWorkspaceFolders(List<WorkspaceFolder> workspaceFolders) {
+        long deadline = System.currentTimeMillis() + discoveryTimeBudget;
 
+        // start the discovery of all the folders before waiting for any of them
+        Map<String, WorkspaceDiscovery> discoveries = new LinkedHashMap<String, WorkspaceDiscovery>();
+        for (WorkspaceFolder folder : workspaceFolders) {
             String workspaceUriString = folder.getUri();
             String normalizedUriString = workspaceUriString.replace("///", "/");
 
-            if (this.libertyWorkspaceFolders.containsKey(normalizedUriString)) {
+            if (this.libertyWorkspaceFolders.containsKey(normalizedUriString) || discoveries.containsKey(normalizedUriString)) {
                 LOGGER.info("Skipping already added Liberty workspace: " + normalizedUriString);
                 continue;
             }
 
             URI workspaceUri =  URI.create(normalizedUriString);
-            Path workspacePath = Paths.get(workspaceUri);
+            WorkspaceDiscovery discovery = new WorkspaceDiscovery(Paths.get(workspaceUri));
+            discovery.start();
+            discoveries.put(normalizedUriString, discovery);
+        }
+
+        for (Map.Entry<String, WorkspaceDiscovery> entry : discoveries.entrySet()) {
+            String normalizedUriString = entry.getKey();
+            WorkspaceDiscovery discovery = entry.getValue();
+            if (awaitDiscovery(normalizedUriString, discovery, deadline)) {
+                addWorkspaceFolder(normalizedUriString, discovery.getRoot(), getDiscoveredFiles(discovery));
+            } else {
+                LOGGER.info("Adding Liberty workspace while its sub-modules are searched in the background: " + normalizedUriString);
+                this.libertyWorkspaceFolders.put(normalizedUriString, new LibertyWorkspace(normalizedUriString));
+                pendingDiscoveries.put(normalizedUriString, discovery);
+                discovery.start().whenComplete((files, e) -> onDiscoveryCompleted(normalizedUriString, discovery));
+            }
+        }
+        workspaceFolderTrie = new WorkspaceFolderTrie(libertyWorkspaceFolders.values());
+    }
 
-            // Added logic to find all *.xml files with <server> root elements instead of only considering the default src/main/liberty/config/server.xml file.
-            List<Path> serverXmlFiles = null;
+    /**
+     * Sets the time setWorkspaceFolders waits for the discovery of the workspace folders before continuing
+     * it in the background. Declared public to be used by tests.
+     * @param discoveryTimeBudget time in milliseconds
+     */
+    public void setDiscoveryTimeBudget(long discoveryTimeBudget) {
+        this.discoveryTimeBudget = discoveryTimeBudget;
+    }
 
+    /**
+     * Waits for the discovery to complete until the deadline, logging its progress.
+     * @return true if the discovery completed
+     */
+    private boolean awaitDiscovery(String normalizedUriString, WorkspaceDiscovery discovery, long deadline) {
+        while (true) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return discovery.start().isDone();
+            }
             try {
-                serverXmlFiles = LibertyUtils.getXmlFilesWithServerRootInDirectory(workspacePath);
-            } catch (Exception e) {
-                LOGGER.warning("Received exception while searching for xml files with a <server> root element in: " + workspacePath + ": " + e.getMessage());
+                discovery.start().get(Math.min(remaining, DISCOVERY_PROGRESS_INTERVAL), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                LOGGER.info("Searching Liberty workspace " + normalizedUriString + ": " + discovery.getScannedDirectoryCount()
+                        + " directories and " + discovery.getScannedFileCount() + " xml files scanned");
+            } catch (ExecutionException | CancellationException e) {
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
             }
+        }
+    }
 
-            if ((serverXmlFiles == null) || serverXmlFiles.isEmpty() || (serverXmlFiles.size() == 1)) {
-                LOGGER.info("Adding Liberty workspace: " + normalizedUriString);
-                LibertyWorkspace libertyWorkspace = new LibertyWorkspace(normalizedUriString);
-                this.libertyWorkspaceFolders.put(normalizedUriString, libertyWorkspace);
-            } else {
-                LOGGER.info("Checking Liberty workspace for sub-modules: " + normalizedUriString);
-                boolean addedSubModule = false;
-
-                List<Path> childrenDirs = null;
-                String lastChildDirPath = null;
-
-                try {
-                    childrenDirs = Files.walk(workspacePath, 1)
-                                        .filter(Files::isDirectory)
-                                        .collect(Collectors.toList());
-
-                    boolean containsSrcOrBuildDir = LibertyUtils.containsDirectoryWithName(childrenDirs, SRC_AND_BUILD_DIRS);
-
-                    for (Path nextChildDir : childrenDirs) {
-                        lastChildDirPath = nextChildDir.toUri().toString().replace("///", "/");
-                        if (nextChildDir.equals(workspacePath)) {
-                            LOGGER.info("Skipping parent module: " + lastChildDirPath);
-                            continue; // skip parent module
-                        } else if (this.libertyWorkspaceFolders.containsKey(lastChildDirPath)) {
-                            // this sub-module was already added but we still don't want to add the parent module
-                            LOGGER.info("Skipping already added sub-module: " + lastChildDirPath);
-                            addedSubModule = true; 
-                            continue;
-                        }
-                        // Do not add child dirs as sub-modules if there are src/target/build dirs as siblings. This is not a sub-module.
-                        if (!containsSrcOrBuildDir) {
-                            // Since we already found all server root xml files earlier, just check if any start with this path.
-                            if (LibertyUtils.containsFileStartingWithRootPath(nextChildDir, serverXmlFiles)) {
-                                LibertyWorkspace libertyWorkspace = new LibertyWorkspace(lastChildDirPath);
-                                this.libertyWorkspaceFolders.put(lastChildDirPath, libertyWorkspace);
-                                addedSubModule = true;
-                                LOGGER.info("Adding Liberty workspace for sub-module: " + lastChildDirPath);
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    LOGGER.warning("Received exception while processing workspace folder: " + lastChildDirPath);
-                }
+    private List<Path> getDiscoveredFiles(WorkspaceDiscovery discovery) {
+        try {
+            return discovery.start().join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            LOGGER.warning("Received exception while searching for xml files with a <server> root element in: " + discovery.getRoot() + ": " + cause.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized void onDiscoveryCompleted(String normalizedUriString, WorkspaceDiscovery discovery) {
+        if (pendingDiscoveries.get(normalizedUriString) != discovery) {
+            // the workspace folders were cleaned up in the meantime
+            return;
+        }
+        pendingDiscoveries.remove(normalizedUriString);
+        List<Path> serverXmlFiles = getDiscoveredFiles(discovery);
+        LOGGER.info("Completed search of Liberty workspace: " + normalizedUriString);
+        if (serverXmlFiles == null || serverXmlFiles.size() <= 1) {
+            return; // the workspace added for the folder is the right one
+        }
+        LibertyWorkspace folderWorkspace = this.libertyWorkspaceFolders.remove(normalizedUriString);
+        if (addSubModules(normalizedUriString, discovery.getRoot(), serverXmlFiles)) {
+            if (folderWorkspace != null) {
+                folderWorkspace.close();
+            }
+            workspaceFolderTrie = new WorkspaceFolderTrie(libertyWorkspaceFolders.values());
+            RevalidationService.getInstance().revalidateOpenDocuments();
+        } else if (folderWorkspace != null) {
+            this.libertyWorkspaceFolders.put(normalizedUriString, folderWorkspace);
+        }
+    }
+
+    private void addWorkspaceFolder(String normalizedUriString, Path workspacePath, List<Path> serverXmlFiles) {
+        if ((serverXmlFiles == null) || serverXmlFiles.isEmpty() || (serverXmlFiles.size() == 1)) {
+            LOGGER.info("Adding Liberty workspace: " + normalizedUriString);
+            LibertyWorkspace libertyWorkspace = new LibertyWorkspace(normalizedUriString);
+            this.libertyWorkspaceFolders.put(normalizedUriString, libertyWorkspace);
+        } else if (!addSubModules(normalizedUriString, workspacePath, serverXmlFiles)) {
+            LibertyWorkspace libertyWorkspace = new LibertyWorkspace(normalizedUriString);
+            this.libertyWorkspaceFolders.put(normalizedUriString, libertyWorkspace);
+            LOGGER.info("Adding Liberty workspace by default: " + normalizedUriString);
+        }
+    }
 
-                if (!addedSubModule) {
-                    LibertyWorkspace libertyWorkspace = new LibertyWorkspace(normalizedUriString);
-                    this.libertyWorkspaceFolders.put(normalizedUriString, libertyWorkspace);
-                    LOGGER.info("Adding Liberty workspace by default: " + normalizedUriString);
+    /*
+     * If child folder is a Liberty project (has any xml files with a <server> root element),
+     * then create a LibertyWorkspace for it. Returns true if any child folder is a sub-module, in
+     * which case no LibertyWorkspace should be created for the parent folder.
+     */
+    private boolean addSubModules(String normalizedUriString, Path workspacePath, List<Path> serverXmlFiles) {
+        LOGGER.info("Checking Liberty workspace for sub-modules: " + normalizedUriString);
+        boolean addedSubModule = false;
+
+        List<Path> childrenDirs = null;
+        String lastChildDirPath = null;
+
+        try {
+            childrenDirs = Files.walk(workspacePath, 1)
+                                .filter(Files::isDirectory)
+                                .collect(Collectors.toList());
+
+            boolean containsSrcOrBuildDir = LibertyUtils.containsDirectoryWithName(childrenDirs, SRC_AND_BUILD_DIRS);
+
+            for (Path nextChildDir : childrenDirs) {
+                lastChildDirPath = nextChildDir.toUri().toString().replace("///", "/");
+                if (nextChildDir.equals(workspacePath)) {
+                    LOGGER.info("Skipping parent module: " + lastChildDirPath);
+                    continue; // skip parent module
+                } else if (this.libertyWorkspaceFolders.containsKey(lastChildDirPath)) {
+                    // this sub-module was already added but we still don't want to add the parent module
+                    LOGGER.info("Skipping already added sub-module: " + lastChildDirPath);
+                    addedSubModule = true; 
+                    continue;
+                }
+                // Do not add child dirs as sub-modules if there are src/target/build dirs as siblings. This is not a sub-module.
+                if (!containsSrcOrBuildDir) {
+                    // Since we already found all server root xml files earlier, just check if any start with this path.
+                    if (LibertyUtils.containsFileStartingWithRootPath(nextChildDir, serverXmlFiles)) {
+                        LibertyWorkspace libertyWorkspace = new LibertyWorkspace(lastChildDirPath);
+                        this.libertyWorkspaceFolders.put(lastChildDirPath, libertyWorkspace);
+                        addedSubModule = true;
+                        LOGGER.info("Adding Liberty workspace for sub-module: " + lastChildDirPath);
+                    }
                 }
             }
+        } catch (Exception e) {
+            LOGGER.warning("Received exception while processing workspace folder: " + lastChildDirPath);
         }
+        return addedSubModule;
     }
 
     public Collection<LibertyWorkspace> getLibertyWorkspaceFolders() {
@@ -137,18 +241,17 @@ public class LibertyProjectsManager {
     }
 
     /**
-     * Given a serverXML URI return the corresponding workspace folder URI
+     * Given a serverXML URI return the corresponding workspace folder URI. If the URI belongs to nested
+     * workspaces, the innermost one is returned.
      * 
      * @param serverXMLUri
      * @return
      */
     public LibertyWorkspace getWorkspaceFolder(String serverXMLUri) {
         String normalizeUri = serverXMLUri.replace("///", "/");
-        for (LibertyWorkspace folder : getInstance().getLibertyWorkspaceFolders()) {
-            //Append workspaceString with file separator to avoid bad matches
-            if (normalizeUri.contains(folder.getWorkspaceStringWithTrailingSlash())) {
-                return folder;
-            }
+        LibertyWorkspace folder = workspaceFolderTrie.find(normalizeUri);
+        if (folder != null) {
+            return folder;
         }
         LOGGER.warning("Could not find LibertyWorkspace for file: " + serverXMLUri);
         return null;
@@ -178,7 +281,15 @@ public class LibertyProjectsManager {
         }
     }
 
-    public void cleanInstance() {
-        libertyWorkspaceFolders = new HashMap<String, LibertyWorkspace>();
+    public synchronized void cleanInstance() {
+        for (WorkspaceDiscovery discovery : pendingDiscoveries.values()) {
+            discovery.cancel();
+        }
+        pendingDiscoveries.clear();
+        for (LibertyWorkspace folder : libertyWorkspaceFolders.values()) {
+            folder.close();
+        }
+        libertyWorkspaceFolders = new ConcurrentHashMap<String, LibertyWorkspace>();
+        workspaceFolderTrie = new WorkspaceFolderTrie(libertyWorkspaceFolders.values());
     }
 }
@@ -0,0 +1,271 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.logging.Logger;
+
+import io.openliberty.tools.langserver.lemminx.services.ProcessExecutor.ProcessResult;
+
+/**
+ * Runs the tools of a Liberty installation, ws-schemagen.jar and ws-featurelist.jar. A tool runs in a new JVM with
+ * java -jar by default. When the inProcessTools setting is enabled, the tool is first run in the language server
+ * JVM to avoid the startup of a JVM: the jar is loaded in a dedicated URLClassLoader and the main method of its
+ * Main-Class is invoked on a worker thread, with its stdout and stderr captured. The tool is run in a new JVM if it
+ * cannot be loaded, fails or times out in-process.
+ *
+ * The in-process runner is not enabled by default, since a tool that calls System.exit stops the language server.
+ */
+public class LibertyToolRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(LibertyToolRunner.class.getName());
+
+    private static final LibertyToolRunner INSTANCE = new LibertyToolRunner();
+
+    public static LibertyToolRunner getInstance() {
+        return INSTANCE;
+    }
+
+    // tool jar -> lock held while the tool runs in-process, a tool may keep static state across runs
+    private final Map<String, Object> toolLocks = new ConcurrentHashMap<String, Object>();
+    // thread group of the tool running in-process -> output of the tool
+    private final Map<ThreadGroup, OutputStream> toolOutputs = new ConcurrentHashMap<ThreadGroup, OutputStream>();
+    private boolean outputRouted = false;
+
+    private LibertyToolRunner() {
+    }
+
+    /**
+     * Runs a tool and waits for its completion.
+     * @param toolJar the tool jar in the Liberty installation
+     * @param args arguments of the tool
+     * @param directory working directory of the new JVM
+     * @param logFile file the output of the tool is written to
+     * @param timeout
+     * @param unit
+     * @return the result of the tool
+     * @throws IOException if the new JVM cannot be started
+     * @throws InterruptedException
+     */
+    public ProcessResult run(Path toolJar, List<String> args, File directory, File logFile, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        if (SettingsService.getInstance().isInProcessToolsEnabled()) {
+            try {
+                ProcessResult result = runInProcess(toolJar, args, logFile, timeout, unit);
+                if (result.isSuccessful()) {
+                    return result;
+                }
+                LOGGER.warning(toolJar.getFileName() + (result.isTimedOut() ? " timed out" : " failed") + " in-process, running it in a new JVM");
+            } catch (IOException | ReflectiveOperationException | LinkageError e) {
+                LOGGER.warning("Could not run " + toolJar.getFileName() + " in-process, running it in a new JVM: " + e.getMessage());
+            }
+        }
+        List<String> command = new ArrayList<String>();
+        command.add("java");
+        command.add("-jar");
+        command.add(toolJar.toAbsolutePath().toString());
+        command.addAll(args);
+        return ProcessExecutor.getInstance().run(command, directory, logFile, timeout, unit);
+    }
+
+    /**
+     * Runs a tool in the language server JVM and waits for its completion. The exit value of the result is 0 if the
+     * main method returned, and 1 if it threw an exception or error. A tool that times out is interrupted and left
+     * running, and its output is discarded until it terminates.
+     * Declared public to be used by tests
+     * @param toolJar jar with a Main-Class
+     * @param args arguments of the tool
+     * @param logFile file the output of the tool is written to, null to return it in the result
+     * @param timeout
+     * @param unit
+     * @return the result of the tool
+     * @throws IOException if the jar cannot be read
+     * @throws ReflectiveOperationException if the main method cannot be loaded
+     * @throws InterruptedException
+     */
+    public ProcessResult runInProcess(Path toolJar, List<String> args, File logFile, long timeout, TimeUnit unit)
+            throws IOException, ReflectiveOperationException, InterruptedException {
+        String mainClassName;
+        try (JarFile jar = new JarFile(toolJar.toFile())) {
+            Manifest manifest = jar.getManifest();
+            mainClassName = manifest == null ? null : manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+        }
+        if (mainClassName == null) {
+            throw new IOException("No Main-Class in " + toolJar);
+        }
+        String toolName = toolJar.getFileName().toString();
+        synchronized (toolLocks.computeIfAbsent(toolJar.toAbsolutePath().toString(), k -> new Object())) {
+            // the Class-Path of the jar manifest is loaded too, but not the classes of the language server
+            URLClassLoader loader = new URLClassLoader(toolName, new URL[] { toolJar.toUri().toURL() }, ClassLoader.getPlatformClassLoader());
+            OutputStream output = logFile == null ? new ByteArrayOutputStream() : new FileOutputStream(logFile);
+            ThreadGroup toolThreads = new ThreadGroup(toolName);
+            Thread toolThread = null;
+            try {
+                Method main = Class.forName(mainClassName, false, loader).getMethod("main", String[].class);
+                String[] toolArgs = args.toArray(new String[0]);
+                Throwable[] failure = new Throwable[1];
+                toolThread = new Thread(toolThreads, () -> {
+                    try {
+                        main.invoke(null, (Object) toolArgs);
+                    } catch (InvocationTargetException e) {
+                        failure[0] = e.getCause();
+                    } catch (Throwable e) {
+                        // an ExceptionInInitializerError or LinkageError of the classes of the tool
+                        failure[0] = e;
+                    }
+                }, "liberty-ls-tool-" + toolName);
+                toolThread.setDaemon(true);
+                toolThread.setContextClassLoader(loader);
+
+                routeOutput(toolThreads, output);
+                long startTime = System.currentTimeMillis();
+                toolThread.start();
+                toolThread.join(unit.toMillis(timeout));
+                if (toolThread.isAlive()) {
+                    LOGGER.warning(toolName + " did not complete within " + unit.toSeconds(timeout) + " seconds");
+                    toolThread.interrupt();
+                    // the log file may be written by the run of the tool in a new JVM
+                    toolOutputs.put(toolThreads, OutputStream.nullOutputStream());
+                    return new ProcessResult(-1, true, getOutput(output), "");
+                }
+                if (failure[0] != null) {
+                    LOGGER.warning(toolName + " failed: " + failure[0]);
+                    return new ProcessResult(1, false, getOutput(output), String.valueOf(failure[0]));
+                }
+                LOGGER.info("Ran " + toolName + " in-process in " + (System.currentTimeMillis() - startTime) + " ms");
+                return new ProcessResult(0, false, getOutput(output), "");
+            } finally {
+                if (toolThread != null && toolThread.isAlive()) {
+                    releaseOnTermination(toolThread, toolThreads, output, loader);
+                } else {
+                    release(toolThreads, output, loader);
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the output and classes of a tool that timed out once it terminates. Until then, the output of its
+     * threads stays routed, so that it is never written to the output of the language server.
+     */
+    private void releaseOnTermination(Thread toolThread, ThreadGroup toolThreads, OutputStream output, URLClassLoader loader) {
+        Thread releaseThread = new Thread(() -> {
+            try {
+                toolThread.join();
+            } catch (InterruptedException e) {
+                return;
+            }
+            release(toolThreads, output, loader);
+        }, toolThread.getName() + "-release");
+        releaseThread.setDaemon(true);
+        releaseThread.start();
+    }
+
+    private void release(ThreadGroup toolThreads, OutputStream output, URLClassLoader loader) {
+        boolean threadsRunning = toolThreads.activeCount() > 0;
+        if (threadsRunning) {
+            // threads started by the tool are still running, their output is discarded
+            toolOutputs.put(toolThreads, OutputStream.nullOutputStream());
+        } else {
+            toolOutputs.remove(toolThreads);
+        }
+        try {
+            output.close();
+            // the classes of a tool that is still running stay loaded
+            if (!threadsRunning) {
+                loader.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warning("Could not release " + toolThreads.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of tools whose output is routed, including the tools that timed out and are still running.
+     * Declared public to be used by tests
+     */
+    public int getRoutedToolCount() {
+        return toolOutputs.size();
+    }
+
+    private static String getOutput(OutputStream output) {
+        return output instanceof ByteArrayOutputStream ? new String(((ByteArrayOutputStream) output).toByteArray(), StandardCharsets.UTF_8) : "";
+    }
+
+    /**
+     * Sends what the threads of the tool write to System.out and System.err to the output of the tool. The other
+     * threads still write to the original streams.
+     */
+    private synchronized void routeOutput(ThreadGroup toolThreads, OutputStream output) {
+        toolOutputs.put(toolThreads, output);
+        if (!outputRouted) {
+            System.setOut(new PrintStream(new ToolOutputStream(System.out), true));
+            System.setErr(new PrintStream(new ToolOutputStream(System.err), true));
+            outputRouted = true;
+        }
+    }
+
+    private class ToolOutputStream extends OutputStream {
+        private final OutputStream original;
+
+        ToolOutputStream(OutputStream original) {
+            this.original = original;
+        }
+
+        private OutputStream getTarget() {
+            if (!toolOutputs.isEmpty()) {
+                // threads started by the tool are in its thread group
+                for (ThreadGroup group = Thread.currentThread().getThreadGroup(); group != null; group = group.getParent()) {
+                    OutputStream output = toolOutputs.get(group);
+                    if (output != null) {
+                        return output;
+                    }
+                }
+            }
+            return original;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            getTarget().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            getTarget().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            getTarget().flush();
+        }
+    }
+}
@@ -17,15 +17,20 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.Unmarshaller;
+import io.openliberty.tools.langserver.lemminx.data.FeatureCatalog;
 import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
 import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
 import io.openliberty.tools.langserver.lemminx.models.settings.DevcMetadata;
@@ -40,9 +45,37 @@ public class LibertyWorkspace {
     private String libertyVersion;
     private String libertyRuntime;
     private boolean isLibertyInstalled;
-    private List<Feature> installedFeatureList;
+    // set by the background generation of the workspace artifacts and read by requests without a lock, the installed
+    // feature list and its catalog are published together
+    private volatile InstalledFeatures installedFeatures;
     private String libertyInstallationDir;
-    private FeatureListGraph featureListGraph;
+    private volatile FeatureListGraph featureListGraph;
+    private WorkspaceFileIndex fileIndex;
+
+    // watch of the directory of the Liberty properties file or devc metadata file
+    private WatchKey installationWatchKey;
+    private FileWatchService.Listener installationWatchListener;
+
+    // watches of the directories the fingerprint of the Liberty installation is computed from, which mark the
+    // fingerprint stale when features are installed or removed
+    private final Set<WatchKey> featuresWatchKeys = new HashSet<WatchKey>();
+    private final FileWatchService.Listener featuresWatchListener = new FileWatchService.Listener() {
+        @Override
+        public void onEvent(Path dir, WatchEvent.Kind<?> kind, Path path) {
+            installationFingerprintStale = true;
+        }
+
+        @Override
+        public void onInvalid(Path dir) {
+            installationFingerprintStale = true;
+        }
+    };
+    private volatile boolean installationFingerprintStale = true;
+    private String installationFingerprint;
+    // fingerprints of the installation the feature list and the schema were generated from
+    private volatile String featureListFingerprint;
+    private volatile boolean featureListStale;
+    private volatile String schemaFingerprint;
 
     // devc vars
     private String containerName;
@@ -62,7 +95,7 @@ public class LibertyWorkspace {
         this.libertyRuntime = null;
         this.isLibertyInstalled = false;
         this.libertyInstallationDir = null;
-        this.installedFeatureList = new ArrayList<Feature>();
+        setInstalledFeatureList(new ArrayList<Feature>());
         this.containerName = null;
         this.containerType = "docker";
         this.containerAlive = false;
@@ -110,7 +143,7 @@ public class LibertyWorkspace {
             // do not clear out the libertyRuntime or libertyVersion since those could be set for a live container
             setLibertyInstallationDir(null);
             // clear the cached feature list when Liberty is no longer installed
-            this.installedFeatureList = new ArrayList<Feature>();
+            setInstalledFeatureList(new ArrayList<Feature>());
         }
     }
 
@@ -118,7 +151,11 @@ public class LibertyWorkspace {
         return this.isLibertyInstalled;
     }
 
-    public void setLibertyInstallationDir(String dir) {
+    public synchronized void setLibertyInstallationDir(String dir) {
+        if (!Objects.equals(dir, this.libertyInstallationDir)) {
+            removeFeaturesWatch();
+            installationFingerprintStale = true;
+        }
         this.libertyInstallationDir = dir;
     }
 
@@ -127,11 +164,20 @@ public class LibertyWorkspace {
     }
 
     public List<Feature> getInstalledFeatureList() {
-        return this.installedFeatureList;
+        return this.installedFeatures.featureList;
     }
 
     public void setInstalledFeatureList(List<Feature> installedFeatureList) {
-        this.installedFeatureList = installedFeatureList;
+        this.installedFeatures = new InstalledFeatures(installedFeatureList);
+    }
+
+    /**
+     * Returns the indexed catalog for the installed feature list. The catalog is rebuilt
+     * whenever the installed feature list is set.
+     * @return FeatureCatalog for the installed features, empty if none have been generated
+     */
+    public FeatureCatalog getInstalledFeatureCatalog() {
+        return this.installedFeatures.featureCatalog;
     }
 
     public String getContainerName() {
@@ -163,33 +209,161 @@ public class LibertyWorkspace {
         getLibertyRuntime()!= null && !getLibertyRuntime().isEmpty();
     }
 
+    /**
+     * Returns the index of the files in the workspace, which is built on first use and then kept current
+     * by watching the workspace directory tree.
+     * @return file index of the workspace
+     */
+    public synchronized WorkspaceFileIndex getFileIndex() {
+        if (fileIndex == null) {
+            fileIndex = new WorkspaceFileIndex(Paths.get(getWorkspaceURI()));
+        }
+        return fileIndex;
+    }
+
+    /**
+     * Stops watching the workspace directory tree and discards the file index.
+     */
+    public synchronized void closeFileIndex() {
+        if (fileIndex != null) {
+            fileIndex.close();
+            fileIndex = null;
+        }
+    }
+
+    /**
+     * Watches a directory of the Liberty installation or container of this workspace with the shared
+     * FileWatchService, replacing the previous watch if any.
+     * @param dir directory to watch
+     * @param listener
+     * @throws IOException if the directory cannot be watched
+     */
+    public synchronized void setInstallationWatch(Path dir, FileWatchService.Listener listener) throws IOException {
+        removeInstallationWatch();
+        installationWatchKey = FileWatchService.getInstance().register(dir, listener);
+        installationWatchListener = listener;
+    }
+
+    public synchronized void removeInstallationWatch() {
+        if (installationWatchKey != null) {
+            FileWatchService.getInstance().unregister(installationWatchKey, installationWatchListener);
+            installationWatchKey = null;
+            installationWatchListener = null;
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the Liberty installation of this workspace (see GeneratedArtifactCache). The
+     * fingerprint is only computed again once the watched feature directories of the installation have changed.
+     * @return the fingerprint, or null if there is no local installation or it has no feature manifests
+     */
+    public synchronized String getInstallationFingerprint() {
+        if (libertyInstallationDir == null) {
+            return null;
+        }
+        if (installationFingerprintStale) {
+            // cleared before the fingerprint is computed, so a change made meanwhile is not missed
+            installationFingerprintStale = !watchFeatureDirectories();
+            installationFingerprint = GeneratedArtifactCache.getInstance().getFingerprint(Paths.get(libertyInstallationDir));
+        }
+        return installationFingerprint;
+    }
+
+    /**
+     * Watches the directories the fingerprint is computed from. A directory that does not exist yet is covered
+     * by a watch of its closest existing parent in the installation.
+     * @return true if all the directories are watched
+     */
+    private boolean watchFeatureDirectories() {
+        Path installationDir = Paths.get(libertyInstallationDir);
+        for (String fingerprintDir : GeneratedArtifactCache.FINGERPRINT_DIRS) {
+            Path dir = installationDir.resolve(fingerprintDir);
+            while (!Files.isDirectory(dir) && dir.startsWith(installationDir) && !dir.equals(installationDir)) {
+                dir = dir.getParent();
+            }
+            if (!Files.isDirectory(dir)) {
+                return false;
+            }
+            try {
+                featuresWatchKeys.add(FileWatchService.getInstance().register(dir, featuresWatchListener));
+            } catch (IOException e) {
+                LOGGER.warning("Unable to watch Liberty installation directory " + dir + ": " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private synchronized void removeFeaturesWatch() {
+        for (WatchKey key : featuresWatchKeys) {
+            FileWatchService.getInstance().unregister(key, featuresWatchListener);
+        }
+        featuresWatchKeys.clear();
+    }
+
+    /**
+     * Records the fingerprint of the installation the installed feature list was generated from.
+     * @param fingerprint fingerprint read before the generation, may be null
+     */
+    public void setFeatureListFingerprint(String fingerprint) {
+        this.featureListFingerprint = fingerprint;
+        this.featureListStale = false;
+    }
+
+    /**
+     * Regenerates the installed feature list the next time it is used, for a container whose content may have changed.
+     */
+    public void invalidateFeatureList() {
+        this.featureListStale = true;
+    }
+
+    /**
+     * @return true if the installed feature list was generated from another content of the installation
+     */
+    public boolean isFeatureListStale() {
+        return featureListStale || (isLibertyInstalled && !Objects.equals(getInstallationFingerprint(), featureListFingerprint));
+    }
+
+    public String getSchemaFingerprint() {
+        return schemaFingerprint;
+    }
+
+    public void setSchemaFingerprint(String schemaFingerprint) {
+        this.schemaFingerprint = schemaFingerprint;
+    }
+
+    /**
+     * Stops all the file watches of this workspace.
+     */
+    public void close() {
+        removeInstallationWatch();
+        removeFeaturesWatch();
+        closeFileIndex();
+    }
+
     /**
      * Return the path of the first *-liberty-devc-metadata.xml 
      * in the workspace with a running container
      * @return Path of *-liberty-devc-metadata.xml
      */
     public Path findDevcMetadata() {
-        try {
-            List<Path> metaDataList = Files
-                    .find(Paths.get(getWorkspaceURI()), Integer.MAX_VALUE,
-                            (filePath, fileAttributes) -> filePath.toString().endsWith("-liberty-devc-metadata.xml"))
-                    .collect(Collectors.toList());
-            for (Path metaDataFile : metaDataList) {
-                DevcMetadata devcMetadata = unmarshalDevcMetadataFile(metaDataFile);
-                if (devcMetadata.isContainerAlive()) {
-                    setContainerName(devcMetadata.getContainerName());
-                    setContainerType(devcMetadata.getContainerType());
-                    setContainerAlive(true);
-                    return metaDataFile;
-                }
-            }
-            setContainerAlive(false);
-            return null;
-        } catch (IOException e) {
+        if (!getDir().exists()) {
             // workspace URI does not exist
-            LOGGER.warning("Workspace URI does not exist: " + e.getMessage());
+            LOGGER.warning("Workspace URI does not exist: " + getWorkspaceString());
             return null;
         }
+        List<Path> metaDataList = getFileIndex().findFilesEndsWith("-liberty-devc-metadata.xml");
+        for (Path metaDataFile : metaDataList) {
+            DevcMetadata devcMetadata = unmarshalDevcMetadataFile(metaDataFile);
+            if (devcMetadata != null && devcMetadata.isContainerAlive()) {
+                setContainerName(devcMetadata.getContainerName());
+                setContainerType(devcMetadata.getContainerType());
+                setContainerAlive(true);
+                return metaDataFile;
+            }
+        }
+        setContainerAlive(false);
+        return null;
     }
 
     /**
@@ -221,23 +395,23 @@ public class LibertyWorkspace {
     }
 
     public void setFeatureListGraph(FeatureListGraph featureListGraph) {
-        this.featureListGraph = featureListGraph;
+        // the runtime is set before the graph is published
         if (isLibertyInstalled || isContainerAlive()) {
-            this.featureListGraph.setRuntime(libertyRuntime + "-" + libertyVersion);
+            featureListGraph.setRuntime(libertyRuntime + "-" + libertyVersion);
         } else {
-            this.featureListGraph.setRuntime("");
+            featureListGraph.setRuntime("");
         }
+        this.featureListGraph = featureListGraph;
     }
 
     public FeatureListGraph getFeatureListGraph() {
         FeatureListGraph useFeatureListGraph = this.featureListGraph;
-        boolean generateGraph = featureListGraph.isEmpty() || !featureListGraph.getRuntime().equals(getWorkspaceRuntime());
+        boolean generateGraph = useFeatureListGraph.isEmpty() || !useFeatureListGraph.getRuntime().equals(getWorkspaceRuntime());
 
         if (!generateGraph && (isLibertyInstalled || isContainerAlive())) {
-            // Check if FeatureListGraph needs to be reinitialized. This can happen if new features are installed.
-            // The contents of the .libertyls folder are deleted when features are installed, which means we need to 
-            // regenerate the feature list xml and load the FeatureListGraph.
-            if (!FeatureService.getInstance().doesGeneratedFeatureListExist(this)) {
+            // Check if FeatureListGraph needs to be reinitialized. This can happen if new features are installed,
+            // which changes the fingerprint of the installation maintained by a watcher of its feature directories.
+            if (isFeatureListStale()) {
                 generateGraph = true;
                 this.setInstalledFeatureList(new ArrayList<Feature> ()); // clear out cached feature list
             }
@@ -259,4 +433,13 @@ public class LibertyWorkspace {
         return useFeatureListGraph;
     }
 
+    private static final class InstalledFeatures {
+        private final List<Feature> featureList;
+        private final FeatureCatalog featureCatalog;
+
+        private InstalledFeatures(List<Feature> featureList) {
+            this.featureList = featureList;
+            this.featureCatalog = (featureList == null || featureList.isEmpty()) ? FeatureCatalog.EMPTY : new FeatureCatalog(featureList);
+        }
+    }
 }
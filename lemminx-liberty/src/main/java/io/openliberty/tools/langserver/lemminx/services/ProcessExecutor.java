@@ -0,0 +1,301 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Runs the external commands of the language server (container commands, ws-schemagen.jar and ws-featurelist.jar).
+ * The stdout and stderr of a process are read while it runs, so a process writing a lot of output never blocks on a
+ * full pipe, and a process that exceeds its timeout is destroyed. At most MAX_CONCURRENT_PROCESSES processes run at
+ * the same time, the other commands wait for a slot. The timeout of a command includes the time it waits for a slot.
+ * Cancelling the result of a command, or interrupting the thread waiting for it, destroys its process.
+ */
+public class ProcessExecutor {
+
+    private static final Logger LOGGER = Logger.getLogger(ProcessExecutor.class.getName());
+
+    // the commands are JVMs or container CLIs, running more of them at the same time slows them all down
+    public static final int MAX_CONCURRENT_PROCESSES = 4;
+    // output kept per stream, the rest is read and discarded
+    private static final int MAX_OUTPUT_SIZE = 1024 * 1024;
+    // time the output is read after the process exits, a child process may keep the pipes open
+    private static final long DRAIN_TIMEOUT = 5;
+    // time a result is waited for after the timeout of its command, the output of a destroyed process is still read
+    private static final long AWAIT_MARGIN = 2 * DRAIN_TIMEOUT + 5;
+
+    private static final ProcessExecutor INSTANCE = new ProcessExecutor();
+
+    public static ProcessExecutor getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Exit value and output of a command.
+     */
+    public static class ProcessResult {
+        private final int exitValue;
+        private final boolean timedOut;
+        private final String stdout;
+        private final String stderr;
+
+        public ProcessResult(int exitValue, boolean timedOut, String stdout, String stderr) {
+            this.exitValue = exitValue;
+            this.timedOut = timedOut;
+            this.stdout = stdout;
+            this.stderr = stderr;
+        }
+
+        /**
+         * @return the exit value, or -1 if the process timed out
+         */
+        public int getExitValue() {
+            return exitValue;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public boolean isSuccessful() {
+            return !timedOut && exitValue == 0;
+        }
+
+        /**
+         * @return the output of the process, empty if it was written to a file
+         */
+        public String getStdout() {
+            return stdout;
+        }
+
+        /**
+         * @return the error output of the process, empty if it was written to a log file with the output
+         */
+        public String getStderr() {
+            return stderr;
+        }
+    }
+
+    private final Semaphore slots = new Semaphore(MAX_CONCURRENT_PROCESSES, true);
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "liberty-ls-process");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ProcessExecutor() {
+    }
+
+    /**
+     * Runs a command in the background.
+     * @param command the program and its arguments
+     * @param timeout
+     * @param unit
+     * @return the result of the command, completed exceptionally if the process cannot be started
+     */
+    public CompletableFuture<ProcessResult> execute(List<String> command, long timeout, TimeUnit unit) {
+        return execute(command, null, null, timeout, unit);
+    }
+
+    /**
+     * Runs a command in the background.
+     * @param command the program and its arguments
+     * @param directory working directory of the process, null for the working directory of the language server
+     * @param logFile file the stdout and stderr of the process are written to, null to return them in the result
+     * @param timeout
+     * @param unit
+     * @return the result of the command, completed exceptionally if the process cannot be started
+     */
+    public CompletableFuture<ProcessResult> execute(List<String> command, File directory, File logFile, long timeout, TimeUnit unit) {
+        return execute(command, directory, logFile, true, timeout, unit);
+    }
+
+    /**
+     * Runs a command in the background, writing its stdout to a file. Used for binary output.
+     * @param command the program and its arguments
+     * @param outputFile file the stdout of the process is written to
+     * @param timeout
+     * @param unit
+     * @return the result of the command, with the error output, completed exceptionally if the process cannot be started
+     */
+    public CompletableFuture<ProcessResult> executeToFile(List<String> command, File outputFile, long timeout, TimeUnit unit) {
+        return execute(command, null, outputFile, false, timeout, unit);
+    }
+
+    private CompletableFuture<ProcessResult> execute(List<String> command, File directory, File outputFile, boolean mergeErrors, long timeout, TimeUnit unit) {
+        List<String> commandCopy = new ArrayList<String>(command);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        CompletableFuture<ProcessResult> result = new CompletableFuture<ProcessResult>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                if (!slots.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    LOGGER.warning("Command did not start within " + unit.toSeconds(timeout) + " seconds: " + String.join(" ", commandCopy));
+                    result.complete(new ProcessResult(-1, true, "", ""));
+                    return;
+                }
+            } catch (InterruptedException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            try {
+                result.complete(runProcess(commandCopy, directory, outputFile, mergeErrors, deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            } finally {
+                slots.release();
+            }
+        });
+        // the process is destroyed when the thread running it is interrupted
+        result.whenComplete((processResult, e) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs a command and waits for its completion.
+     * @param command the program and its arguments
+     * @param directory working directory of the process, null for the working directory of the language server
+     * @param logFile file the stdout and stderr of the process are written to, null to return them in the result
+     * @param timeout
+     * @param unit
+     * @return the result of the command
+     * @throws IOException if the process cannot be started
+     * @throws InterruptedException
+     */
+    public ProcessResult run(List<String> command, File directory, File logFile, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        return await(execute(command, directory, logFile, timeout, unit), timeout, unit);
+    }
+
+    /**
+     * Runs a command and waits for its completion, writing its stdout to a file. Used for binary output.
+     * @param command the program and its arguments
+     * @param outputFile file the stdout of the process is written to
+     * @param timeout
+     * @param unit
+     * @return the result of the command, with the error output
+     * @throws IOException if the process cannot be started
+     * @throws InterruptedException
+     */
+    public ProcessResult runToFile(List<String> command, File outputFile, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        return await(executeToFile(command, outputFile, timeout, unit), timeout, unit);
+    }
+
+    private static ProcessResult await(CompletableFuture<ProcessResult> result, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        try {
+            return result.get(unit.toMillis(timeout) + TimeUnit.SECONDS.toMillis(AWAIT_MARGIN), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            throw e;
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            return new ProcessResult(-1, true, "", "");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private ProcessResult runProcess(List<String> command, File directory, File outputFile, boolean mergeErrors, long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        if (directory != null) {
+            pb.directory(directory);
+        }
+        if (outputFile != null) {
+            pb.redirectErrorStream(mergeErrors);
+            pb.redirectOutput(outputFile);
+        }
+        Process process = pb.start();
+        OutputDrainer stdout = outputFile == null ? new OutputDrainer(process.getInputStream()) : null;
+        OutputDrainer stderr = outputFile == null || !mergeErrors ? new OutputDrainer(process.getErrorStream()) : null;
+        try {
+            if (!process.waitFor(timeout, unit)) {
+                LOGGER.warning("Command did not complete within " + unit.toSeconds(timeout) + " seconds: " + String.join(" ", command));
+                process.destroyForcibly();
+                return new ProcessResult(-1, true, getOutput(stdout), getOutput(stderr));
+            }
+            return new ProcessResult(process.exitValue(), false, getOutput(stdout), getOutput(stderr));
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            throw e;
+        }
+    }
+
+    private static String getOutput(OutputDrainer drainer) throws InterruptedException {
+        return drainer == null ? "" : drainer.getOutput();
+    }
+
+    /**
+     * Reads a stream of a process on a thread of the executor until the end of the stream.
+     */
+    private class OutputDrainer {
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final Future<?> reading;
+
+        OutputDrainer(InputStream is) {
+            reading = executor.submit(() -> {
+                byte[] buffer = new byte[8192];
+                try (InputStream in = is) {
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        synchronized (output) {
+                            int kept = Math.min(read, MAX_OUTPUT_SIZE - output.size());
+                            if (kept > 0) {
+                                output.write(buffer, 0, kept);
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    // the stream is closed when the process is destroyed
+                }
+            });
+        }
+
+        /**
+         * @return the output read so far, after waiting for the end of the stream
+         */
+        String getOutput() throws InterruptedException {
+            try {
+                reading.get(DRAIN_TIMEOUT, TimeUnit.SECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                // return what was read
+            }
+            synchronized (output) {
+                return new String(output.toByteArray(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+}
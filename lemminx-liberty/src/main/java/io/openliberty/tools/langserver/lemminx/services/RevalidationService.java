@@ -0,0 +1,95 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.util.Collection;
+import java.util.logging.Logger;
+
+import org.eclipse.lemminx.dom.DOMDocument;
+import org.eclipse.lemminx.services.IXMLDocumentProvider;
+import org.eclipse.lemminx.services.IXMLValidationService;
+import org.eclipse.lemminx.services.extensions.XMLExtensionsRegistry;
+
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+
+/**
+ * Re-validates the open Liberty config documents when data used by the diagnostics changes
+ * in the background (for example when a downloaded feature catalog becomes available). The schema
+ * of the documents is resolved again, so that a schema generated in the meantime is used.
+ */
+public class RevalidationService {
+
+    private static final Logger LOGGER = Logger.getLogger(RevalidationService.class.getName());
+
+    // Singleton so that only 1 Revalidation Service can be initialized and is
+    // shared between all Lemminx Language Feature Participants
+
+    private static RevalidationService instance = new RevalidationService();
+
+    public static RevalidationService getInstance() {
+        return instance;
+    }
+
+    private volatile XMLExtensionsRegistry xmlExtensionsRegistry;
+
+    private RevalidationService() {
+    }
+
+    /**
+     * Sets the registry used to look up the open documents and the validation service. Passing null
+     * disables re-validation, which is the case before the extension is started and after it is stopped.
+     * @param xmlExtensionsRegistry
+     */
+    public void setExtensionsRegistry(XMLExtensionsRegistry xmlExtensionsRegistry) {
+        this.xmlExtensionsRegistry = xmlExtensionsRegistry;
+    }
+
+    /**
+     * Triggers validation of all open Liberty config documents.
+     */
+    public void revalidateOpenDocuments() {
+        revalidateOpenDocuments(null);
+    }
+
+    /**
+     * Triggers validation of the open Liberty config documents of the passed workspace.
+     * @param libertyWorkspace workspace of the documents, or null for all documents
+     */
+    public void revalidateOpenDocuments(LibertyWorkspace libertyWorkspace) {
+        XMLExtensionsRegistry registry = xmlExtensionsRegistry;
+        if (registry == null) {
+            return;
+        }
+        try {
+            IXMLDocumentProvider documentProvider = registry.getDocumentProvider();
+            IXMLValidationService validationService = registry.getValidationService();
+            if (documentProvider == null || validationService == null) {
+                return;
+            }
+            Collection<DOMDocument> documents = documentProvider.getAllDocuments();
+            if (documents == null) {
+                return;
+            }
+            for (DOMDocument document : documents) {
+                if (LibertyUtils.isConfigXMLFile(document) && (libertyWorkspace == null
+                        || LibertyProjectsManager.getInstance().getWorkspaceFolder(document.getDocumentURI()) == libertyWorkspace)) {
+                    // the document keeps the schema it resolved first, which may be the cached one
+                    document.resetGrammar();
+                    validationService.validate(document);
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.warning("Could not re-validate open Liberty config documents: " + e.getMessage());
+        }
+    }
+}
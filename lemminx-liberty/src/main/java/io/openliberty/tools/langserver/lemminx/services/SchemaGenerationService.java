@@ -0,0 +1,231 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+import io.openliberty.tools.langserver.lemminx.services.ProcessExecutor.ProcessResult;
+import io.openliberty.tools.langserver.lemminx.util.DocumentUtil;
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+
+/**
+ * Generates the server schema of Liberty installations with their ws-schemagen.jar on background threads, so that
+ * grammar resolution does not wait for the generation. The cached default schema is used in the meantime, and the
+ * open documents of the workspace are re-validated with the generated schema once it is available.
+ *
+ * The schema is generated once per ws-schemagen.jar and runtime/version, and copied to the other workspaces that
+ * request it. Generated schemas are also kept in the GeneratedArtifactCache, so that they are reused after a restart
+ * and by other installations with the same content.
+ *
+ * When a Liberty installation is detected for a workspace, its schema and feature list are generated at the same
+ * time, before they are requested by the validation of a document.
+ */
+public class SchemaGenerationService {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaGenerationService.class.getName());
+
+    private static final long SCHEMAGEN_TIMEOUT = 30;
+
+    private static final SchemaGenerationService INSTANCE = new SchemaGenerationService();
+
+    public static SchemaGenerationService getInstance() {
+        return INSTANCE;
+    }
+
+    // ws-schemagen.jar, schema file name and installation fingerprint -> generated schema file
+    private final Map<String, CompletableFuture<File>> generations = new ConcurrentHashMap<String, CompletableFuture<File>>();
+    // schema file of a workspace -> schema file, once generated or copied
+    private final Map<String, CompletableFuture<File>> workspaceSchemas = new ConcurrentHashMap<String, CompletableFuture<File>>();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "liberty-ls-schemagen");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SchemaGenerationService() {
+    }
+
+    /**
+     * Returns the schema file of a workspace, in its .libertyls directory.
+     * @param libertyWorkspace
+     * @return the schema file, named after the runtime and version if known, or null if the .libertyls directory
+     *         cannot be created
+     */
+    public static File getServerSchemaFile(LibertyWorkspace libertyWorkspace) {
+        File tempDir = LibertyUtils.getTempDir(libertyWorkspace);
+        if (tempDir == null) {
+            return null;
+        }
+        if (libertyWorkspace.isLibertyRuntimeAndVersionSet()) {
+            return new File(tempDir, libertyWorkspace.getLibertyRuntime() + "-" + libertyWorkspace.getLibertyVersion() + ".xsd");
+        }
+        return new File(tempDir, "server.xsd");
+    }
+
+    /**
+     * Starts the generation of the schema and of the feature list of a workspace with a local Liberty installation,
+     * running ws-schemagen.jar and ws-featurelist.jar concurrently in the background.
+     * @param libertyWorkspace
+     */
+    public void generateWorkspaceArtifacts(LibertyWorkspace libertyWorkspace) {
+        Path schemaGenJarPath = LibertyUtils.findLibertyFileForWorkspace(libertyWorkspace, Paths.get("bin", "tools", "ws-schemagen.jar"));
+        File xsdDestFile = getServerSchemaFile(libertyWorkspace);
+        if (schemaGenJarPath != null && xsdDestFile != null) {
+            getServerSchemaXsd(libertyWorkspace, schemaGenJarPath, xsdDestFile);
+        }
+        String runtime = libertyWorkspace.getLibertyRuntime();
+        String version = libertyWorkspace.getLibertyVersion();
+        executor.execute(() -> FeatureService.getInstance().getInstalledFeaturesList(libertyWorkspace, runtime, version));
+    }
+
+    /**
+     * Returns the schema file of the workspace, starting its generation in the background if needed. The open
+     * documents of the workspace are re-validated when the schema file is created.
+     * @param libertyWorkspace
+     * @param schemaGenJarPath ws-schemagen.jar of the Liberty installation of the workspace
+     * @param xsdDestFile schema file of the workspace, named after the runtime and version
+     * @return the schema file, completed exceptionally if it cannot be generated
+     */
+    public CompletableFuture<File> getServerSchemaXsd(LibertyWorkspace libertyWorkspace, Path schemaGenJarPath, File xsdDestFile) {
+        String fingerprint = GeneratedArtifactCache.getInstance().getFingerprint(libertyWorkspace, schemaGenJarPath);
+        // a schema generated before features were installed or removed is replaced
+        if (xsdDestFile.exists() && (fingerprint == null || fingerprint.equals(libertyWorkspace.getSchemaFingerprint()))) {
+            return CompletableFuture.completedFuture(xsdDestFile);
+        }
+        String runtime = libertyWorkspace.getLibertyRuntime();
+        String version = libertyWorkspace.getLibertyVersion();
+        if (fingerprint != null && GeneratedArtifactCache.getInstance().copyTo(runtime, version, fingerprint, GeneratedArtifactCache.SERVER_SCHEMA, xsdDestFile)) {
+            libertyWorkspace.setSchemaFingerprint(fingerprint);
+            return CompletableFuture.completedFuture(xsdDestFile);
+        }
+        String destKey = xsdDestFile.getAbsolutePath();
+        CompletableFuture<File> workspaceSchema = new CompletableFuture<File>();
+        CompletableFuture<File> pendingSchema = workspaceSchemas.putIfAbsent(destKey, workspaceSchema);
+        if (pendingSchema != null) {
+            return pendingSchema;
+        }
+        // completed on the executor, so that the revalidation never runs in the resolution of a grammar
+        getGeneration(schemaGenJarPath, xsdDestFile, runtime, version, fingerprint).thenApply(generatedFile -> copy(generatedFile, xsdDestFile)).whenCompleteAsync((file, e) -> {
+            workspaceSchemas.remove(destKey);
+            if (e != null) {
+                workspaceSchema.completeExceptionally(e);
+                return;
+            }
+            libertyWorkspace.setSchemaFingerprint(fingerprint);
+            workspaceSchema.complete(file);
+            LOGGER.info("Using generated schema file for workspace " + libertyWorkspace.getWorkspaceString() + ": " + file.toURI().toString());
+            RevalidationService.getInstance().revalidateOpenDocuments(libertyWorkspace);
+        }, executor);
+        return workspaceSchema;
+    }
+
+    /**
+     * Waits for the pending schema generations to complete, successfully or not. Declared public to be used by tests.
+     * @param timeout
+     * @param unit
+     */
+    public void awaitGenerations(long timeout, TimeUnit unit) throws InterruptedException {
+        CompletableFuture<?>[] pendingSchemas = workspaceSchemas.values().toArray(new CompletableFuture<?>[0]);
+        try {
+            CompletableFuture.allOf(pendingSchemas).get(timeout, unit);
+        } catch (ExecutionException | TimeoutException e) {
+            LOGGER.warning("Schema generation did not complete: " + e.getMessage());
+        }
+    }
+
+    private CompletableFuture<File> getGeneration(Path schemaGenJarPath, File xsdDestFile, String runtime, String version, String fingerprint) {
+        String key = schemaGenJarPath.toAbsolutePath() + "|" + xsdDestFile.getName() + "|" + fingerprint;
+        return generations.compute(key, (k, generation) -> {
+            // a generation that failed is tried again, and so is one whose file was deleted with its workspace
+            if (generation != null && (!generation.isDone() || (!generation.isCompletedExceptionally() && generation.join().exists()))) {
+                return generation;
+            }
+            return CompletableFuture.supplyAsync(() -> generate(schemaGenJarPath, xsdDestFile), executor).thenApply(generatedFile -> {
+                if (fingerprint != null) {
+                    GeneratedArtifactCache.getInstance().store(runtime, version, fingerprint, GeneratedArtifactCache.SERVER_SCHEMA, generatedFile);
+                }
+                return generatedFile;
+            });
+        });
+    }
+
+    private File copy(File generatedFile, File xsdDestFile) {
+        if (generatedFile.equals(xsdDestFile)) {
+            return xsdDestFile;
+        }
+        try {
+            Path tempFile = Files.createTempFile(xsdDestFile.getParentFile().toPath(), "copying-", "-" + xsdDestFile.getName());
+            Files.copy(generatedFile.toPath(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tempFile, xsdDestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return xsdDestFile;
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /*
+     * java -jar {path to ws-schemagen.jar} {schemaVersion} {outputVersion} {outputFile}
+     * The schema is generated in a temporary file that is moved to the schema file once complete, so that a
+     * partially written schema is never used.
+     */
+    private File generate(Path schemaGenJarPath, File xsdDestFile) {
+        File tempDir = xsdDestFile.getParentFile();
+        File tempFile = new File(tempDir, "generating-" + xsdDestFile.getName());
+        try {
+            LOGGER.info("Generating schema file from: " + schemaGenJarPath.toString());
+            LOGGER.info("Generating schema file at: " + xsdDestFile.getCanonicalPath());
+
+            List<String> args = Arrays.asList("--schemaVersion=1.1", "--outputVersion=2", tempFile.getCanonicalPath()); // Add locale param here
+            ProcessResult result = LibertyToolRunner.getInstance().run(schemaGenJarPath, args, tempDir, new File(tempDir, "schemagen.log"), SCHEMAGEN_TIMEOUT, TimeUnit.SECONDS);
+            if (result.isTimedOut()) {
+                throw new IOException("Exceeded " + SCHEMAGEN_TIMEOUT + " second timeout during schema file generation");
+            }
+            if (!tempFile.exists()) {
+                throw new IOException("ws-schemagen.jar did not generate a schema file, see " + new File(tempDir, "schemagen.log"));
+            }
+
+            // do some post processing to remove the anyAttribute element from parent element if there is no extraProperties sibling
+            DocumentUtil.removeExtraneousAnyAttributeElements(tempFile);
+            Files.move(tempFile.toPath(), xsdDestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            LOGGER.info("Caching schema file with URI: " + xsdDestFile.toURI().toString());
+            return xsdDestFile;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            LOGGER.warning(e.getMessage());
+            LOGGER.warning("Due to an exception during schema file generation, a cached schema file will be used.");
+            tempFile.delete();
+            throw new CompletionException(e);
+        }
+    }
+}
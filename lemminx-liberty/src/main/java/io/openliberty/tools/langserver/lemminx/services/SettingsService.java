@@ -1,5 +1,5 @@
 /*******************************************************************************
-* Copyright (c) 2020, 2022 IBM Corporation and others.
+* Copyright (c) 2020, 2024 IBM Corporation and others.
 *
 * This program and the accompanying materials are made available under the
 * terms of the Eclipse Public License v. 2.0 which is available at
@@ -64,4 +64,11 @@ public class SettingsService {
         return DEFAULT_REQUEST_DELAY;
     }
 
+    /**
+     * @return true if the Liberty tools are run in the language server JVM instead of a new JVM, false by default
+     */
+    public boolean isInProcessToolsEnabled() {
+        return settings != null && settings.isInProcessTools();
+    }
+
 }
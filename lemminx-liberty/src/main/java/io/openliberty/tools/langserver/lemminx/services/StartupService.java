@@ -0,0 +1,113 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.eclipse.lsp4j.WorkspaceFolder;
+
+/**
+ * Builds the workspace model in the background when the extension starts, so that the participants can be
+ * registered and the initialize request answered without waiting for the workspace folders to be searched.
+ * Until the model is ready, requests are answered with the default feature catalog and feature list graph,
+ * and the open documents are re-validated once it is ready.
+ */
+public class StartupService {
+
+    private static final Logger LOGGER = Logger.getLogger(StartupService.class.getName());
+
+    // time stop waits for the startup tasks to complete after interrupting them, in seconds
+    private static final long STOP_TIMEOUT = 5;
+
+    private static final StartupService INSTANCE = new StartupService();
+
+    public static StartupService getInstance() {
+        return INSTANCE;
+    }
+
+    private ExecutorService executor;
+    private volatile CompletableFuture<Void> startup;
+
+    private StartupService() {
+    }
+
+    /**
+     * Searches the workspace folders, then loads the default feature catalog and feature list graph, on a
+     * background thread.
+     * @param workspaceFolders workspace folders of the initialize request, may be null
+     * @return completed when the workspace model is ready
+     */
+    public synchronized CompletableFuture<Void> start(List<WorkspaceFolder> workspaceFolders) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "liberty-ls-startup");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<Void> startupTasks = CompletableFuture.runAsync(() -> {
+            if (workspaceFolders != null) {
+                LibertyProjectsManager.getInstance().setWorkspaceFolders(workspaceFolders);
+            }
+            FeatureService featureService = FeatureService.getInstance();
+            featureService.getFeatureCatalog(null, null, 0, null);
+            featureService.getDefaultFeatureList();
+        }, executor);
+        startup = startupTasks;
+        // isReady returns true when the revalidation runs, so the new diagnostics are not provisional
+        startupTasks.whenComplete((result, e) -> {
+            if (e != null) {
+                LOGGER.warning("Error initializing the Liberty workspaces: " + e.getMessage());
+            } else {
+                LOGGER.info("Liberty workspaces initialized in " + (System.currentTimeMillis() - startTime) + " ms");
+            }
+            // diagnostics computed in the meantime used the default features
+            RevalidationService.getInstance().revalidateOpenDocuments();
+        });
+        return startupTasks;
+    }
+
+    /**
+     * Returns false while the workspace model is being built. The results computed in the meantime are based on
+     * the default features, and are provisional.
+     */
+    public boolean isReady() {
+        CompletableFuture<Void> pendingStartup = startup;
+        return pendingStartup == null || pendingStartup.isDone();
+    }
+
+    /**
+     * Interrupts the startup tasks and waits for them to stop.
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT, TimeUnit.SECONDS)) {
+                LOGGER.warning("Liberty workspace initialization did not stop");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+        startup = null;
+    }
+}
@@ -0,0 +1,107 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import org.eclipse.lemminx.dom.DOMDocument;
+
+import io.openliberty.tools.langserver.lemminx.data.FeatureCatalog;
+import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
+import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+
+/**
+ * Runtime information and Liberty data used while processing one request on a document: a validation pass,
+ * a completion, a hover or a code action. The workspace, runtime info and settings are resolved once when the
+ * context is created, instead of once per check. The feature catalog and the feature list graph are resolved
+ * on first use and then kept for the rest of the request, so that all the checks of a pass see the same data
+ * even if a download or a feature list generation completes in the meantime.
+ */
+public class ValidationContext {
+
+    private final String documentURI;
+    private final LibertyWorkspace workspace;
+    private final LibertyRuntime runtimeInfo;
+    private final int requestDelay;
+
+    private volatile FeatureCatalog featureCatalog;
+    private volatile FeatureListGraph featureListGraph;
+
+    private ValidationContext(String documentURI, LibertyWorkspace workspace, LibertyRuntime runtimeInfo, int requestDelay) {
+        this.documentURI = documentURI;
+        this.workspace = workspace;
+        this.runtimeInfo = runtimeInfo;
+        this.requestDelay = requestDelay;
+    }
+
+    public static ValidationContext create(DOMDocument document) {
+        return create(document.getDocumentURI());
+    }
+
+    public static ValidationContext create(String documentURI) {
+        LibertyWorkspace workspace = LibertyProjectsManager.getInstance().getWorkspaceFolder(documentURI);
+        return new ValidationContext(documentURI, workspace, LibertyUtils.getLibertyRuntimeInfo(workspace),
+                SettingsService.getInstance().getRequestDelay());
+    }
+
+    public String getDocumentURI() {
+        return documentURI;
+    }
+
+    /**
+     * Returns the Liberty workspace the document belongs to, or null if it is not part of a workspace.
+     */
+    public LibertyWorkspace getWorkspace() {
+        return workspace;
+    }
+
+    public LibertyRuntime getRuntimeInfo() {
+        return runtimeInfo;
+    }
+
+    public String getLibertyVersion() {
+        return runtimeInfo == null ? null : runtimeInfo.getRuntimeVersion();
+    }
+
+    public String getLibertyRuntime() {
+        return runtimeInfo == null ? null : runtimeInfo.getRuntimeType();
+    }
+
+    public int getRequestDelay() {
+        return requestDelay;
+    }
+
+    /**
+     * Returns the features and platforms for the Liberty runtime and version of the document.
+     */
+    public FeatureCatalog getFeatureCatalog() {
+        FeatureCatalog catalog = featureCatalog;
+        if (catalog == null) {
+            catalog = FeatureService.getInstance().getFeatureCatalog(getLibertyVersion(), getLibertyRuntime(), requestDelay, documentURI);
+            featureCatalog = catalog;
+        }
+        return catalog;
+    }
+
+    /**
+     * Returns the feature list graph of the workspace, or the default feature list graph if the document is not
+     * part of a workspace.
+     */
+    public FeatureListGraph getFeatureListGraph() {
+        FeatureListGraph graph = featureListGraph;
+        if (graph == null) {
+            graph = workspace == null ? FeatureService.getInstance().getDefaultFeatureList() : workspace.getFeatureListGraph();
+            featureListGraph = graph;
+        }
+        return graph;
+    }
+}
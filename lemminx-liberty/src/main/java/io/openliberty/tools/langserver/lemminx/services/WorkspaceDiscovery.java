@@ -0,0 +1,328 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+
+/**
+ * Finds the Liberty config xml files of a workspace folder, which are used to detect the sub-modules of a
+ * multi-module project. The directory tree is walked in parallel, without descending into directories that
+ * cannot contain Liberty config (VCS metadata, node_modules, IDE settings) or that are ignored by a .gitignore
+ * file of the workspace. The files whose name does not identify them as Liberty config are checked for a
+ * <server> root element, which is found in the first few KB of the file in most cases.
+ */
+public class WorkspaceDiscovery {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkspaceDiscovery.class.getName());
+
+    // also not indexed by WorkspaceFileIndex
+    static final Set<String> PRUNED_DIRS = Stream.of(".git", ".svn", ".hg", ".gradle", ".mvn", ".idea", ".vscode",
+            ".settings", ".libertyls", "node_modules", "bower_components").collect(Collectors.toSet());
+
+    private static final String GITIGNORE = ".gitignore";
+    private static final String XML_EXTENSION = ".xml";
+    private static final int MAX_DISCOVERY_THREADS = 4;
+
+    // walks the workspace folders, the common pool is used by the requests of the language server
+    private static ForkJoinPool discoveryPool;
+
+    private final Path root;
+    private final String rootUri;
+    private final AtomicInteger scannedDirectories = new AtomicInteger();
+    private final AtomicInteger scannedFiles = new AtomicInteger();
+    private volatile boolean cancelled = false;
+    private CompletableFuture<List<Path>> result;
+
+    public WorkspaceDiscovery(Path root) {
+        this.root = root;
+        this.rootUri = root.toFile().toURI().toString();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Starts the discovery in the background, if it is not started yet.
+     * @return the Liberty config xml files of the workspace folder
+     */
+    public synchronized CompletableFuture<List<Path>> start() {
+        if (result == null) {
+            result = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return scan();
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, getDiscoveryPool());
+        }
+        return result;
+    }
+
+    /**
+     * Runs the discovery and waits for its completion.
+     * @return the Liberty config xml files of the workspace folder
+     * @throws IOException if the workspace folder cannot be read
+     */
+    public List<Path> scan() throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IOException("Not a directory: " + root);
+        }
+        List<Path> configFiles = getDiscoveryPool().invoke(new ScanDirectoryTask(root, Collections.<GitIgnore>emptyList()));
+        if (cancelled) {
+            throw new CancellationException("Discovery of " + root + " was cancelled");
+        }
+        return configFiles;
+    }
+
+    /**
+     * Stops the discovery. The directories that are not scanned yet are skipped.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Stops the threads walking the workspace folders. A later discovery starts new threads.
+     */
+    public static synchronized void shutdown() {
+        if (discoveryPool != null) {
+            discoveryPool.shutdownNow();
+            discoveryPool = null;
+        }
+    }
+
+    private static synchronized ForkJoinPool getDiscoveryPool() {
+        if (discoveryPool == null) {
+            discoveryPool = new ForkJoinPool(Math.min(MAX_DISCOVERY_THREADS, Runtime.getRuntime().availableProcessors()), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("liberty-ls-discovery-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        return discoveryPool;
+    }
+
+    public int getScannedDirectoryCount() {
+        return scannedDirectories.get();
+    }
+
+    public int getScannedFileCount() {
+        return scannedFiles.get();
+    }
+
+    private static boolean isIgnored(List<GitIgnore> gitIgnores, Path path, boolean isDirectory) {
+        // the rules of the deepest .gitignore file take precedence
+        for (int i = gitIgnores.size() - 1; i >= 0; i--) {
+            Boolean ignored = gitIgnores.get(i).isIgnored(path, isDirectory);
+            if (ignored != null) {
+                return ignored;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists a directory, checks its xml files and forks a task for each sub-directory that is not pruned.
+     */
+    private class ScanDirectoryTask extends RecursiveTask<List<Path>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final List<GitIgnore> parentGitIgnores;
+
+        ScanDirectoryTask(Path dir, List<GitIgnore> parentGitIgnores) {
+            this.dir = dir;
+            this.parentGitIgnores = parentGitIgnores;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            List<Path> configFiles = new ArrayList<Path>();
+            if (cancelled) {
+                return configFiles;
+            }
+            scannedDirectories.incrementAndGet();
+            List<GitIgnore> gitIgnores = parentGitIgnores;
+            GitIgnore gitIgnore = GitIgnore.read(dir);
+            if (gitIgnore != null) {
+                gitIgnores = new ArrayList<GitIgnore>(parentGitIgnores);
+                gitIgnores.add(gitIgnore);
+            }
+            List<ScanDirectoryTask> subTasks = new ArrayList<ScanDirectoryTask>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    try {
+                        BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attrs.isDirectory()) {
+                            if (!PRUNED_DIRS.contains(entry.getFileName().toString()) && !isIgnored(gitIgnores, entry, true)) {
+                                subTasks.add(new ScanDirectoryTask(entry, gitIgnores));
+                            }
+                        } else if (isXmlFile(entry, attrs) && !isIgnored(gitIgnores, entry, false)) {
+                            scannedFiles.incrementAndGet();
+                            if (LibertyUtils.isConfigXMLFile(rootUri, entry.toFile().toURI().toString())) {
+                                configFiles.add(entry);
+                            }
+                        }
+                    } catch (IOException e) {
+                        // deleted while listing, or a broken link
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.warning("Could not scan " + dir + ": " + e.getMessage());
+            }
+            for (ScanDirectoryTask subTask : invokeAll(subTasks)) {
+                configFiles.addAll(subTask.join());
+            }
+            return configFiles;
+        }
+
+        private boolean isXmlFile(Path file, BasicFileAttributes attrs) {
+            if (!file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(XML_EXTENSION)) {
+                return false;
+            }
+            // links to files are checked like Files.walk does, links to directories are not followed
+            return attrs.isRegularFile() || (attrs.isSymbolicLink() && Files.isRegularFile(file));
+        }
+    }
+
+    /**
+     * Rules of a .gitignore file. Supports the usual syntax: comments, negation, directory-only rules, rules
+     * anchored to the directory of the file, and the *, ?, [] and ** wildcards.
+     */
+    private static class GitIgnore {
+        private final Path dir;
+        private final List<Rule> rules;
+
+        private static class Rule {
+            private final PathMatcher matcher;
+            private final boolean negated;
+            private final boolean directoryOnly;
+            // matched against the path relative to the .gitignore directory instead of the file name
+            private final boolean anchored;
+
+            private Rule(PathMatcher matcher, boolean negated, boolean directoryOnly, boolean anchored) {
+                this.matcher = matcher;
+                this.negated = negated;
+                this.directoryOnly = directoryOnly;
+                this.anchored = anchored;
+            }
+        }
+
+        private GitIgnore(Path dir, List<Rule> rules) {
+            this.dir = dir;
+            this.rules = rules;
+        }
+
+        /**
+         * @return the rules of the .gitignore file of the passed directory, or null if it has none
+         */
+        static GitIgnore read(Path dir) {
+            Path gitIgnoreFile = dir.resolve(GITIGNORE);
+            if (!Files.isRegularFile(gitIgnoreFile)) {
+                return null;
+            }
+            List<Rule> rules = new ArrayList<Rule>();
+            try {
+                for (String line : Files.readAllLines(gitIgnoreFile)) {
+                    Rule rule = parse(line);
+                    if (rule != null) {
+                        rules.add(rule);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warning("Could not read " + gitIgnoreFile + ": " + e.getMessage());
+                return null;
+            }
+            return rules.isEmpty() ? null : new GitIgnore(dir, rules);
+        }
+
+        private static Rule parse(String line) {
+            String pattern = line.trim();
+            if (pattern.isEmpty() || pattern.startsWith("#")) {
+                return null;
+            }
+            boolean negated = pattern.startsWith("!");
+            if (negated) {
+                pattern = pattern.substring(1);
+            }
+            boolean directoryOnly = pattern.endsWith("/");
+            if (directoryOnly) {
+                pattern = pattern.substring(0, pattern.length() - 1);
+            }
+            // braces are not special in .gitignore files
+            pattern = pattern.replace("{", "\\{").replace("}", "\\}");
+            boolean anchored = pattern.contains("/");
+            if (pattern.startsWith("/")) {
+                pattern = pattern.substring(1);
+            } else if (pattern.startsWith("**/")) {
+                pattern = pattern.substring(3);
+                anchored = pattern.contains("/");
+                if (anchored) {
+                    // also matches at the top of the directory
+                    pattern = "{" + pattern + ",**/" + pattern + "}";
+                }
+            }
+            if (pattern.isEmpty()) {
+                return null;
+            }
+            try {
+                return new Rule(FileSystems.getDefault().getPathMatcher("glob:" + pattern), negated, directoryOnly, anchored);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @return whether the last matching rule ignores the path, or null if no rule matches
+         */
+        Boolean isIgnored(Path path, boolean isDirectory) {
+            Path relativePath = dir.relativize(path);
+            Path fileName = path.getFileName();
+            Boolean ignored = null;
+            for (Rule rule : rules) {
+                if (rule.directoryOnly && !isDirectory) {
+                    continue;
+                }
+                if (rule.matcher.matches(rule.anchored ? relativePath : fileName)) {
+                    ignored = !rule.negated;
+                }
+            }
+            return ignored;
+        }
+    }
+}
@@ -0,0 +1,479 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Logger;
+
+/**
+ * Index of the regular files under the directory of a LibertyWorkspace, by file name, with their last modified
+ * times. The index is built on first use by walking the directory tree in parallel, and is then kept current through
+ * the shared FileWatchService instead of walking the tree again for every lookup.
+ *
+ * The directories pruned by WorkspaceDiscovery are not indexed. In a Liberty installation, which holds thousands of
+ * directories, only bin, lib and lib/versions are indexed: the tools and the properties files are the only files
+ * looked up there.
+ *
+ * Only the directories holding the files that are looked up are watched: the workspace, the build output directories
+ * (target and build, and target/liberty), the src/main/liberty/config directories and the directories of Liberty
+ * installations. The other directories, and the ones that cannot be watched (for example when the limit of watches is
+ * reached), are polled: their last modified time is checked at most every POLL_INTERVAL, and only the directories
+ * that changed are listed again. If events were lost, the index is rebuilt on the next lookup.
+ */
+public class WorkspaceFileIndex implements FileWatchService.Listener {
+
+    private static final Logger LOGGER = Logger.getLogger(WorkspaceFileIndex.class.getName());
+
+    // time the polled directories are used before their last modified times are checked, in milliseconds
+    private static final long POLL_INTERVAL = 30000;
+    private static final int MAX_INDEX_THREADS = 4;
+    private static final Path LIB = Path.of("lib");
+    private static final Path LIB_VERSIONS = Path.of("lib", "versions");
+    private static final Path BIN = Path.of("bin");
+    private static final Path CONFIG_DIR = Path.of("src", "main", "liberty", "config");
+    // build output directories, holding liberty-plugin-config.xml, the devc metadata and the Liberty installation
+    private static final List<String> BUILD_DIRS = List.of("target", "build");
+    private static final String LIBERTY_DIR = "liberty";
+
+    // walks the directory trees of all the indexes, the common pool is used by the requests of the language server
+    private static ForkJoinPool indexPool;
+
+    private final Path root;
+    private final long pollInterval;
+
+    // lower case file name -> path -> last modified time
+    private final Map<String, Map<Path, Long>> filesByName = new ConcurrentHashMap<String, Map<Path, Long>>();
+    private final Map<Path, WatchKey> watchedDirs = new ConcurrentHashMap<Path, WatchKey>();
+    // directory -> last modified time when it was listed
+    private final Map<Path, Long> polledDirs = new ConcurrentHashMap<Path, Long>();
+
+    private volatile boolean built = false;
+    private volatile boolean stale = false;
+    private volatile boolean closed = false;
+    // cleared once a directory cannot be watched, it is then polled
+    private volatile boolean watching = true;
+    private long pollTime;
+
+    public WorkspaceFileIndex(Path root) {
+        this(root, POLL_INTERVAL);
+    }
+
+    /**
+     * Declared public to be used by tests.
+     * @param pollInterval time the polled directories are used before they are checked, in milliseconds
+     */
+    public WorkspaceFileIndex(Path root, long pollInterval) {
+        this.root = root;
+        this.pollInterval = pollInterval;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns whether the directories that should be watched are watched, false if some of them could not be watched
+     * and are polled. Declared public to be used by tests.
+     */
+    public boolean isWatching() {
+        return watching;
+    }
+
+    /**
+     * Returns the number of directories that are polled instead of watched. Declared public to be used by tests.
+     */
+    public int getPolledDirectoryCount() {
+        return polledDirs.size();
+    }
+
+    /**
+     * Stops the threads indexing directory trees. A later lookup starts new threads.
+     */
+    public static synchronized void shutdown() {
+        if (indexPool != null) {
+            indexPool.shutdownNow();
+            indexPool = null;
+        }
+    }
+
+    private static synchronized ForkJoinPool getIndexPool() {
+        if (indexPool == null) {
+            indexPool = new ForkJoinPool(Math.min(MAX_INDEX_THREADS, Runtime.getRuntime().availableProcessors()), pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("liberty-ls-file-index-" + thread.getPoolIndex());
+                return thread;
+            }, null, false);
+        }
+        return indexPool;
+    }
+
+    /**
+     * Returns the indexed files that end with the passed path, like Path.endsWith.
+     * @param filePath file name, or relative path ending with the file name
+     * @return matching files, empty if none are found
+     */
+    public List<Path> findFiles(Path filePath) {
+        return findFiles(root, filePath);
+    }
+
+    /**
+     * Returns the indexed files under the passed directory that end with the passed path.
+     * @param dir directory under the root of the index
+     * @param filePath file name, or relative path ending with the file name
+     * @return matching files, empty if none are found
+     */
+    public List<Path> findFiles(Path dir, Path filePath) {
+        ensureBuilt();
+        List<Path> matchingFiles = new ArrayList<Path>();
+        Path fileName = filePath.getFileName();
+        if (fileName == null) {
+            return matchingFiles;
+        }
+        Map<Path, Long> candidates = filesByName.get(toKey(fileName.toString()));
+        if (candidates != null) {
+            for (Path candidate : candidates.keySet()) {
+                if (candidate.startsWith(dir) && candidate.endsWith(filePath)) {
+                    matchingFiles.add(candidate);
+                }
+            }
+        }
+        return matchingFiles;
+    }
+
+    /**
+     * Returns the most recently modified file under the passed directory that ends with the passed path.
+     * @param dir directory under the root of the index
+     * @param filePath file name, or relative path ending with the file name
+     * @return path of the file, or null if none is found
+     */
+    public Path findLastModifiedFile(Path dir, Path filePath) {
+        List<Path> matchingFiles = findFiles(dir, filePath);
+        if (matchingFiles.size() > 1) {
+            Map<Path, Long> candidates = filesByName.get(toKey(filePath.getFileName().toString()));
+            matchingFiles.sort(Comparator.comparingLong((Path p) -> lastModified(candidates, p)).reversed());
+        }
+        // a deletion may not have been processed yet
+        for (Path matchingFile : matchingFiles) {
+            if (Files.isRegularFile(matchingFile)) {
+                return matchingFile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the indexed files whose name ends with the passed suffix, ignoring case.
+     * @param suffix end of the file name, for example an extension
+     * @return matching files, empty if none are found
+     */
+    public List<Path> findFilesEndsWith(String suffix) {
+        ensureBuilt();
+        String suffixKey = toKey(suffix);
+        List<Path> matchingFiles = new ArrayList<Path>();
+        for (Map.Entry<String, Map<Path, Long>> entry : filesByName.entrySet()) {
+            if (entry.getKey().endsWith(suffixKey)) {
+                matchingFiles.addAll(entry.getValue().keySet());
+            }
+        }
+        return matchingFiles;
+    }
+
+    /**
+     * Stops watching the directory tree and clears the index.
+     */
+    public synchronized void close() {
+        closed = true;
+        clear();
+    }
+
+    @Override
+    public void onEvent(Path dir, WatchEvent.Kind<?> kind, Path path) {
+        if (kind == StandardWatchEventKinds.OVERFLOW) {
+            stale = true;
+        } else if (kind == StandardWatchEventKinds.ENTRY_DELETE) {
+            removeFile(path);
+            if (isIndexedDirectory(path)) {
+                removeDirectory(path);
+            }
+        } else {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (attrs.isDirectory()) {
+                    if (kind == StandardWatchEventKinds.ENTRY_CREATE && !isIndexedDirectory(path)) {
+                        Path installationDir = findInstallationDir(dir);
+                        if (isIndexed(path, installationDir)) {
+                            // indexed on another thread, so that the events of the other listeners are not delayed
+                            getIndexPool().execute(new IndexDirectoryTask(path, installationDir));
+                        }
+                    }
+                } else {
+                    addFile(path, attrs);
+                }
+            } catch (IOException e) {
+                // already deleted, the delete event follows
+            }
+        }
+    }
+
+    @Override
+    public void onInvalid(Path dir) {
+        if (dir.equals(root)) {
+            stale = true;
+        } else {
+            removeDirectory(dir);
+        }
+    }
+
+    private synchronized void ensureBuilt() {
+        if (closed) {
+            return;
+        }
+        if (built && !stale) {
+            pollDirectories();
+            return;
+        }
+        if (built) {
+            clear();
+        }
+        stale = false;
+        built = true;
+        pollTime = System.currentTimeMillis();
+        if (Files.isDirectory(root)) {
+            getIndexPool().invoke(new IndexDirectoryTask(root, null));
+        } else {
+            // check again on the next lookup in case the directory is created
+            stale = true;
+        }
+    }
+
+    /**
+     * Lists again the polled directories whose last modified time changed, and removes the ones that were deleted.
+     * The last modified time of a directory changes when entries are created, deleted or renamed in it.
+     */
+    private void pollDirectories() {
+        long now = System.currentTimeMillis();
+        if (polledDirs.isEmpty() || now - pollTime < pollInterval) {
+            return;
+        }
+        pollTime = now;
+        List<IndexDirectoryTask> tasks = new ArrayList<IndexDirectoryTask>();
+        for (Map.Entry<Path, Long> polledDir : polledDirs.entrySet()) {
+            Path dir = polledDir.getKey();
+            long lastModified = getLastModifiedTime(dir);
+            if (lastModified == -1L) {
+                removeDirectory(dir);
+            } else if (lastModified != polledDir.getValue()) {
+                tasks.add(new IndexDirectoryTask(dir, findInstallationDir(dir.getParent())));
+            }
+        }
+        for (IndexDirectoryTask task : tasks) {
+            getIndexPool().invoke(task);
+        }
+    }
+
+    private void clear() {
+        for (WatchKey key : watchedDirs.values()) {
+            FileWatchService.getInstance().unregister(key, this);
+        }
+        watchedDirs.clear();
+        polledDirs.clear();
+        filesByName.clear();
+    }
+
+    private boolean isIndexedDirectory(Path dir) {
+        return watchedDirs.containsKey(dir) || polledDirs.containsKey(dir);
+    }
+
+    /**
+     * Returns the Liberty installation containing the passed directory, if any.
+     */
+    private Path findInstallationDir(Path dir) {
+        for (Path ancestor = dir; ancestor != null && ancestor.startsWith(root); ancestor = ancestor.getParent()) {
+            if (Files.isDirectory(ancestor.resolve(LIB_VERSIONS))) {
+                return ancestor;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the passed indexed directory holds files that are looked up, or may hold a Liberty installation.
+     * @param installationDir Liberty installation containing the directory, or the directory itself, null if none
+     */
+    private boolean isWatched(Path dir, Path installationDir) {
+        if (installationDir != null || dir.equals(root)) {
+            return true;
+        }
+        String name = dir.getFileName().toString();
+        Path parent = dir.getParent();
+        if (BUILD_DIRS.contains(name) || (LIBERTY_DIR.equals(name) && parent != null && BUILD_DIRS.contains(parent.getFileName().toString()))) {
+            return true;
+        }
+        for (Path ancestor = dir; ancestor != null && ancestor.startsWith(root); ancestor = ancestor.getParent()) {
+            if (ancestor.endsWith(CONFIG_DIR)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getLastModifiedTime(Path dir) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            return attrs.isDirectory() ? attrs.lastModifiedTime().toMillis() : -1L;
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    private static boolean isIndexed(Path dir, Path installationDir) {
+        if (WorkspaceDiscovery.PRUNED_DIRS.contains(dir.getFileName().toString())) {
+            return false;
+        }
+        if (installationDir == null) {
+            return true;
+        }
+        Path relativeDir = installationDir.relativize(dir);
+        return relativeDir.startsWith(BIN) || relativeDir.equals(LIB) || relativeDir.startsWith(LIB_VERSIONS);
+    }
+
+    private void addFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (attrs.isSymbolicLink()) {
+            // links to files are indexed like Files.walk does, links to directories are not followed
+            if (!Files.isRegularFile(file)) {
+                return;
+            }
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } else if (!attrs.isRegularFile()) {
+            return;
+        }
+        filesByName.computeIfAbsent(toKey(file.getFileName().toString()), k -> new ConcurrentHashMap<Path, Long>())
+                .put(file, attrs.lastModifiedTime().toMillis());
+    }
+
+    private void removeFile(Path file) {
+        Map<Path, Long> paths = filesByName.get(toKey(file.getFileName().toString()));
+        if (paths != null) {
+            paths.remove(file);
+        }
+    }
+
+    private void removeDirectory(Path dir) {
+        watchedDirs.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith(dir)) {
+                FileWatchService.getInstance().unregister(entry.getValue(), this);
+                return true;
+            }
+            return false;
+        });
+        polledDirs.keySet().removeIf(p -> p.startsWith(dir));
+        for (Map<Path, Long> paths : filesByName.values()) {
+            paths.keySet().removeIf(p -> p.startsWith(dir));
+        }
+    }
+
+    private static long lastModified(Map<Path, Long> candidates, Path file) {
+        Long lastModified = candidates == null ? null : candidates.get(file);
+        return lastModified == null ? 0L : lastModified;
+    }
+
+    private static String toKey(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Watches or polls a directory, indexes its files and forks a task for each sub-directory that is indexed and not
+     * indexed yet. The directory is registered, or its last modified time read, before it is listed so that files
+     * created while it is listed are not missed. A polled directory that changed is listed again by a new task.
+     */
+    private class IndexDirectoryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        // Liberty installation containing the directory, null if none
+        private final Path installationDir;
+
+        IndexDirectoryTask(Path dir, Path installationDir) {
+            this.dir = dir;
+            this.installationDir = installationDir;
+        }
+
+        @Override
+        protected void compute() {
+            if (closed) {
+                return;
+            }
+            Path subDirsInstallationDir = installationDir;
+            if (subDirsInstallationDir == null && Files.isDirectory(dir.resolve(LIB_VERSIONS))) {
+                subDirsInstallationDir = dir;
+            }
+            if (!watchedDirs.containsKey(dir)) {
+                WatchKey watchKey = null;
+                if (watching && isWatched(dir, subDirsInstallationDir)) {
+                    try {
+                        watchKey = FileWatchService.getInstance().register(dir, WorkspaceFileIndex.this);
+                    } catch (IOException e) {
+                        LOGGER.warning("Could not watch " + dir + ", it will be checked every " + (pollInterval / 1000) + " seconds: " + e.getMessage());
+                        // the other directories are polled too, the limit of watches is likely reached
+                        watching = false;
+                    }
+                }
+                if (watchKey != null) {
+                    watchedDirs.put(dir, watchKey);
+                } else if (polledDirs.put(dir, getLastModifiedTime(dir)) != null) {
+                    // the directory is listed again, its deleted files are not listed
+                    for (Map<Path, Long> paths : filesByName.values()) {
+                        paths.keySet().removeIf(p -> dir.equals(p.getParent()));
+                    }
+                }
+            }
+            List<IndexDirectoryTask> subTasks = new ArrayList<IndexDirectoryTask>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    try {
+                        BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attrs.isDirectory()) {
+                            if (!isIndexedDirectory(entry) && isIndexed(entry, subDirsInstallationDir)) {
+                                subTasks.add(new IndexDirectoryTask(entry, subDirsInstallationDir));
+                            }
+                        } else {
+                            addFile(entry, attrs);
+                        }
+                    } catch (IOException e) {
+                        // deleted while listing, or a broken link
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.warning("Could not index " + dir + ": " + e.getMessage());
+            }
+            invokeAll(subTasks);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.services;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable trie of the URI segments of a set of LibertyWorkspaces, used to find the workspace of a document
+ * by longest prefix in a time proportional to the depth of the document URI instead of the number of workspaces.
+ * When workspaces are nested, for example a multi-module project and its sub-modules, the innermost workspace
+ * is returned. The workspaces of recently resolved URIs are remembered, so a new trie must be built when the
+ * workspace folders change.
+ */
+public class WorkspaceFolderTrie {
+
+    private static final String URI_SEPARATOR = "/";
+    private static final int MAX_CACHED_URIS = 1000;
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private LibertyWorkspace workspace;
+    }
+
+    private final Node root = new Node();
+    private final Map<String, LibertyWorkspace> resolvedUris = new ConcurrentHashMap<String, LibertyWorkspace>();
+
+    public WorkspaceFolderTrie(Collection<LibertyWorkspace> workspaces) {
+        for (LibertyWorkspace workspace : workspaces) {
+            String workspaceUri = workspace.getWorkspaceStringWithTrailingSlash();
+            if (workspaceUri == null) {
+                continue;
+            }
+            Node node = root;
+            // the trailing slash produces no segment
+            for (String segment : workspaceUri.split(URI_SEPARATOR)) {
+                node = node.children.computeIfAbsent(segment, s -> new Node());
+            }
+            node.workspace = workspace;
+        }
+    }
+
+    /**
+     * Returns the innermost workspace containing the passed URI.
+     * @param normalizedUri document URI, with "///" replaced by "/" like the workspace URIs
+     * @return the workspace, or null if the URI does not belong to any workspace
+     */
+    public LibertyWorkspace find(String normalizedUri) {
+        LibertyWorkspace workspace = resolvedUris.get(normalizedUri);
+        if (workspace != null) {
+            return workspace;
+        }
+        // a trailing empty segment is kept so that the URI of a workspace directory with a trailing slash is
+        // contained in that workspace
+        String[] segments = normalizedUri.split(URI_SEPARATOR, -1);
+        Node node = root;
+        // the last segment is the file name, a workspace must be one of the parent directories
+        for (int i = 0; i < segments.length - 1; i++) {
+            node = node.children.get(segments[i]);
+            if (node == null) {
+                break;
+            }
+            if (node.workspace != null) {
+                workspace = node.workspace;
+            }
+        }
+        if (workspace != null) {
+            if (resolvedUris.size() >= MAX_CACHED_URIS) {
+                resolvedUris.clear();
+            }
+            resolvedUris.put(normalizedUri, workspace);
+        }
+        return workspace;
+    }
+}
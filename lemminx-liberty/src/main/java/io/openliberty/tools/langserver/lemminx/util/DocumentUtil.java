@@ -14,10 +14,16 @@
 package io.openliberty.tools.langserver.lemminx.util;
 
 import java.io.File;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -30,13 +36,11 @@ import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
 
 public class DocumentUtil {
     private static final Logger LOGGER = Logger.getLogger(DocumentUtil.class.getName());
@@ -66,64 +70,272 @@ public class DocumentUtil {
         return docFactory;
     }
 
-    public static void writeDocToXmlFile(Document doc, File inputFile) throws Exception {
-        TransformerFactory transformerFactory = getTransformerFactory();
-        // Need to use this xsl to prevent extra lines in the updated xsd file. It is a known issue in Java 9 and up that is not going to be fixed.
-        // It was a design decision. Ref link: https://bugs.openjdk.org/browse/JDK-8262285?attachmentViewMode=list
-        InputStream is = DocumentUtil.class.getClassLoader().getResourceAsStream("formatxsd.xsl");
-        Transformer transformer = transformerFactory.newTransformer(new StreamSource(is));
-        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-        transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        transformer.setOutputProperty(OutputKeys.STANDALONE, "yes");
-        transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "4");
-        transformer.setOutputProperty(OutputKeys.DOCTYPE_PUBLIC, "yes");
-        doc.setXmlStandalone(true);
-        DOMSource source = new DOMSource(doc);
+    /**
+     * Removes the anyAttribute elements whose parent element does not contain an extraProperties element, in a
+     * single pass over the schema file. Only the current top level component of the schema (for example a
+     * complexType) is kept in memory, and the original formatting is preserved. The processed schema is written to
+     * a temporary file that replaces the schema file once complete.
+     * @param schemaFile
+     */
+    public static void removeExtraneousAnyAttributeElements(File schemaFile) {
+        Path schemaPath = schemaFile.toPath().toAbsolutePath();
+        Path tempFile = null;
         try {
-            StreamResult file = new StreamResult(new OutputStreamWriter(new FileOutputStream(inputFile), "UTF-8"));
-            transformer.transform(source, file);
-        } catch (Exception ex) {
-            LOGGER.warning("Received exception during post processing of schema file " + inputFile.getAbsolutePath() + " : " + ex.getMessage());
+            tempFile = Files.createTempFile(schemaPath.getParent(), "processing-", "-" + schemaFile.getName());
+            int removedCount;
+            try (InputStream is = Files.newInputStream(schemaPath); OutputStream os = Files.newOutputStream(tempFile)) {
+                removedCount = filterAnyAttributeElements(is, os);
+            }
+            if (removedCount > 0) {
+                Files.move(tempFile, schemaPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                LOGGER.info("Finished post processing of schema file: " + schemaFile.getCanonicalPath() + ", removed " + removedCount + " anyAttribute elements");
+            }
+        } catch (Exception e) {
+            LOGGER.warning("Received exception during post processing of schema file "+schemaFile.getAbsolutePath()+" : "+e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                }
+            }
         }
     }
 
-    private static TransformerFactory getTransformerFactory() throws TransformerConfigurationException {
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, Boolean.TRUE);
-        // XMLConstants.ACCESS_EXTERNAL_DTD uses an empty string to deny all access to external references;
-        transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-        // XMLConstants.ACCESS_EXTERNAL_STYLESHEET uses an empty string to deny all access to external references;
-        transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
-        return transformerFactory;
+    private static int filterAnyAttributeElements(InputStream is, OutputStream os) throws XMLStreamException {
+        XMLStreamReader reader = XmlReader.getXmlInputFactory().createXMLStreamReader(is);
+        XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8");
+        int removedCount = 0;
+        try {
+            writer.writeStartDocument("UTF-8", reader.getVersion() == null ? "1.0" : reader.getVersion());
+            writer.writeCharacters("\n");
+            int depth = 0;
+            SchemaComponentBuffer component = null;
+            while (reader.hasNext()) {
+                SchemaNode node = SchemaNode.read(reader, reader.next());
+                if (node == null) {
+                    continue;
+                }
+                if (node.eventType == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    // the children of the schema element are buffered, an anyAttribute element is always inside one
+                    if (depth == 2) {
+                        component = new SchemaComponentBuffer();
+                    }
+                }
+                if (component == null) {
+                    node.write(writer, false);
+                } else {
+                    component.add(node);
+                }
+                if (node.eventType == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 2) {
+                        removedCount += component.writeTo(writer);
+                        component = null;
+                    }
+                    depth--;
+                }
+            }
+            writer.writeCharacters("\n");
+            writer.writeEndDocument();
+            writer.flush();
+        } finally {
+            writer.close();
+            reader.close();
+        }
+        return removedCount;
     }
 
-    public static void removeExtraneousAnyAttributeElements(File schemaFile) {
-        try {
-            Document doc = getDocument(schemaFile);
-            boolean updated = false;
-
-            List<Element> anyAttrElements = getElementsByName(doc,"anyAttribute");
-            for (Element anyAttr : anyAttrElements) {
-                Node anyAttrParent = anyAttr.getParentNode(); 
-                // if the parent node does not contain a <annotation><appinfo><extraProperties> element, remove the anyAttribute element
-                if (anyAttrParent != null && anyAttrParent.getNodeType() == Node.ELEMENT_NODE) {
-                    Element anyAttrParentElement = (Element) anyAttrParent;
-                    NodeList extraPropertiesList = anyAttrParentElement.getElementsByTagNameNS("*", "extraProperties");
-                    if (extraPropertiesList == null || extraPropertiesList.getLength() == 0) {
-                        if (anyAttrParent.removeChild(anyAttr) != null) {
-                            updated = true;
+    /**
+     * Event of a schema, with the attributes in document order so that the processed schema keeps them in the
+     * same order.
+     */
+    private static class SchemaNode {
+        private final int eventType;
+        private final String prefix;
+        private final String localName;
+        private final String namespaceURI;
+        // prefix and URI pairs
+        private final String[] namespaces;
+        // prefix, namespace URI, local name and value of each attribute
+        private final String[] attributes;
+        private final String text;
+
+        private SchemaNode(int eventType, String prefix, String localName, String namespaceURI, String[] namespaces, String[] attributes, String text) {
+            this.eventType = eventType;
+            this.prefix = prefix;
+            this.localName = localName;
+            this.namespaceURI = namespaceURI;
+            this.namespaces = namespaces;
+            this.attributes = attributes;
+            this.text = text;
+        }
+
+        /**
+         * @return the current event of the reader, or null if it is not written to the processed schema
+         */
+        static SchemaNode read(XMLStreamReader reader, int eventType) {
+            switch (eventType) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String[] namespaces = new String[reader.getNamespaceCount() * 2];
+                    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                        namespaces[i * 2] = reader.getNamespacePrefix(i);
+                        namespaces[i * 2 + 1] = reader.getNamespaceURI(i);
+                    }
+                    String[] attributes = new String[reader.getAttributeCount() * 4];
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        attributes[i * 4] = reader.getAttributePrefix(i);
+                        attributes[i * 4 + 1] = reader.getAttributeNamespace(i);
+                        attributes[i * 4 + 2] = reader.getAttributeLocalName(i);
+                        attributes[i * 4 + 3] = reader.getAttributeValue(i);
+                    }
+                    return new SchemaNode(eventType, reader.getPrefix(), reader.getLocalName(), reader.getNamespaceURI(), namespaces, attributes, null);
+                case XMLStreamConstants.END_ELEMENT:
+                    return new SchemaNode(eventType, null, reader.getLocalName(), null, null, null, null);
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.COMMENT:
+                    return new SchemaNode(eventType, null, null, null, null, null, reader.getText());
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    return new SchemaNode(eventType, null, reader.getLocalName(), null, null, null, null);
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    return new SchemaNode(eventType, null, reader.getPITarget(), null, null, null, reader.getPIData());
+                default:
+                    return null;
+            }
+        }
+
+        boolean isWhiteSpace() {
+            return (eventType == XMLStreamConstants.CHARACTERS || eventType == XMLStreamConstants.SPACE) && text.isBlank();
+        }
+
+        /**
+         * @param empty true to write a start element as an empty element, its end element is then not written
+         */
+        void write(XMLStreamWriter writer, boolean empty) throws XMLStreamException {
+            switch (eventType) {
+                case XMLStreamConstants.START_ELEMENT:
+                    String elementPrefix = prefix == null ? "" : prefix;
+                    String elementNamespace = namespaceURI == null ? "" : namespaceURI;
+                    if (empty) {
+                        writer.writeEmptyElement(elementPrefix, localName, elementNamespace);
+                    } else {
+                        writer.writeStartElement(elementPrefix, localName, elementNamespace);
+                    }
+                    for (int i = 0; i < namespaces.length; i += 2) {
+                        if (namespaces[i] == null || namespaces[i].isEmpty()) {
+                            writer.writeDefaultNamespace(namespaces[i + 1]);
+                        } else {
+                            writer.writeNamespace(namespaces[i], namespaces[i + 1]);
+                        }
+                    }
+                    for (int i = 0; i < attributes.length; i += 4) {
+                        if (attributes[i] == null || attributes[i].isEmpty()) {
+                            writer.writeAttribute(attributes[i + 2], attributes[i + 3]);
+                        } else {
+                            writer.writeAttribute(attributes[i], attributes[i + 1], attributes[i + 2], attributes[i + 3]);
                         }
                     }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    writer.writeEndElement();
+                    break;
+                case XMLStreamConstants.CDATA:
+                    writer.writeCData(text);
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    writer.writeComment(text);
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    writer.writeEntityRef(localName);
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    writer.writeProcessingInstruction(localName, text);
+                    break;
+                default:
+                    writer.writeCharacters(text);
+            }
+        }
+    }
+
+    /**
+     * Events of a top level component of a schema. The anyAttribute elements of an element are removed when the
+     * end of the element is reached without finding an extraProperties element inside it.
+     */
+    private static class SchemaComponentBuffer {
+        private static final String ANY_ATTRIBUTE = "anyAttribute";
+        private static final String EXTRA_PROPERTIES = "extraProperties";
+
+        private static class OpenElement {
+            private final int startIndex;
+            private final boolean isAnyAttribute;
+            private boolean hasExtraProperties = false;
+            // start and end indexes of the anyAttribute child elements
+            private List<int[]> anyAttributes;
+
+            private OpenElement(int startIndex, boolean isAnyAttribute) {
+                this.startIndex = startIndex;
+                this.isAnyAttribute = isAnyAttribute;
+            }
+        }
+
+        private final List<SchemaNode> nodes = new ArrayList<SchemaNode>();
+        private final Deque<OpenElement> openElements = new ArrayDeque<OpenElement>();
+        private final BitSet removedNodes = new BitSet();
+        private int removedCount = 0;
+
+        void add(SchemaNode node) {
+            int index = nodes.size();
+            nodes.add(node);
+            if (node.eventType == XMLStreamConstants.START_ELEMENT) {
+                if (EXTRA_PROPERTIES.equals(node.localName)) {
+                    for (OpenElement element : openElements) {
+                        element.hasExtraProperties = true;
+                    }
+                }
+                openElements.push(new OpenElement(index, ANY_ATTRIBUTE.equals(node.localName)));
+            } else if (node.eventType == XMLStreamConstants.END_ELEMENT) {
+                OpenElement element = openElements.pop();
+                OpenElement parent = openElements.peek();
+                if (element.isAnyAttribute && parent != null) {
+                    if (parent.anyAttributes == null) {
+                        parent.anyAttributes = new ArrayList<int[]>();
+                    }
+                    parent.anyAttributes.add(new int[] { element.startIndex, index });
+                }
+                if (element.anyAttributes != null && !element.hasExtraProperties) {
+                    for (int[] anyAttribute : element.anyAttributes) {
+                        remove(anyAttribute[0], anyAttribute[1]);
+                    }
                 }
-            }   
-            
-            if (updated) {
-                writeDocToXmlFile(doc, schemaFile);
-                LOGGER.info("Finished post processing of schema file: "+schemaFile.getCanonicalPath());
             }
-        } catch (Exception e) {
-            LOGGER.warning("Received exception during post processing of schema file "+schemaFile.getAbsolutePath()+" : "+e.getMessage());
+        }
+
+        private void remove(int startIndex, int endIndex) {
+            removedNodes.set(startIndex, endIndex + 1);
+            // the indentation of the removed element
+            if (startIndex > 0 && nodes.get(startIndex - 1).isWhiteSpace()) {
+                removedNodes.set(startIndex - 1);
+            }
+            removedCount++;
+        }
+
+        int writeTo(XMLStreamWriter writer) throws XMLStreamException {
+            for (int i = 0; i < nodes.size(); i++) {
+                if (removedNodes.get(i)) {
+                    continue;
+                }
+                SchemaNode node = nodes.get(i);
+                // an element without content is written as <element/> like in the generated schema
+                boolean empty = node.eventType == XMLStreamConstants.START_ELEMENT && i + 1 < nodes.size()
+                        && nodes.get(i + 1).eventType == XMLStreamConstants.END_ELEMENT;
+                node.write(writer, empty);
+                if (empty) {
+                    i++;
+                }
+            }
+            return removedCount;
         }
     }
 
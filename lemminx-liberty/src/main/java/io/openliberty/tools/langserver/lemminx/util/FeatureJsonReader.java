@@ -0,0 +1,173 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
+import io.openliberty.tools.langserver.lemminx.models.feature.FeatureTolerate;
+import io.openliberty.tools.langserver.lemminx.models.feature.WlpInformation;
+
+/**
+ * Streaming reader for the features json published to Maven Central. Only the public features are returned, and
+ * only the fields used by the language server are bound: the name, the short description and the short name,
+ * visibility, platforms and required features of the wlpInformation. All other values, including the long
+ * description, are skipped without being materialized. Once a feature is known not to be public, the rest of
+ * it is skipped as well.
+ */
+public class FeatureJsonReader {
+
+    private FeatureJsonReader() {
+    }
+
+    /**
+     * Returns the public features found in the passed features json.
+     * @param reader reader for a json array of features
+     * @return list of public features
+     * @throws JsonParseException if the json cannot be read
+     */
+    public static ArrayList<Feature> readPublicFeatures(Reader reader) throws JsonParseException {
+        ArrayList<Feature> publicFeatures = new ArrayList<Feature>();
+        try {
+            JsonReader jsonReader = new JsonReader(reader);
+            jsonReader.beginArray();
+            while (jsonReader.hasNext()) {
+                Feature feature = readFeature(jsonReader);
+                if (feature != null) {
+                    publicFeatures.add(feature);
+                }
+            }
+            jsonReader.endArray();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonParseException(e);
+        }
+        return publicFeatures;
+    }
+
+    // returns null if the feature is not public
+    private static Feature readFeature(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        Feature feature = new Feature();
+        boolean isPublic = false;
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String fieldName = jsonReader.nextName();
+            if (fieldName.equals("name")) {
+                feature.setName(nextString(jsonReader));
+            } else if (fieldName.equals("shortDescription")) {
+                feature.setShortDescription(nextString(jsonReader));
+            } else if (fieldName.equals("wlpInformation") && jsonReader.peek() != JsonToken.NULL) {
+                WlpInformation wlpInfo = readWlpInformation(jsonReader);
+                feature.setWlpInformation(wlpInfo);
+                // Guard against null visibility field. Ran into this during manual testing of a wlp installation.
+                isPublic = LibertyConstants.PUBLIC_VISIBILITY.equals(wlpInfo.getVisibility());
+                if (!isPublic) {
+                    skipRemainingFields(jsonReader);
+                    break;
+                }
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return isPublic ? feature : null;
+    }
+
+    private static WlpInformation readWlpInformation(JsonReader jsonReader) throws IOException {
+        WlpInformation wlpInfo = new WlpInformation(null);
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            String fieldName = jsonReader.nextName();
+            if (fieldName.equals("shortName")) {
+                wlpInfo.setShortName(nextString(jsonReader));
+            } else if (fieldName.equals("visibility")) {
+                wlpInfo.setVisibility(nextString(jsonReader));
+            } else if (fieldName.equals("platforms")) {
+                wlpInfo.setPlatforms(readStringList(jsonReader));
+            } else if (fieldName.equals("requireFeature")) {
+                wlpInfo.setRequireFeature(readStringList(jsonReader));
+            } else if (fieldName.equals("requireFeatureWithTolerates")) {
+                wlpInfo.setRequireFeatureWithTolerates(readFeatureTolerates(jsonReader));
+            } else {
+                jsonReader.skipValue();
+            }
+        }
+        jsonReader.endObject();
+        return wlpInfo;
+    }
+
+    private static List<FeatureTolerate> readFeatureTolerates(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        List<FeatureTolerate> featureTolerates = new ArrayList<FeatureTolerate>();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            FeatureTolerate featureTolerate = new FeatureTolerate();
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                String fieldName = jsonReader.nextName();
+                if (fieldName.equals("feature")) {
+                    featureTolerate.setFeature(nextString(jsonReader));
+                } else if (fieldName.equals("tolerates")) {
+                    featureTolerate.setTolerates(readStringList(jsonReader));
+                } else {
+                    jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+            featureTolerates.add(featureTolerate);
+        }
+        jsonReader.endArray();
+        return featureTolerates;
+    }
+
+    private static ArrayList<String> readStringList(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        ArrayList<String> values = new ArrayList<String>();
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            values.add(nextString(jsonReader));
+        }
+        jsonReader.endArray();
+        return values;
+    }
+
+    private static String nextString(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() == JsonToken.NULL) {
+            jsonReader.nextNull();
+            return null;
+        }
+        return jsonReader.nextString();
+    }
+
+    private static void skipRemainingFields(JsonReader jsonReader) throws IOException {
+        while (jsonReader.hasNext()) {
+            jsonReader.skipValue();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import io.openliberty.tools.langserver.lemminx.data.ConfigElementNode;
+import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
+import io.openliberty.tools.langserver.lemminx.data.FeatureListNode;
+import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
+import io.openliberty.tools.langserver.lemminx.models.feature.WlpInformation;
+
+/**
+ * Single pass reader for the featurelist xml generated by ws-featurelist.jar. The public features found in
+ * the file are added to a FeatureListGraph as they are read, and optionally to a list of features, without
+ * building an intermediate object tree for the whole file. Private features, kernel features and the
+ * elements not used by the language server (apiJar, spiJar, include, ...) are skipped.
+ */
+public class FeatureListXmlReader {
+
+    private static final String FEATURE_ELEMENT = "feature";
+    private static final String NAME_ATTRIBUTE = "name";
+    private static final String DESCRIPTION_ELEMENT = "description";
+    private static final String ENABLES_ELEMENT = "enables";
+    private static final String CONFIG_ELEMENT_ELEMENT = "configElement";
+
+    private static final XMLInputFactory FACTORY = XmlReader.getXmlInputFactory();
+
+    private FeatureListXmlReader() {
+    }
+
+    /**
+     * Reads the public features of the passed featurelist xml file into the passed graph.
+     * @param featureListFile featurelist xml file
+     * @param featureListGraph graph the features and config elements are added to
+     * @param features list the features are added to, or null if only the graph is needed
+     * @return number of public features read
+     * @throws XMLStreamException if the file cannot be read or is not well formed
+     */
+    public static int readFeatureList(File featureListFile, FeatureListGraph featureListGraph, List<Feature> features) throws XMLStreamException {
+        try (InputStream is = Files.newInputStream(featureListFile.toPath())) {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(is);
+            try {
+                return readFeatureList(reader, featureListGraph, features);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new XMLStreamException(e);
+        }
+    }
+
+    private static int readFeatureList(XMLStreamReader reader, FeatureListGraph featureListGraph, List<Feature> features) throws XMLStreamException {
+        int featureCount = 0;
+        // move to the featureInfo root element
+        reader.nextTag();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            if (FEATURE_ELEMENT.equals(reader.getLocalName())) {
+                readFeature(reader, featureListGraph, features);
+                featureCount++;
+            } else {
+                skipElement(reader);
+            }
+        }
+        return featureCount;
+    }
+
+    private static void readFeature(XMLStreamReader reader, FeatureListGraph featureListGraph, List<Feature> features) throws XMLStreamException {
+        String featureName = reader.getAttributeValue(null, NAME_ATTRIBUTE);
+        String description = null;
+        List<String> enables = new ArrayList<String>();
+        List<String> configElements = new ArrayList<String>();
+
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String elementName = reader.getLocalName();
+            if (DESCRIPTION_ELEMENT.equals(elementName)) {
+                description = reader.getElementText();
+            } else if (ENABLES_ELEMENT.equals(elementName)) {
+                enables.add(reader.getElementText());
+            } else if (CONFIG_ELEMENT_ELEMENT.equals(elementName)) {
+                configElements.add(reader.getElementText());
+            } else {
+                skipElement(reader);
+            }
+        }
+
+        FeatureListNode currentFeatureNode = featureListGraph.addFeature(featureName, description);
+        for (String enabledFeature : enables) {
+            FeatureListNode feature = featureListGraph.addFeature(enabledFeature);
+            feature.addEnabledBy(featureName);
+            currentFeatureNode.addEnablesFeature(enabledFeature);
+        }
+        for (String configElement : configElements) {
+            ConfigElementNode configNode = featureListGraph.addConfigElement(configElement);
+            configNode.addEnabledBy(featureName);
+            currentFeatureNode.addEnablesConfigElement(configElement);
+        }
+
+        if (features != null) {
+            Feature feature = new Feature();
+            feature.setName(featureName);
+            feature.setDescription(description);
+            feature.setShortDescription(description);
+            // The xml featureListFile does not have a wlpInformation element like the json does, but our code depends on looking up
+            // features by the shortName found in wlpInformation. So create a WlpInformation object and initialize the shortName to
+            // the feature name.
+            feature.setWlpInformation(new WlpInformation(featureName));
+            feature.setEnables(enables.isEmpty() ? null : enables);
+            feature.setConfigElements(configElements.isEmpty() ? null : configElements);
+            features.add(feature);
+        }
+    }
+
+    // skips the current element, including its children, leaving the reader on its end element
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+}
@@ -15,31 +15,33 @@ package io.openliberty.tools.langserver.lemminx.util;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardWatchEventKinds;
-import java.nio.file.WatchKey;
-import java.nio.file.WatchService;
+import java.nio.file.WatchEvent;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.eclipse.lemminx.dom.DOMDocument;
+import org.eclipse.lemminx.dom.DOMElement;
 
 import io.openliberty.tools.langserver.lemminx.data.LibertyRuntime;
 import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
 import io.openliberty.tools.langserver.lemminx.models.settings.DevcMetadata;
 import io.openliberty.tools.langserver.lemminx.services.ContainerService;
+import io.openliberty.tools.langserver.lemminx.services.FileWatchService;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
+import io.openliberty.tools.langserver.lemminx.services.SchemaGenerationService;
 import io.openliberty.tools.langserver.lemminx.services.SettingsService;
+import io.openliberty.tools.langserver.lemminx.services.WorkspaceDiscovery;
+import io.openliberty.tools.langserver.lemminx.services.WorkspaceFileIndex;
 
 public class LibertyUtils {
 
@@ -50,7 +52,8 @@ public class LibertyUtils {
     private static final String EXCLUDE_PATTERN_REGEX = ".*/(?:target(?!/it/)|build)/.+$";
     private static final Pattern EXCLUDE_PATTERN = Pattern.compile(EXCLUDE_PATTERN_REGEX);
 
-    private static Thread thread;
+    private static final String ENV_EXPRESSION_REGEX = "\\$\\{env\\.([^}]+)\\}";
+    private static final Pattern ENV_EXPRESSION_PATTERN = Pattern.compile(ENV_EXPRESSION_REGEX);
 
     private LibertyUtils() {
     }
@@ -95,8 +98,16 @@ public class LibertyUtils {
         return isConfigXMLFile(null, filePath);
     }
 
+    /*
+     * Same as isConfigXMLFile(String), except that the root element is taken from the DOM of the document
+     * instead of reading the file, which also gives the right answer for unsaved changes.
+     */
     public static boolean isConfigXMLFile(DOMDocument file) {
-        return isConfigXMLFile(null, file.getDocumentURI());
+        if (INCLUDE_PATTERN.matcher(file.getDocumentURI()).find()) {
+            return true;
+        }
+        DOMElement rootElement = file.getDocumentElement();
+        return rootElement != null && LibertyConstants.SERVER_ELEMENT.equals(rootElement.getLocalName());
     }
 
     // Convenience methods
@@ -142,22 +153,13 @@ public class LibertyUtils {
 
     /*
      * Retrieve a collection of Path objects for xml files located in the passed Path dir that have a <server> root element.
+     * Directories that cannot contain Liberty config or that are ignored by a .gitignore file are not searched.
      * 
      * @param dir Path of directory to check for xml files 
      * @return List<Path> collection of xml files with server root elements
      */
     public static List<Path> getXmlFilesWithServerRootInDirectory(Path dir) throws IOException {
-        List<Path> serverRootXmlFiles = new ArrayList<Path>();
-        String rootPath = dir.toFile().toURI().toString();
-
-        List<Path> xmlFiles = findFilesEndsWithInDirectory(dir, ".xml");
-        for (Path nextXmlFile : xmlFiles) {
-            if (isConfigXMLFile(rootPath, nextXmlFile.toFile().toURI().toString())) {
-                serverRootXmlFiles.add(nextXmlFile);
-            }
-        }       
-
-        return serverRootXmlFiles;
+        return new WorkspaceDiscovery(dir).scan();
     }
 
     /**
@@ -223,6 +225,7 @@ public class LibertyUtils {
 
     /**
      * Given a Path and a LibertyWorkspace, find the most recently edited file that matches the given Path.
+     * The lookup uses the file index of the workspace instead of walking the workspace.
      * 
      * @param libertyWorkspace
      * @param filePath
@@ -232,13 +235,25 @@ public class LibertyUtils {
         if (libertyWorkspace.getWorkspaceURI() == null) {
             return null;
         }
-        try {
-            Path rootPath = Paths.get(libertyWorkspace.getWorkspaceURI());
-            return findLastModifiedMatchingFileInDirectory(rootPath, filePath);
-        } catch (IOException e) {
-            LOGGER.warning("Could not find: " + filePath.toString() + ": " + e.getMessage());
-            return null;
+        WorkspaceFileIndex fileIndex = libertyWorkspace.getFileIndex();
+        return fileIndex.findLastModifiedFile(fileIndex.getRoot(), filePath);
+    }
+
+    /**
+     * Search the dir path for the most recently edited file that matches the given Path. The file index of the
+     * workspace is used if the dir is in the workspace, otherwise the dir is walked.
+     * 
+     * @param libertyWorkspace
+     * @param dir Path to search under
+     * @param filePath Path to match
+     * @return path to given file or null if could not be found
+     */
+    public static Path findLastModifiedMatchingFileInDirectory(LibertyWorkspace libertyWorkspace, Path dir, Path filePath) throws IOException {
+        WorkspaceFileIndex fileIndex = libertyWorkspace.getFileIndex();
+        if (dir.startsWith(fileIndex.getRoot())) {
+            return fileIndex.findLastModifiedFile(dir, filePath);
         }
+        return findLastModifiedMatchingFileInDirectory(dir, filePath);
     }
 
     /**
@@ -257,7 +272,7 @@ public class LibertyUtils {
 
         try {
             if (libertyWorkspace.getLibertyInstallationDir() != null) {
-                foundFilePath = LibertyUtils.findLastModifiedMatchingFileInDirectory(Paths.get(libertyWorkspace.getLibertyInstallationDir()), filePath);
+                foundFilePath = LibertyUtils.findLastModifiedMatchingFileInDirectory(libertyWorkspace, Paths.get(libertyWorkspace.getLibertyInstallationDir()), filePath);
             } else {
                 foundFilePath = LibertyUtils.findFileInWorkspace(libertyWorkspace, filePath);
             }
@@ -360,6 +375,11 @@ public class LibertyUtils {
                 }
 
                 libertyWorkspace.setLibertyInstalled(!devcOn);
+
+                // generate the schema and feature list of the new installation before they are needed
+                if (!devcOn) {
+                    SchemaGenerationService.getInstance().generateWorkspaceArtifacts(libertyWorkspace);
+                }
             }
 
             return libertyRuntimeInfo;
@@ -401,9 +421,9 @@ public class LibertyUtils {
                 Path libertyInstallDir = Paths.get(installationDirectory);
                 if (libertyInstallDir.toFile().exists()) {
                     try {
-                        props = findLastModifiedMatchingFileInDirectory(libertyInstallDir, Paths.get("WebSphereApplicationServer.properties"));
+                        props = findLastModifiedMatchingFileInDirectory(libertyWorkspace, libertyInstallDir, Paths.get("WebSphereApplicationServer.properties"));
                         if (props == null) {
-                            props = findLastModifiedMatchingFileInDirectory(libertyInstallDir, Paths.get("openliberty.properties"));
+                            props = findLastModifiedMatchingFileInDirectory(libertyWorkspace, libertyInstallDir, Paths.get("openliberty.properties"));
                             if (props == null) {
                                 LOGGER.info("Could not find openliberty.properties file in Liberty installation: " + libertyInstallDir.toString());                            
                             }
@@ -428,6 +448,11 @@ public class LibertyUtils {
     }
 
     public static Path getLibertyPropertiesFileForDevc(LibertyWorkspace libertyWorkspace) {
+        // retrieved with the schema and feature list in one batched container job once it completed, on its own until then
+        File containerProps = ContainerService.getInstance().getContainerPropertiesFile(libertyWorkspace);
+        if (containerProps != null) {
+            return containerProps.toPath();
+        }
         try {
             Path props = getFileFromContainer(libertyWorkspace, ContainerService.DEFAULT_CONTAINER_WLP_PROPERTIES_PATH, true);
             props = props.toFile().exists() ? props : getFileFromContainer(libertyWorkspace, ContainerService.DEFAULT_CONTAINER_OL_PROPERTIES_PATH, true);
@@ -482,10 +507,12 @@ public class LibertyUtils {
     }
 
     /**
-     * Watches the parent directory of the Liberty properties file in a separate
-     * thread or actively watches a liberty-devc-metadata file. If the the contents 
-     * have been modified or deleted, the installation of Liberty has changed and 
-     * the corresponding Liberty Workspace item is updated.
+     * Watches the parent directory of the Liberty properties file or actively
+     * watches a liberty-devc-metadata file, using the shared FileWatchService.
+     * If the the contents have been modified or deleted, the installation of
+     * Liberty has changed and the corresponding Liberty Workspace item is updated.
+     * Replaces the previous watch of the workspace, so repeated calls do not
+     * accumulate watches.
      * 
      * @param watchFile        openliberty.properties or *-liberty-devc.metadata.xml to watch
      * @param libertyWorkspace Liberty Workspace object, updated to indicate if
@@ -493,48 +520,42 @@ public class LibertyUtils {
      */
     public static void watchFiles(Path watchFile, LibertyWorkspace libertyWorkspace) {     
         boolean isProperties = watchFile.endsWith("openliberty.properties"); // if false, watchFile is a metadata file
-        try {
-            WatchService watcher = FileSystems.getDefault().newWatchService();
-            watchFile.getParent().register(watcher, StandardWatchEventKinds.ENTRY_MODIFY);
-            thread = new Thread(() -> {
-                WatchKey watchKey = null;
-                try {
-                    while (true) {
-                        watchKey = watcher.poll(5, TimeUnit.SECONDS);
-                        if (watchKey != null) {
-                            watchKey.pollEvents().stream().forEach(event -> {                                
-                                if (isProperties) {
-                                    // if modified re-calculate version
-                                    LOGGER.info("Liberty properties file (" + watchFile + ") has been modified: "
-                                    + event.context());
-                                    libertyWorkspace.setLibertyInstalled(false);
-                                } else if (((Path)event.context()).toString().endsWith("-liberty-devc-metadata.xml")){
-                                    // watch and execute only on metadata files
-                                    DevcMetadata devcMetadata = LibertyWorkspace.unmarshalDevcMetadataFile(watchFile);
-                                    libertyWorkspace.setContainerAlive(devcMetadata.isContainerAlive());
-                                }
-                            });
-
-                            // if watchkey.reset() returns false indicates that the parent folder has been
-                            // deleted
-                            boolean valid = watchKey.reset();
-                            if (!valid) {
-                                if (isProperties) {
-                                    // if deleted re-calculate version
-                                    LOGGER.info("Liberty properties file (" + watchFile + ") has been deleted");
-                                    libertyWorkspace.setLibertyInstalled(false);
-                                } else {
-                                    // build directory deleted
-                                    libertyWorkspace.setContainerAlive(false);
-                                }
-                            }
-                        }
-                    }
-                } catch (InterruptedException e) {
-                    LOGGER.warning("Unable to watch properties file(s): " + e.getMessage());
+        FileWatchService.Listener listener = new FileWatchService.Listener() {
+            @Override
+            public void onEvent(Path dir, WatchEvent.Kind<?> kind, Path path) {
+                if (kind != StandardWatchEventKinds.ENTRY_MODIFY) {
+                    return;
+                }
+                if (isProperties) {
+                    // if modified re-calculate version
+                    LOGGER.info("Liberty properties file (" + watchFile + ") has been modified: " + path.getFileName());
+                    libertyWorkspace.setLibertyInstalled(false);
+                } else if (path.toString().endsWith("-liberty-devc-metadata.xml")) {
+                    // watch and execute only on metadata files
+                    DevcMetadata devcMetadata = LibertyWorkspace.unmarshalDevcMetadataFile(watchFile);
+                    libertyWorkspace.setContainerAlive(devcMetadata != null && devcMetadata.isContainerAlive());
+                    ContainerService.getInstance().clearContainerArtifacts(libertyWorkspace);
+                    libertyWorkspace.invalidateFeatureList();
+                }
+            }
+
+            @Override
+            public void onInvalid(Path dir) {
+                // the parent folder has been deleted
+                if (isProperties) {
+                    // if deleted re-calculate version
+                    LOGGER.info("Liberty properties file (" + watchFile + ") has been deleted");
+                    libertyWorkspace.setLibertyInstalled(false);
+                } else {
+                    // build directory deleted
+                    libertyWorkspace.setContainerAlive(false);
+                    ContainerService.getInstance().clearContainerArtifacts(libertyWorkspace);
+                    libertyWorkspace.invalidateFeatureList();
                 }
-            });
-            thread.start();
+            }
+        };
+        try {
+            libertyWorkspace.setInstallationWatch(watchFile.getParent(), listener);
         } catch (IOException e) {
             LOGGER.warning("Unable to watch properties file(s): " + e.getMessage());
         }
@@ -573,4 +594,48 @@ public class LibertyUtils {
         }
         return null;
     }
+
+    /**
+     * Returns the local Maven repository, honouring the maven.repo.local system property and the
+     * localRepository of the user (~/.m2/settings.xml) or global ($MAVEN_HOME/conf/settings.xml) settings.
+     * @return local Maven repository directory, which may not exist
+     */
+    public static Path getLocalMavenRepository() {
+        String localRepository = System.getProperty("maven.repo.local");
+        if (localRepository == null || localRepository.isBlank()) {
+            localRepository = getLocalMavenRepository(Paths.get(System.getProperty("user.home"), ".m2", "settings.xml"));
+        }
+        if (localRepository == null) {
+            String mavenHome = System.getenv("MAVEN_HOME") != null ? System.getenv("MAVEN_HOME") : System.getenv("M2_HOME");
+            if (mavenHome != null) {
+                localRepository = getLocalMavenRepository(Paths.get(mavenHome, "conf", "settings.xml"));
+            }
+        }
+        if (localRepository == null) {
+            return Paths.get(System.getProperty("user.home"), ".m2", "repository");
+        }
+        return Paths.get(localRepository);
+    }
+
+    /**
+     * Returns the localRepository configured in the passed Maven settings file, with ${user.home} and
+     * ${env.NAME} expressions expanded, or null if the file does not configure one.
+     * @param settingsFile Maven settings.xml
+     * @return
+     */
+    public static String getLocalMavenRepository(Path settingsFile) {
+        String localRepository = XmlReader.getElementValue(settingsFile, "localRepository");
+        if (localRepository == null || localRepository.isBlank()) {
+            return null;
+        }
+        localRepository = localRepository.trim().replace("${user.home}", System.getProperty("user.home"));
+        Matcher matcher = ENV_EXPRESSION_PATTERN.matcher(localRepository);
+        StringBuffer expanded = new StringBuffer();
+        while (matcher.find()) {
+            String value = System.getenv(matcher.group(1));
+            matcher.appendReplacement(expanded, Matcher.quoteReplacement(value == null ? "" : value));
+        }
+        matcher.appendTail(expanded);
+        return expanded.toString();
+    }
 }
@@ -0,0 +1,135 @@
+/*******************************************************************************
+* Copyright (c) 2024 IBM Corporation and others.
+*
+* This program and the accompanying materials are made available under the
+* terms of the Eclipse Public License v. 2.0 which is available at
+* http://www.eclipse.org/legal/epl-2.0.
+*
+* SPDX-License-Identifier: EPL-2.0
+*
+* Contributors:
+*     IBM Corporation - initial API and implementation
+*******************************************************************************/
+package io.openliberty.tools.langserver.lemminx.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Extracts the regular files of a tar archive (ustar, as written by GNU tar and busybox tar) into a directory.
+ * Only the file names of the entries are used, so the files are written directly in the directory.
+ */
+public class TarExtractor {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_OFFSET = 0;
+    private static final int NAME_LENGTH = 100;
+    private static final int SIZE_OFFSET = 124;
+    private static final int SIZE_LENGTH = 12;
+    private static final int TYPE_OFFSET = 156;
+    private static final int MAGIC_OFFSET = 257;
+    private static final int PREFIX_OFFSET = 345;
+    private static final int PREFIX_LENGTH = 155;
+
+    private TarExtractor() {
+    }
+
+    /**
+     * @param is the tar archive
+     * @param dir directory the files are written to
+     * @return the extracted files
+     * @throws IOException if the archive is not valid or a file cannot be written
+     */
+    public static List<Path> extract(InputStream is, Path dir) throws IOException {
+        List<Path> files = new ArrayList<Path>();
+        byte[] header = new byte[BLOCK_SIZE];
+        while (readBlock(is, header)) {
+            if (isZeroBlock(header)) {
+                // end of archive
+                break;
+            }
+            String name = getString(header, NAME_OFFSET, NAME_LENGTH);
+            if (getString(header, MAGIC_OFFSET, 5).equals("ustar")) {
+                String prefix = getString(header, PREFIX_OFFSET, PREFIX_LENGTH);
+                if (!prefix.isEmpty()) {
+                    name = prefix + "/" + name;
+                }
+            }
+            long size = getSize(header);
+            char type = (char) header[TYPE_OFFSET];
+            Path fileName = Paths.get(name).getFileName();
+            // other entries, like directories, links and pax headers, are skipped
+            if ((type == '0' || type == '\0') && fileName != null && !fileName.toString().equals("..")) {
+                Path file = dir.resolve(fileName.toString());
+                try (OutputStream os = Files.newOutputStream(file)) {
+                    copy(is, os, size);
+                }
+                files.add(file);
+            } else {
+                copy(is, OutputStream.nullOutputStream(), size);
+            }
+            // entries are padded to a full block
+            long padding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+            copy(is, OutputStream.nullOutputStream(), padding);
+        }
+        return files;
+    }
+
+    private static boolean readBlock(InputStream is, byte[] block) throws IOException {
+        int read = is.readNBytes(block, 0, BLOCK_SIZE);
+        if (read == 0) {
+            return false;
+        }
+        if (read < BLOCK_SIZE) {
+            throw new EOFException("Truncated tar archive");
+        }
+        return true;
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getString(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    private static long getSize(byte[] header) throws IOException {
+        String size = getString(header, SIZE_OFFSET, SIZE_LENGTH).trim();
+        try {
+            return size.isEmpty() ? 0 : Long.parseLong(size, 8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid tar entry size: " + size);
+        }
+    }
+
+    private static void copy(InputStream is, OutputStream os, long size) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = size;
+        while (remaining > 0) {
+            int read = is.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read == -1) {
+                throw new EOFException("Truncated tar archive");
+            }
+            os.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+}
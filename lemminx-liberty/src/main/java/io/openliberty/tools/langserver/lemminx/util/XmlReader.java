@@ -13,9 +13,12 @@
 
 package io.openliberty.tools.langserver.lemminx.util;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -23,6 +26,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.xml.XMLConstants;
@@ -35,6 +39,27 @@ import javax.xml.stream.events.XMLEvent;
 public class XmlReader {
     private static final Logger LOGGER = Logger.getLogger(XmlReader.class.getName());
 
+    // the cache is cleared when it reaches this number of files, rather than tracking the least recently used ones
+    private static final int SERVER_ROOT_CACHE_MAX_SIZE = 10000;
+
+    // number of bytes read to look for the root element before parsing the whole file
+    private static final int SERVER_ROOT_SNIFF_SIZE = 4096;
+
+    // absolute path -> whether the file has a <server> root element, as of the recorded last modified time and size
+    private static final Map<String, ServerRootEntry> serverRootCache = new ConcurrentHashMap<String, ServerRootEntry>();
+
+    private static class ServerRootEntry {
+        private final long lastModified;
+        private final long length;
+        private final boolean hasServerRoot;
+
+        private ServerRootEntry(long lastModified, long length, boolean hasServerRoot) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.hasServerRoot = hasServerRoot;
+        }
+    }
+
     public static boolean hasServerRoot(String filePath) {
         File file = null;
         
@@ -51,35 +76,62 @@ public class XmlReader {
         return hasServerRoot(filePath.toFile());
     }
 
+    /*
+     * The result is cached by path, last modified time and size, so the file is only read again when it changes.
+     */
     private static boolean hasServerRoot(File xmlFile) {
-        if (!xmlFile.exists() || xmlFile.length() == 0) {
+        long length = xmlFile.length();
+        if (length == 0) {
+            // also returned by File.length for a file that does not exist
             return false;
         }
-        
+        long lastModified = xmlFile.lastModified();
+        String key = xmlFile.getAbsolutePath();
+        ServerRootEntry entry = serverRootCache.get(key);
+        if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+            return entry.hasServerRoot;
+        }
+
+        boolean hasServerRoot = false;
         try {
             XMLInputFactory factory = getXmlInputFactory();
-            return hasSeverRootValues(factory,xmlFile);
+            hasServerRoot = hasSeverRootValues(factory,xmlFile);
         } catch (Exception e) {
             LOGGER.severe("Unable to access XML file "+ xmlFile.getAbsolutePath());
         }
 
-        return false;
+        if (serverRootCache.size() >= SERVER_ROOT_CACHE_MAX_SIZE) {
+            serverRootCache.clear();
+        }
+        serverRootCache.put(key, new ServerRootEntry(lastModified, length, hasServerRoot));
+        return hasServerRoot;
     }
 
     private static boolean hasSeverRootValues(XMLInputFactory factory, File xmlFile) {
-        XMLEventReader reader=null;
+        // the root element is nearly always in the first few KB, so only those are read first
+        byte[] prefix;
+        boolean wholeFile;
+        try (InputStream is = new FileInputStream(xmlFile)) {
+            prefix = is.readNBytes(SERVER_ROOT_SNIFF_SIZE);
+            wholeFile = is.read() == -1;
+        } catch (IOException e) {
+            LOGGER.severe("Error received trying to read XML file: " + xmlFile.getAbsolutePath());
+            return false;
+        }
+        Boolean isServerRoot = findServerRoot(factory, new ByteArrayInputStream(prefix));
+        if (isServerRoot != null) {
+            return isServerRoot;
+        }
+        if (wholeFile) {
+            return false;
+        }
+
+        // long prolog, or the prefix ends in the middle of the root element
         FileInputStream fis = null;
         try {
             fis = new FileInputStream(xmlFile);
-
-            reader = factory.createXMLEventReader(fis);
-            while (reader.hasNext()) {
-                XMLEvent nextEvent = reader.nextEvent();
-                if (nextEvent.isStartElement()) {
-                    return isServerElement(nextEvent);
-                }
-            }
-        } catch (XMLStreamException | FileNotFoundException e) {
+            isServerRoot = findServerRoot(factory, fis);
+        } catch (FileNotFoundException e) {
             LOGGER.severe("Error received trying to read XML file: " + xmlFile.getAbsolutePath());
         } finally {
             if (fis != null) {
@@ -88,6 +140,30 @@ public class XmlReader {
                 } catch (Exception ignored) {
                 }
             }
+        }
+        if (isServerRoot == null) {
+            LOGGER.severe("Error received trying to read XML file: " + xmlFile.getAbsolutePath());
+            return false;
+        }
+        return isServerRoot;
+    }
+
+    /*
+     * Returns whether the root element is <server>, or null if no root element could be read.
+     */
+    private static Boolean findServerRoot(XMLInputFactory factory, InputStream is) {
+        XMLEventReader reader = null;
+        try {
+            reader = factory.createXMLEventReader(is);
+            while (reader.hasNext()) {
+                XMLEvent nextEvent = reader.nextEvent();
+                if (nextEvent.isStartElement()) {
+                    return isServerElement(nextEvent);
+                }
+            }
+        } catch (XMLStreamException e) {
+            // not well-formed, or truncated before the root element
+        } finally {
             if (reader != null) {
                 try {
                     reader.close();
@@ -95,10 +171,10 @@ public class XmlReader {
                 }
             }
         }
-        return false;
+        return null;
     }
 
-    private static XMLInputFactory getXmlInputFactory() {
+    static XMLInputFactory getXmlInputFactory() {
         XMLInputFactory factory = XMLInputFactory.newInstance();
         try {
             factory.setProperty(XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
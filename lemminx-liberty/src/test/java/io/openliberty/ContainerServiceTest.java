@@ -0,0 +1,107 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.services.ContainerService;
+import io.openliberty.tools.langserver.lemminx.services.GeneratedArtifactCache;
+import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+
+public class ContainerServiceTest {
+
+    @Test
+    public void testContainerArtifactsRetrievedInOneExec(@TempDir Path tempDir) throws Exception {
+        // the fake container CLI is a shell script
+        assumeTrue(File.separator.equals("/"));
+        // files the batched job of a container would produce
+        Path containerFiles = Files.createDirectories(tempDir.resolve("container-files"));
+        Files.writeString(containerFiles.resolve(ContainerService.CONTAINER_PROPERTIES_ARTIFACT),
+                "com.ibm.websphere.productId=io.openliberty\ncom.ibm.websphere.productVersion=24.0.0.10\n");
+        Files.writeString(containerFiles.resolve(ContainerService.CONTAINER_SCHEMA_ARTIFACT), "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\"/>");
+        Files.writeString(containerFiles.resolve(ContainerService.CONTAINER_FEATURE_LIST_ARTIFACT), "<featureInfo/>");
+        // each invocation is logged, inspect writes the image ID, and exec writes a tar of the container files for the
+        // batched job or the properties file. Every command fails while the failure file exists, and the batched job
+        // waits while the block file exists.
+        Path invocations = tempDir.resolve("invocations.log");
+        Path failure = tempDir.resolve("failure");
+        Path block = Files.createFile(tempDir.resolve("block"));
+        Path docker = tempDir.resolve("docker");
+        Files.writeString(docker, "#!/bin/sh\n"
+                + "if [ \"$1\" = exec ]; then case \"$5\" in *tar*) echo job >> " + invocations + ";; *) echo properties >> " + invocations + ";; esac;"
+                + " else echo \"$1\" >> " + invocations + "; fi\n"
+                + "if [ -f " + failure + " ]; then exit 1; fi\n"
+                + "if [ \"$1\" = inspect ]; then echo sha256:0123456789abcdef; fi\n"
+                + "if [ \"$1\" = exec ]; then case \"$5\" in *tar*) while [ -f " + block + " ]; do sleep 0.1; done; tar -cf - -C " + containerFiles + " .;;"
+                + " *) cat " + containerFiles.resolve(ContainerService.CONTAINER_PROPERTIES_ARTIFACT) + ";; esac; fi\n");
+        docker.toFile().setExecutable(true);
+
+        Path workspaceDir = Files.createDirectories(tempDir.resolve("workspace"));
+        LibertyWorkspace libertyWorkspace = new LibertyWorkspace(workspaceDir.toUri().toString());
+        libertyWorkspace.setContainerType(docker.toString());
+        libertyWorkspace.setContainerName("liberty-dev");
+        libertyWorkspace.setContainerAlive(true);
+        ContainerService container = ContainerService.getInstance();
+        GeneratedArtifactCache.getInstance().setCacheDirectory(tempDir.resolve("cache"));
+        try {
+            Path props = LibertyUtils.getLibertyPropertiesFileForDevc(libertyWorkspace);
+            assertEquals(Files.readString(containerFiles.resolve(ContainerService.CONTAINER_PROPERTIES_ARTIFACT)), Files.readString(props));
+            libertyWorkspace.setLibertyRuntime("ol");
+            libertyWorkspace.setLibertyVersion("24.0.0.10");
+            // the cached schema and default feature list are used while the batched job runs
+            assertNull(container.generateServerSchemaXsdFromContainer(libertyWorkspace));
+            assertNull(container.generateFeatureListFromContainer(libertyWorkspace));
+            Files.delete(block);
+            assertTrue(container.awaitContainerArtifacts(libertyWorkspace, 30, TimeUnit.SECONDS));
+            String schemaUri = container.generateServerSchemaXsdFromContainer(libertyWorkspace);
+            assertTrue(schemaUri.endsWith("/.libertyls/ol-24.0.0.10.xsd"));
+            File featureListFile = container.generateFeatureListFromContainer(libertyWorkspace);
+            assertEquals("<featureInfo/>", Files.readString(featureListFile.toPath()));
+
+            // the properties file was retrieved without waiting for the batched job, the schema and feature list
+            // were retrieved with one exec, and no copies
+            List<String> commands = Files.readAllLines(invocations);
+            Collections.sort(commands);
+            assertEquals(Arrays.asList("inspect", "job", "properties"), commands);
+
+            // once the job completed, its properties file is used
+            assertEquals(workspaceDir.resolve(".libertyls/container/" + ContainerService.CONTAINER_PROPERTIES_ARTIFACT).toFile(),
+                    container.getContainerPropertiesFile(libertyWorkspace));
+            assertEquals(3, Files.readAllLines(invocations).size());
+
+            // a new container of the same image, or a restart, uses the files cached for the image
+            container.clearContainerArtifacts(libertyWorkspace);
+            Files.delete(workspaceDir.resolve(".libertyls/container/" + ContainerService.CONTAINER_SCHEMA_ARTIFACT));
+            assertTrue(container.awaitContainerArtifacts(libertyWorkspace, 30, TimeUnit.SECONDS));
+            assertTrue(container.getContainerArtifact(libertyWorkspace, ContainerService.CONTAINER_SCHEMA_ARTIFACT).exists());
+            assertEquals(Arrays.asList("inspect"), Files.readAllLines(invocations).subList(3, 4));
+
+            // a failed job is run again by the next request
+            container.clearContainerArtifacts(libertyWorkspace);
+            Files.writeString(failure, "");
+            assertFalse(container.awaitContainerArtifacts(libertyWorkspace, 30, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList("inspect", "job"), Files.readAllLines(invocations).subList(4, 6));
+            Files.delete(failure);
+            assertTrue(container.awaitContainerArtifacts(libertyWorkspace, 30, TimeUnit.SECONDS));
+            assertTrue(container.getContainerArtifact(libertyWorkspace, ContainerService.CONTAINER_SCHEMA_ARTIFACT).exists());
+            assertEquals(Arrays.asList("inspect"), Files.readAllLines(invocations).subList(6, 7));
+        } finally {
+            container.clearContainerArtifacts(libertyWorkspace);
+            GeneratedArtifactCache.getInstance().setCacheDirectory(null);
+        }
+    }
+}
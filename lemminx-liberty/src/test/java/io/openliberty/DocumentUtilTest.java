@@ -1,12 +1,18 @@
 package io.openliberty;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
@@ -43,6 +49,32 @@ public class DocumentUtilTest {
 
     }
 
+    @Test
+    public void removeAnyAttributesPreservesFormatting(@TempDir Path tempDir) throws Exception {
+        Path sampleXsd = Files.copy(Paths.get("src/test/resources/sample.xsd"), tempDir.resolve("sample.xsd"));
+        String original = Files.readString(sampleXsd);
+
+        DocumentUtil.removeExtraneousAnyAttributeElements(sampleXsd.toFile());
+
+        Document doc = DocumentUtil.getDocument(sampleXsd.toFile());
+        List<Element> anyAttr = DocumentUtil.getElementsByName(doc, "anyAttribute");
+        assertEquals(1, anyAttr.size());
+        // the anyAttribute element of the complexType with an extraProperties element is kept
+        assertEquals("com.ibm.ws.security.authentication.tai.interceptor.properties", ((Element) anyAttr.get(0).getParentNode()).getAttribute("name"));
+
+        // the rest of the schema is unchanged, including comments and indentation
+        String processed = Files.readString(sampleXsd);
+        assertTrue(processed.contains("<!--Idiom for \"empty element context\" (whitespace accepted and ignored)-->"));
+        assertEquals(original.lines().count() - 4, processed.lines().count());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count(), "Temporary file was not removed");
+        }
+
+        // a processed schema is left as is
+        DocumentUtil.removeExtraneousAnyAttributeElements(sampleXsd.toFile());
+        assertEquals(processed, Files.readString(sampleXsd));
+    }
+
     //@Test
     public void updateCachedSchema() throws Exception {
         // When uploading a new server schema, put a copy of the schema file in src/test/resources and uncomment this
@@ -0,0 +1,228 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+import io.openliberty.tools.langserver.lemminx.data.FeatureCatalog;
+import io.openliberty.tools.langserver.lemminx.services.FeatureJsonCache;
+import io.openliberty.tools.langserver.lemminx.services.FeatureResolverMetrics;
+import io.openliberty.tools.langserver.lemminx.services.FeatureService;
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+
+public class FeatureDownloadTest {
+
+    static String featuresJson = "["
+            + "{\"name\":\"io.openliberty.servlet-6.0\",\"wlpInformation\":{\"shortName\":\"servlet-6.0\",\"visibility\":\"PUBLIC\",\"platforms\":[\"jakartaee-10.0\"]}},"
+            + "{\"name\":\"io.openliberty.jsonb-3.0\",\"wlpInformation\":{\"shortName\":\"jsonb-3.0\",\"visibility\":\"PUBLIC\",\"platforms\":[\"jakartaee-10.0\"]}},"
+            + "{\"name\":\"io.openliberty.servlet.internal-6.0\",\"wlpInformation\":{\"shortName\":\"servletInternal-6.0\",\"visibility\":\"PRIVATE\"}}"
+            + "]";
+
+    static String serverXMLURI = new File("src/test/resources/empty_server.xml").toURI().toString();
+
+    static String eTag = "\"v1\"";
+
+    @TempDir
+    Path cacheDir;
+
+    HttpServer server;
+    String endpoint;
+    volatile long responseDelay;
+    AtomicInteger requestCount = new AtomicInteger();
+    volatile String lastIfNoneMatch;
+
+    // Serves the features json for any version after waiting responseDelay milliseconds, except for version 0.0.0.0 which returns a 404.
+    // Requests matching the current ETag get a 304.
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ol/", exchange -> {
+            requestCount.incrementAndGet();
+            lastIfNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            try {
+                Thread.sleep(responseDelay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = featuresJson.getBytes(StandardCharsets.UTF_8);
+            if (exchange.getRequestURI().getPath().contains("0.0.0.0")) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (eTag.equals(lastIfNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                exchange.getResponseHeaders().add("ETag", eTag);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        endpoint = "http://localhost:" + server.getAddress().getPort() + "/ol/%1$s/features-%1$s.json";
+        FeatureService.setFeatureEndpoints(endpoint, endpoint);
+        FeatureService.getInstance().setFeatureCacheDirectory(cacheDir.resolve("cache"));
+        FeatureService.getInstance().setLocalMavenRepository(cacheDir.resolve("m2"));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        FeatureService.setFeatureEndpoints(null, null);
+        FeatureService.getInstance().setFeatureCacheDirectory(null);
+        FeatureService.getInstance().setLocalMavenRepository(null);
+        server.stop(0);
+    }
+
+    @Test
+    public void slowDownloadDoesNotBlockTest() throws Exception {
+        FeatureService fs = FeatureService.getInstance();
+        responseDelay = 2000;
+
+        long start = System.currentTimeMillis();
+        FeatureCatalog catalog = fs.getFeatureCatalog("98.0.0.1", "ol", 0, serverXMLURI);
+        assertTrue(System.currentTimeMillis() - start < responseDelay, "catalog lookup waited for the download");
+        assertFalse(catalog.containsFeature("jsonb-3.0"));
+
+        CompletableFuture<FeatureCatalog> download = fs.getPendingDownload("98.0.0.1", "ol");
+        assertNotNull(download);
+        // another request while the download is in progress does not start a second one
+        fs.getFeatureCatalog("98.0.0.1", "ol", 0, serverXMLURI);
+        assertSame(download, fs.getPendingDownload("98.0.0.1", "ol"));
+
+        FeatureCatalog downloaded = download.get(10, TimeUnit.SECONDS);
+        assertNotNull(downloaded);
+        // only the public features are kept
+        assertEquals(2, downloaded.size());
+        assertTrue(downloaded.containsFeature("jsonb-3.0"));
+
+        // the downloaded catalog is used from now on
+        assertSame(downloaded, fs.getFeatureCatalog("98.0.0.1", "ol", 0, serverXMLURI));
+        assertNull(fs.getPendingDownload("98.0.0.1", "ol"));
+
+        // the raw json, the public features and the ETag are persisted
+        FeatureJsonCache cache = new FeatureJsonCache();
+        cache.setCacheDirectory(cacheDir.resolve("cache"));
+        String versionEndpoint = String.format(endpoint, "98.0.0.1");
+        assertTrue(cache.isCached(versionEndpoint));
+        assertEquals(featuresJson, Files.readString(cache.getFeaturesFile(versionEndpoint)));
+        assertEquals(eTag, cache.getETag(versionEndpoint));
+    }
+
+    @Test
+    public void cachedReleasedVersionIsNotRefetchedTest() throws Exception {
+        FeatureService fs = FeatureService.getInstance();
+        storeFeatures("97.0.0.1", eTag);
+
+        FeatureCatalog catalog = fs.getFeatureCatalog("97.0.0.1", "ol", 0, serverXMLURI);
+        assertTrue(catalog.containsFeature("jsonb-3.0"));
+        assertNull(fs.getPendingDownload("97.0.0.1", "ol"));
+        assertEquals(0, requestCount.get());
+    }
+
+    @Test
+    public void cachedUnreleasedVersionIsRevalidatedTest() throws Exception {
+        FeatureService fs = FeatureService.getInstance();
+        storeFeatures("97.0.0.2-SNAPSHOT", eTag);
+
+        // the cached catalog is returned right away and revalidated in the background
+        FeatureCatalog catalog = fs.getFeatureCatalog("97.0.0.2-SNAPSHOT", "ol", 0, serverXMLURI);
+        assertTrue(catalog.containsFeature("jsonb-3.0"));
+        CompletableFuture<FeatureCatalog> download = fs.getPendingDownload("97.0.0.2-SNAPSHOT", "ol");
+        if (download != null) {
+            download.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(1, requestCount.get());
+        assertEquals(eTag, lastIfNoneMatch);
+        assertTrue(fs.getFeatureCatalog("97.0.0.2-SNAPSHOT", "ol", 0, serverXMLURI).containsFeature("jsonb-3.0"));
+    }
+
+    @Test
+    public void localRepositoryIsUsedFirstTest() throws Exception {
+        FeatureService fs = FeatureService.getInstance();
+        Path featuresFile = cacheDir.resolve("m2/io/openliberty/features/features/96.0.0.1/features-96.0.0.1.json");
+        Files.createDirectories(featuresFile.getParent());
+        Files.writeString(featuresFile, featuresJson);
+        long localHits = fs.getResolverMetrics().getHits(FeatureResolverMetrics.Step.LOCAL_REPOSITORY);
+        long remoteAttempts = fs.getResolverMetrics().getAttempts(FeatureResolverMetrics.Step.REMOTE);
+
+        FeatureCatalog catalog = fs.getFeatureCatalog("96.0.0.1", "ol", 0, serverXMLURI);
+        assertEquals(2, catalog.size());
+        assertNull(fs.getPendingDownload("96.0.0.1", "ol"));
+        assertEquals(0, requestCount.get());
+        assertEquals(localHits + 1, fs.getResolverMetrics().getHits(FeatureResolverMetrics.Step.LOCAL_REPOSITORY));
+        assertEquals(remoteAttempts, fs.getResolverMetrics().getAttempts(FeatureResolverMetrics.Step.REMOTE));
+    }
+
+    @Test
+    public void localMavenRepositorySettingsTest() throws Exception {
+        Path settings = cacheDir.resolve("settings.xml");
+        Files.writeString(settings, String.join(System.lineSeparator(),
+                "<settings xmlns=\"http://maven.apache.org/SETTINGS/1.0.0\">",
+                "  <localRepository>${user.home}/custom-repository</localRepository>",
+                "</settings>"));
+        assertEquals(System.getProperty("user.home") + "/custom-repository", LibertyUtils.getLocalMavenRepository(settings));
+
+        Files.writeString(settings, "<settings xmlns=\"http://maven.apache.org/SETTINGS/1.0.0\"></settings>");
+        assertNull(LibertyUtils.getLocalMavenRepository(settings));
+        assertNull(LibertyUtils.getLocalMavenRepository(cacheDir.resolve("missing.xml")));
+    }
+
+    private void storeFeatures(String libertyVersion, String eTag) throws IOException {
+        FeatureJsonCache cache = new FeatureJsonCache();
+        cache.setCacheDirectory(cacheDir.resolve("cache"));
+        String publicFeatures = featuresJson.substring(0, featuresJson.lastIndexOf(",{")) + "]";
+        cache.store(String.format(endpoint, libertyVersion), featuresJson.getBytes(StandardCharsets.UTF_8), publicFeatures, eTag, null);
+    }
+
+    @Test
+    public void failedDownloadFallsBackTest() throws Exception {
+        FeatureService fs = FeatureService.getInstance();
+        // slow enough for the download to still be pending once the catalog is returned
+        responseDelay = 1000;
+
+        FeatureCatalog catalog = fs.getFeatureCatalog("0.0.0.0", "ol", 0, serverXMLURI);
+        CompletableFuture<FeatureCatalog> download = fs.getPendingDownload("0.0.0.0", "ol");
+        assertNotNull(download);
+        assertNull(download.get(10, TimeUnit.SECONDS));
+        assertSame(catalog, fs.getFeatureCatalog("0.0.0.0", "ol", 0, serverXMLURI));
+        assertNotSame(FeatureCatalog.EMPTY, catalog);
+    }
+
+    @Test
+    public void requestDelayIsPerVersionTest() throws Exception {
+        FeatureService fs = FeatureService.getInstance();
+        responseDelay = 1000;
+
+        fs.getFeatureCatalog("95.0.0.1", "ol", 60, serverXMLURI);
+        CompletableFuture<FeatureCatalog> download = fs.getPendingDownload("95.0.0.1", "ol");
+        assertNotNull(download);
+        // the download of another version is not delayed by the download of the first one
+        fs.getFeatureCatalog("95.0.0.2", "ol", 60, serverXMLURI);
+        CompletableFuture<FeatureCatalog> otherDownload = fs.getPendingDownload("95.0.0.2", "ol");
+        assertNotNull(otherDownload);
+        assertNotNull(download.get(10, TimeUnit.SECONDS));
+        assertNotNull(otherDownload.get(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,84 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.services.GeneratedArtifactCache;
+import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
+import io.openliberty.tools.langserver.lemminx.services.SchemaGenerationService;
+
+public class GeneratedArtifactCacheTest {
+
+    @Test
+    public void testGeneratedArtifactCacheSharedAcrossWorkspaces(@TempDir Path tempDir) throws Exception {
+        Path installDir = tempDir.resolve("wlp");
+        Path schemaGenJar = Files.writeString(Files.createDirectories(installDir.resolve("bin/tools")).resolve("ws-schemagen.jar"), "not a jar");
+        Path featureManifest = Files.writeString(Files.createDirectories(installDir.resolve("lib/features")).resolve("servlet-6.0.mf"), "Manifest-Version: 1.0");
+        GeneratedArtifactCache artifactCache = GeneratedArtifactCache.getInstance();
+        artifactCache.setCacheDirectory(tempDir.resolve("cache"));
+        try {
+            assertEquals(installDir, GeneratedArtifactCache.getInstallationDir(schemaGenJar));
+            String fingerprint = artifactCache.getFingerprint(installDir);
+            assertEquals(fingerprint, artifactCache.getFingerprint(installDir));
+
+            // a schema generated for one workspace is used by another workspace without running ws-schemagen.jar
+            Path generatedSchema = Files.writeString(tempDir.resolve("generated.xsd"), "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\"/>");
+            artifactCache.store("ol", "24.0.0.10", fingerprint, GeneratedArtifactCache.SERVER_SCHEMA, generatedSchema.toFile());
+            Path workspaceDir = Files.createDirectories(tempDir.resolve("workspace"));
+            LibertyWorkspace libertyWorkspace = new LibertyWorkspace(workspaceDir.toUri().toString());
+            libertyWorkspace.setLibertyRuntime("ol");
+            libertyWorkspace.setLibertyVersion("24.0.0.10");
+            File xsdFile = Files.createDirectories(workspaceDir.resolve(".libertyls")).resolve("ol-24.0.0.10.xsd").toFile();
+            CompletableFuture<File> schema = SchemaGenerationService.getInstance().getServerSchemaXsd(libertyWorkspace, schemaGenJar, xsdFile);
+            assertEquals(xsdFile, schema.getNow(null));
+            assertEquals(Files.readString(generatedSchema), Files.readString(xsdFile.toPath()));
+
+            // installing a feature changes the fingerprint
+            Files.writeString(featureManifest.resolveSibling("jsonp-2.1.mf"), "Manifest-Version: 1.0");
+            String newFingerprint = artifactCache.getFingerprint(installDir);
+            assertFalse(fingerprint.equals(newFingerprint));
+            assertNull(artifactCache.get("ol", "24.0.0.10", newFingerprint, GeneratedArtifactCache.SERVER_SCHEMA));
+        } finally {
+            artifactCache.setCacheDirectory(null);
+        }
+    }
+
+    @Test
+    public void testGeneratedArtifactCacheEvictsLeastRecentlyUsed(@TempDir Path tempDir) throws Exception {
+        Path generatedSchema = Files.writeString(tempDir.resolve("generated.xsd"), "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\"/>");
+        GeneratedArtifactCache artifactCache = GeneratedArtifactCache.getInstance();
+        artifactCache.setCacheDirectory(tempDir.resolve("cache"));
+        try {
+            for (int i = 1; i <= 3; i++) {
+                artifactCache.store("ol", "24.0.0.10", "fingerprint" + i, GeneratedArtifactCache.SERVER_SCHEMA, generatedSchema.toFile());
+                Files.setLastModifiedTime(tempDir.resolve("cache/ol-24.0.0.10/fingerprint" + i), FileTime.fromMillis(i * 1000L));
+            }
+            artifactCache.store("ol", "24.0.0.11", "fingerprint4", GeneratedArtifactCache.SERVER_SCHEMA, generatedSchema.toFile());
+            // using an entry keeps it
+            assertTrue(artifactCache.copyTo("ol", "24.0.0.10", "fingerprint1", GeneratedArtifactCache.SERVER_SCHEMA, tempDir.resolve("server.xsd").toFile()));
+
+            // the least recently used entry of the version is evicted, the entries of other versions are not
+            artifactCache.store("ol", "24.0.0.10", "fingerprint5", GeneratedArtifactCache.SERVER_SCHEMA, generatedSchema.toFile());
+            assertNull(artifactCache.get("ol", "24.0.0.10", "fingerprint2", GeneratedArtifactCache.SERVER_SCHEMA));
+            assertFalse(Files.exists(tempDir.resolve("cache/ol-24.0.0.10/fingerprint2")));
+            for (String fingerprint : Arrays.asList("fingerprint1", "fingerprint3", "fingerprint5")) {
+                assertTrue(artifactCache.get("ol", "24.0.0.10", fingerprint, GeneratedArtifactCache.SERVER_SCHEMA) != null);
+            }
+            assertTrue(artifactCache.get("ol", "24.0.0.11", "fingerprint4", GeneratedArtifactCache.SERVER_SCHEMA) != null);
+        } finally {
+            artifactCache.setCacheDirectory(null);
+        }
+    }
+}
@@ -2,6 +2,12 @@ package io.openliberty;
 
 import org.eclipse.lemminx.XMLAssert;
 import org.eclipse.lemminx.commons.BadLocationException;
+import org.eclipse.lemminx.commons.TextDocument;
+import org.eclipse.lemminx.dom.DOMDocument;
+import org.eclipse.lemminx.dom.DOMParser;
+import org.eclipse.lemminx.extensions.contentmodel.settings.XMLValidationSettings;
+import org.eclipse.lemminx.services.IXMLDocumentProvider;
+import org.eclipse.lemminx.services.XMLLanguageService;
 import org.eclipse.lsp4j.CodeAction;
 import org.eclipse.lsp4j.Diagnostic;
 import org.eclipse.lsp4j.TextDocumentEdit;
@@ -11,27 +17,39 @@ import org.eclipse.lsp4j.WorkspaceFolder;
 import org.eclipse.lsp4j.jsonrpc.messages.Either;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import io.openliberty.tools.langserver.lemminx.LibertyDiagnosticParticipant;
 import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
 import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
+import io.openliberty.tools.langserver.lemminx.services.GeneratedArtifactCache;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
-import jakarta.xml.bind.JAXBException;
+import io.openliberty.tools.langserver.lemminx.services.SchemaGenerationService;
+import io.openliberty.tools.langserver.lemminx.services.StartupService;
+import javax.xml.stream.XMLStreamException;
 
 import static org.eclipse.lemminx.XMLAssert.r;
 import static org.eclipse.lemminx.XMLAssert.ca;
 import static org.eclipse.lemminx.XMLAssert.te;
 import static org.eclipse.lemminx.XMLAssert.tde;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 public class LibertyDiagnosticTest {
 
@@ -304,7 +322,7 @@ public class LibertyDiagnosticTest {
     }
 
     @Test
-    public void testConfigElementMissingFeatureManager() throws JAXBException {
+    public void testConfigElementMissingFeatureManager() throws XMLStreamException {
         assertTrue(featureList.exists());
         FeatureService.getInstance().readFeaturesFromFeatureListFile(new ArrayList<Feature>(), libWorkspace, featureList);
 
@@ -320,7 +338,7 @@ public class LibertyDiagnosticTest {
     }
 
     @Test
-    public void testConfigElementMissingFeatureUsingCachedFeaturelist() throws JAXBException, BadLocationException {
+    public void testConfigElementMissingFeatureUsingCachedFeaturelist() throws XMLStreamException, BadLocationException {
         LibertyWorkspace ws = libPM.getWorkspaceFolder(sampleserverXMLURI);
         ws.setFeatureListGraph(new FeatureListGraph()); // need to clear out the already loaded featureList from other test methods
         FeatureService.getInstance().getDefaultFeatureList();
@@ -376,7 +394,7 @@ public class LibertyDiagnosticTest {
 
 
     @Test
-    public void testConfigElementDirect() throws JAXBException {
+    public void testConfigElementDirect() throws XMLStreamException {
         assertTrue(featureList.exists());
         FeatureService.getInstance().readFeaturesFromFeatureListFile(new ArrayList<Feature>(), libWorkspace, featureList);
 
@@ -414,7 +432,7 @@ public class LibertyDiagnosticTest {
     }
 
     @Test
-    public void testConfigElementTransitive() throws JAXBException {
+    public void testConfigElementTransitive() throws XMLStreamException {
         assertTrue(featureList.exists());
         FeatureService.getInstance().readFeaturesFromFeatureListFile(new ArrayList<Feature>(), libWorkspace, featureList);
         String serverXML1 = String.join(newLine,
@@ -667,7 +685,7 @@ public class LibertyDiagnosticTest {
     }
 
     @Test
-    public void testConfigElementVersionLess() throws JAXBException {
+    public void testConfigElementVersionLess() throws XMLStreamException {
         assertTrue(featureList.exists());
         FeatureService.getInstance().readFeaturesFromFeatureListFile(new ArrayList<Feature>(), libWorkspace, featureList);
         String serverXML1 = String.join(newLine,
@@ -866,4 +884,114 @@ public class LibertyDiagnosticTest {
                 codeActions.get(13), codeActions.get(14),
                 codeActions.get(15));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRevalidationUsesGeneratedSchema(@TempDir Path tempDir) throws Exception {
+        Path workspaceDir = Files.createDirectories(tempDir.resolve("workspace"));
+        String serverXML = "<server/>";
+        String serverXmlURI = LibertyWorkspaceTest.createXml(workspaceDir.resolve("src/main/liberty/config/server.xml"), serverXML).toUri().toString();
+        Path installDir = workspaceDir.resolve("target/liberty/wlp");
+        Files.writeString(Files.createDirectories(installDir.resolve("lib/versions")).resolve("openliberty.properties"),
+                "com.ibm.websphere.productId=io.openliberty\ncom.ibm.websphere.productVersion=24.0.0.92\n");
+        // ws-schemagen.jar writes a schema requiring an attribute on the server element once the release file exists
+        Path release = tempDir.resolve("release");
+        Path toolJar = LibertyToolRunnerTest.toolJar(Files.createDirectories(tempDir.resolve("tool")), "SchemaGen",
+                "while (!java.nio.file.Files.exists(java.nio.file.Paths.get(\"" + release + "\"))) { Thread.sleep(50); }"
+                + " java.nio.file.Files.writeString(java.nio.file.Paths.get(args[2]), \"<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'>"
+                + "<xsd:element name='server'><xsd:complexType><xsd:attribute name='generatedOnly' use='required'/></xsd:complexType></xsd:element>"
+                + "</xsd:schema>\");");
+        Files.copy(toolJar, Files.createDirectories(installDir.resolve("bin/tools")).resolve("ws-schemagen.jar"));
+
+        GeneratedArtifactCache artifactCache = GeneratedArtifactCache.getInstance();
+        artifactCache.setCacheDirectory(tempDir.resolve("cache"));
+        libPM.setWorkspaceFolders(Collections.singletonList(new WorkspaceFolder(workspaceDir.toUri().toString())));
+
+        XMLLanguageService languageService = new XMLLanguageService();
+        DOMDocument document = DOMParser.getInstance().parse(new TextDocument(serverXML, serverXmlURI),
+                languageService.getResolverExtensionManager());
+        List<List<Diagnostic>> published = new CopyOnWriteArrayList<List<Diagnostic>>();
+        languageService.setDocumentProvider(new IXMLDocumentProvider() {
+            @Override
+            public DOMDocument getDocument(String uri) {
+                return serverXmlURI.equals(uri) ? document : null;
+            }
+
+            @Override
+            public Collection<DOMDocument> getAllDocuments() {
+                return Collections.singletonList(document);
+            }
+        });
+        languageService.setValidationService(validated -> published.add(doDiagnostics(languageService, validated)));
+        try {
+            // the cached schema is used while the schema is generated
+            assertFalse(hasGeneratedSchemaDiagnostic(doDiagnostics(languageService, document)));
+
+            // the open document is validated again with the generated schema
+            Files.createFile(release);
+            assertTrue(LibertyWorkspaceTest.waitFor(() -> published.stream().anyMatch(LibertyDiagnosticTest::hasGeneratedSchemaDiagnostic) ? true : null));
+            assertTrue(hasGeneratedSchemaDiagnostic(doDiagnostics(languageService, document)));
+        } finally {
+            if (!Files.exists(release)) {
+                Files.createFile(release);
+            }
+            SchemaGenerationService.getInstance().awaitGenerations(30, TimeUnit.SECONDS);
+            artifactCache.setCacheDirectory(null);
+        }
+    }
+
+    @Test
+    public void testDiagnosticsProvisionalUntilStartupCompletes() throws Exception {
+        String serverXML = String.join(newLine, //
+                "<server description=\"Sample Liberty server\">", //
+                "       <featureManager>", //
+                "               <feature>invalid</feature>", //
+                "       </featureManager>", //
+                "</server>" //
+        );
+        XMLLanguageService languageService = new XMLLanguageService();
+        DOMDocument document = DOMParser.getInstance().parse(new TextDocument(serverXML, serverXMLURI),
+                languageService.getResolverExtensionManager());
+        StartupService startupService = StartupService.getInstance();
+        // the first validation starts the extension, which starts the startup without workspace folders
+        doDiagnostics(languageService, document);
+        assertTrue(LibertyWorkspaceTest.waitFor(() -> startupService.isReady() ? true : null));
+
+        CompletableFuture<Void> startup;
+        // the startup waits for the workspace folders while the projects manager is locked
+        synchronized (libPM) {
+            startup = startupService.start(initList);
+            assertFalse(startupService.isReady());
+            List<Diagnostic> diagnostics = getLibertyDiagnostics(doDiagnostics(languageService, document));
+            assertFalse(diagnostics.isEmpty());
+            for (Diagnostic diagnostic : diagnostics) {
+                assertEquals(LibertyDiagnosticParticipant.PROVISIONAL_DIAGNOSTIC_DATA, diagnostic.getData());
+            }
+        }
+        startup.get(30, TimeUnit.SECONDS);
+
+        assertTrue(startupService.isReady());
+        List<Diagnostic> diagnostics = getLibertyDiagnostics(doDiagnostics(languageService, document));
+        assertFalse(diagnostics.isEmpty());
+        for (Diagnostic diagnostic : diagnostics) {
+            assertNull(diagnostic.getData());
+        }
+    }
+
+    private static List<Diagnostic> getLibertyDiagnostics(List<Diagnostic> diagnostics) {
+        List<Diagnostic> libertyDiagnostics = new ArrayList<Diagnostic>();
+        for (Diagnostic diagnostic : diagnostics) {
+            if (LibertyDiagnosticParticipant.LIBERTY_LEMMINX_SOURCE.equals(diagnostic.getSource())) {
+                libertyDiagnostics.add(diagnostic);
+            }
+        }
+        return libertyDiagnostics;
+    }
+
+    private static List<Diagnostic> doDiagnostics(XMLLanguageService languageService, DOMDocument document) {
+        return languageService.doDiagnostics(document, new XMLValidationSettings(), Collections.emptyMap(), () -> {});
+    }
+
+    private static boolean hasGeneratedSchemaDiagnostic(List<Diagnostic> diagnostics) {
+        return diagnostics.stream().anyMatch(diagnostic -> diagnostic.getMessage().contains("generatedOnly"));
+    }
+}
@@ -2,27 +2,54 @@ package io.openliberty;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.eclipse.lsp4j.WorkspaceFolder;
 import org.junit.jupiter.api.Test;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import io.openliberty.tools.langserver.lemminx.data.CompletionIndex;
+import io.openliberty.tools.langserver.lemminx.data.FeatureCatalog;
 import io.openliberty.tools.langserver.lemminx.data.FeatureListGraph;
+import io.openliberty.tools.langserver.lemminx.data.FeatureListGraphSnapshot;
+import io.openliberty.tools.langserver.lemminx.data.FeatureListNode;
 import io.openliberty.tools.langserver.lemminx.models.feature.Feature;
+import io.openliberty.tools.langserver.lemminx.models.feature.WlpInformation;
 import io.openliberty.tools.langserver.lemminx.services.FeatureService;
 import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
-import jakarta.xml.bind.JAXBException;
+import io.openliberty.tools.langserver.lemminx.services.ValidationContext;
+import io.openliberty.tools.langserver.lemminx.util.FeatureJsonReader;
+import io.openliberty.tools.langserver.lemminx.util.FeatureListXmlReader;
+import javax.xml.stream.XMLStreamException;
 
 public class LibertyFeatureTest {
     
     @Test
-    public void getInstalledFeaturesListTest() throws JAXBException {
+    public void getInstalledFeaturesListTest() throws XMLStreamException {
         FeatureService fs = FeatureService.getInstance();
         File srcResourcesDir = new File("src/test/resources/sample");
         File featureListFile = new File(srcResourcesDir.getParentFile(), "featurelist-ol-24.0.0.10.xml");
@@ -55,4 +82,301 @@ public class LibertyFeatureTest {
         assertTrue(fg.getAllEnabledBy("ltpa").contains("admincenter-1.0"));  // direct enabler
         assertTrue(fg.getAllEnabledBy("ssl").contains("microprofile-5.0"));  // transitive enabler
     }
+
+    @Test
+    public void installedFeatureCatalogTest() throws XMLStreamException {
+        FeatureService fs = FeatureService.getInstance();
+        File srcResourcesDir = new File("src/test/resources/sample");
+        File featureListFile = new File(srcResourcesDir.getParentFile(), "featurelist-ol-24.0.0.10.xml");
+
+        LibertyWorkspace libWorkspace = new LibertyWorkspace(srcResourcesDir.toURI().toString());
+        assertTrue(libWorkspace.getInstalledFeatureCatalog().isEmpty());
+
+        List<Feature> installedFeatures = fs.readFeaturesFromFeatureListFile(new ArrayList<Feature>(), libWorkspace, featureListFile);
+        FeatureCatalog catalog = libWorkspace.getInstalledFeatureCatalog();
+        assertEquals(installedFeatures.size(), catalog.size());
+
+        // lookups are case insensitive
+        assertTrue(catalog.containsFeature("servlet-4.0"));
+        assertTrue(catalog.containsFeature("Servlet-4.0"));
+        assertEquals("servlet-4.0", catalog.getFeature("SERVLET-4.0").get().getWlpInformation().getShortName());
+        assertFalse(catalog.containsFeature("servlet-9.9"));
+        assertFalse(catalog.getFeature(null).isPresent());
+
+        // setting Liberty as not installed clears the installed catalog
+        libWorkspace.setLibertyInstalled(false);
+        assertTrue(libWorkspace.getInstalledFeatureCatalog().isEmpty());
+    }
+
+    @Test
+    public void featureCompletionIndexTest() throws XMLStreamException {
+        FeatureService fs = FeatureService.getInstance();
+        File srcResourcesDir = new File("src/test/resources/sample");
+        File featureListFile = new File(srcResourcesDir.getParentFile(), "featurelist-ol-24.0.0.10.xml");
+
+        LibertyWorkspace libWorkspace = new LibertyWorkspace(srcResourcesDir.toURI().toString());
+        List<Feature> installedFeatures = fs.readFeaturesFromFeatureListFile(new ArrayList<Feature>(), libWorkspace, featureListFile);
+        CompletionIndex<Feature> index = libWorkspace.getInstalledFeatureCatalog().getFeatureCompletionIndex();
+
+        // substring queries of any length return the same features, in the same order, as a linear scan
+        for (String query : new String[] { "s", "se", "ser", "servlet", "Servlet-", "profile-", "rvlet-4", "zzz" }) {
+            List<Feature> expected = new ArrayList<Feature>();
+            for (Feature f : installedFeatures) {
+                if (f.getWlpInformation().getShortName().toLowerCase().contains(query.toLowerCase())) {
+                    expected.add(f);
+                }
+            }
+            assertEquals(expected, index.findBySubstring(query, null, null), query);
+        }
+        assertEquals(installedFeatures.size(), index.findBySubstring(null, null, null).size());
+
+        // prefix queries
+        assertEquals(5, index.findByPrefix("servlet", null, null).size());
+        assertEquals(4, index.findByPrefix("SERVLET-", null, null).size());
+        assertTrue(index.findByPrefix("sipservlet", null, null).size() == 1);
+
+        // existing features are excluded either by exact name or by versionless name
+        List<Feature> withoutServlet40 = index.findBySubstring("servlet", Set.of("servlet-4.0"), null);
+        assertEquals(5, withoutServlet40.size());
+        assertFalse(withoutServlet40.stream().anyMatch(f -> f.getWlpInformation().getShortName().equals("servlet-4.0")));
+        List<Feature> withoutAnyServlet = index.findBySubstring("servlet", null, Set.of("servlet"));
+        assertEquals(1, withoutAnyServlet.size());
+        assertEquals("sipServlet-1.1", withoutAnyServlet.get(0).getWlpInformation().getShortName());
+    }
+
+    @Test
+    public void featureCatalogPlatformsTest() {
+        List<Feature> features = new ArrayList<Feature>();
+        features.add(createFeature("servlet", null, new String[] { "servlet-4.0", "io.openliberty.internal.versionless.servlet-6.0" }));
+        features.add(createFeature("servlet-4.0", new String[] { "javaee-8.0" }, null));
+        features.add(createFeature("servlet-6.0", new String[] { "jakartaee-10.0", "jakartaee-11.0" }, null));
+        features.add(createFeature("jsonb-2.0", new String[] { "jakartaee-9.1" }, null));
+        features.add(createFeature("jsonb-3.0", new String[] { "jakartaee-10.0", "jakartaee-11.0", "microProfile-6.0" }, null));
+        FeatureCatalog catalog = new FeatureCatalog(features);
+
+        assertEquals(Set.of("jakartaee-10.0", "jakartaee-11.0"), catalog.getPlatformsForFeature("Servlet-6.0"));
+        assertTrue(catalog.getPlatformsForFeature("unknown-1.0").isEmpty());
+
+        assertEquals(Set.of("jakartaee-10.0", "jakartaee-11.0"), catalog.getCommonPlatforms(List.of("servlet-6.0", "jsonb-3.0")));
+        assertTrue(catalog.getCommonPlatforms(List.of("servlet-4.0", "jsonb-3.0")).isEmpty());
+        assertTrue(catalog.getCommonPlatforms(List.of("jsonb-3.0", "unknown-1.0")).isEmpty());
+        assertEquals(null, catalog.getCommonPlatforms(new ArrayList<String>()));
+
+        // versionless platforms are the lower case union of the platforms of every resolved feature
+        Set<String> resolved = Set.of("servlet-4.0", "servlet-6.0");
+        Set<String> expected = Set.of("javaee-8.0", "jakartaee-10.0", "jakartaee-11.0");
+        assertEquals(expected, catalog.getPlatformsForVersionlessFeature("servlet", f -> resolved));
+        // cached after the first lookup, so the resolver is not called again
+        assertEquals(expected, catalog.getPlatformsForVersionlessFeature("SERVLET", f -> { throw new IllegalStateException(); }));
+        assertTrue(catalog.getPlatformsForVersionlessFeature("unknown", f -> resolved).isEmpty());
+    }
+
+    @Test
+    public void featureListXmlReaderTest() throws XMLStreamException {
+        File featureListFile = new File("src/main/resources/featurelist-cached-24.0.0.10.xml");
+        FeatureListGraph graph = new FeatureListGraph();
+        List<Feature> features = new ArrayList<Feature>();
+
+        assertEquals(347, FeatureListXmlReader.readFeatureList(featureListFile, graph, features));
+        assertEquals(347, features.size());
+
+        Feature acme = features.get(0);
+        assertEquals("acmeCA-2.0", acme.getName());
+        assertEquals("acmeCA-2.0", acme.getWlpInformation().getShortName());
+        assertTrue(acme.getShortDescription().startsWith("This feature automates interactions with a certificate authority"));
+        assertEquals(acme.getShortDescription(), graph.getFeatureListNode("acmeCA-2.0").getDescription());
+        assertTrue(acme.getEnables().contains("servlet-4.0"));
+        assertTrue(graph.getFeatureListNode("servlet-4.0").getEnabledBy().contains("acmeCA-2.0"));
+        assertTrue(graph.getFeatureListNode("acmeCA-2.0").getEnablesConfigElements().contains("acmeCA"));
+        assertTrue(graph.getConfigElementNode("acmeCA").getEnabledBy().contains("acmeCA-2.0"));
+
+        // private features and the symbolic names of public features are not added to the graph
+        assertNull(graph.getFeatureListNode("com.ibm.websphere.appclient.client-1.0"));
+        assertNull(graph.getFeatureListNode("com.ibm.websphere.appserver.acmeCA-2.0"));
+
+        // the graph can be read without building the feature list
+        FeatureListGraph graphOnly = new FeatureListGraph();
+        assertEquals(347, FeatureListXmlReader.readFeatureList(featureListFile, graphOnly, null));
+        assertEquals(graph.getConfigElementNode("acmeCA").getEnabledBy(), graphOnly.getConfigElementNode("acmeCA").getEnabledBy());
+    }
+
+    @Test
+    public void featureListGraphSnapshotTest() throws Exception {
+        File featureListFile = new File("src/main/resources/featurelist-cached-24.0.0.10.xml");
+        FeatureListGraph graph = new FeatureListGraph();
+        FeatureListXmlReader.readFeatureList(featureListFile, graph, null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FeatureListGraphSnapshot.write(graph, "featurelist-cached-24.0.0.10.xml", out);
+        FeatureListGraph snapshot = FeatureListGraphSnapshot.read(new ByteArrayInputStream(out.toByteArray()), "featurelist-cached-24.0.0.10.xml");
+
+        for (String featureName : new String[] { "acmeCA-2.0", "servlet-4.0", "jakartaee-10.0", "mpJwt-2.1" }) {
+            FeatureListNode expected = graph.getFeatureListNode(featureName);
+            FeatureListNode actual = snapshot.getFeatureListNode(featureName);
+            assertEquals(expected.getDescription(), actual.getDescription());
+            assertEquals(expected.getEnablesFeatures(), actual.getEnablesFeatures());
+            assertEquals(expected.getEnablesConfigElements(), actual.getEnablesConfigElements());
+            assertEquals(expected.getEnabledBy(), actual.getEnabledBy());
+        }
+        for (String configElement : new String[] { "acmeCA", "httpEndpoint", "dataSource", "mpJwt" }) {
+            assertEquals(graph.getAllEnabledBy(configElement), snapshot.getAllEnabledBy(configElement), configElement);
+        }
+
+        // a snapshot built from another featurelist is ignored
+        assertNull(FeatureListGraphSnapshot.read(new ByteArrayInputStream(out.toByteArray()), "featurelist-cached-25.0.0.1.xml"));
+        // a truncated snapshot fails to load
+        assertThrows(IOException.class, () -> FeatureListGraphSnapshot.read(new ByteArrayInputStream(out.toByteArray(), 0, out.size() / 2), "featurelist-cached-24.0.0.10.xml"));
+    }
+
+    @Test
+    public void frozenFeatureListGraphTest() throws Exception {
+        File featureListFile = new File("src/main/resources/featurelist-cached-24.0.0.10.xml");
+        FeatureListGraph graph = new FeatureListGraph();
+        FeatureListXmlReader.readFeatureList(featureListFile, graph, null);
+        assertFalse(graph.isFrozen());
+
+        // enabled-by closures computed with a breadth-first search before the graph is frozen
+        Map<String, Set<String>> expectedClosures = new HashMap<String, Set<String>>();
+        for (String configElement : new String[] { "ssl", "library", "ltpa", "httpEndpoint", "dataSource", "jaasLoginModule", "acmeCA" }) {
+            Set<String> closure = new HashSet<String>();
+            Deque<String> queue = new ArrayDeque<String>(graph.getConfigElementNode(configElement).getEnabledBy());
+            while (!queue.isEmpty()) {
+                String enabler = queue.removeFirst();
+                if (closure.add(enabler)) {
+                    queue.addAll(graph.getFeatureListNode(enabler).getEnabledBy());
+                }
+            }
+            expectedClosures.put(configElement, closure);
+        }
+
+        graph.freeze();
+        assertTrue(graph.isFrozen());
+        assertThrows(IllegalStateException.class, () -> graph.addConfigElement("newElement"));
+        assertThrows(UnsupportedOperationException.class, () -> graph.getConfigElementNode("ssl").addEnabledBy("newFeature-1.0"));
+        // existing nodes can still be looked up through the add methods
+        assertEquals(graph.getConfigElementNode("ssl"), graph.addConfigElement("ssl"));
+        String sslFeature = graph.getConfigElementNode("ssl").getEnabledBy().stream()
+                .filter(name -> !graph.getFeatureListNode(name).getDescription().isEmpty()).findFirst().get();
+        assertEquals(graph.getFeatureListNode(sslFeature), graph.addFeature(sslFeature));
+        assertEquals(graph.getFeatureListNode(sslFeature), graph.addFeature(sslFeature, "description"));
+        assertThrows(IllegalStateException.class, () -> graph.addFeature("newFeature-1.0", "description"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    for (Map.Entry<String, Set<String>> expected : expectedClosures.entrySet()) {
+                        if (!expected.getValue().equals(graph.getAllEnabledBy(expected.getKey(), false))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // included features are matched by name, with or without version
+        assertTrue(graph.isEnabledByAny("ssl", graph.getFeatureNameIds(Set.of("microprofile-5.0"))));
+        assertTrue(graph.isEnabledByAny("ssl", graph.getFeatureNameIds(Set.of("microprofile"))));
+        assertTrue(graph.isEnabledByAny("ssl", graph.getFeatureNameIds(Set.of("jsonp-1.1", "ssl-1.0"))));
+        assertFalse(graph.isEnabledByAny("ssl", graph.getFeatureNameIds(Set.of("jsonp-1.1"))));
+        assertFalse(graph.isEnabledByAny("ssl", graph.getFeatureNameIds(Set.of("unknown-1.0"))));
+        assertFalse(graph.isEnabledByAny("unknownElement", graph.getFeatureNameIds(Set.of("ssl-1.0"))));
+    }
+
+    @Test
+    public void featureJsonReaderTest() {
+        String featuresJson = "["
+                + "{\"name\":\"io.openliberty.servlet-6.0\",\"description\":\"Long description\",\"shortDescription\":\"Servlet 6.0\","
+                + "\"unknown\":{\"nested\":[1,2,{\"a\":null}]},"
+                + "\"wlpInformation\":{\"shortName\":\"servlet-6.0\",\"visibility\":\"PUBLIC\",\"platforms\":[\"jakartaee-10.0\"],"
+                + "\"requireFeature\":[\"com.ibm.websphere.appserver.eeCompatible-10.0\"],"
+                + "\"requireFeatureWithTolerates\":[{\"feature\":\"io.openliberty.servlet.internal-6.0\",\"tolerates\":[\"6.1\"]}],"
+                + "\"javaSEVersionRequirements\":{\"minVersion\":\"11\"}}},"
+                + "{\"name\":\"io.openliberty.servlet.internal-6.0\",\"wlpInformation\":{\"visibility\":\"PRIVATE\",\"shortName\":\"servletInternal-6.0\"},\"shortDescription\":\"Internal\"},"
+                + "{\"name\":\"io.openliberty.noVisibility-1.0\",\"wlpInformation\":{\"shortName\":\"noVisibility-1.0\",\"visibility\":null}},"
+                + "{\"name\":\"io.openliberty.noWlpInformation-1.0\",\"wlpInformation\":null},"
+                + "{\"name\":\"io.openliberty.jsonb-3.0\",\"shortDescription\":null,\"wlpInformation\":{\"shortName\":\"jsonb-3.0\",\"visibility\":\"PUBLIC\",\"platforms\":null}}"
+                + "]";
+
+        List<Feature> features = FeatureJsonReader.readPublicFeatures(new StringReader(featuresJson));
+
+        // same public features as binding the whole json
+        Feature[] allFeatures = new Gson().fromJson(featuresJson, Feature[].class);
+        List<String> expectedNames = new ArrayList<String>();
+        for (Feature feature : allFeatures) {
+            if (feature.getWlpInformation() != null && "PUBLIC".equals(feature.getWlpInformation().getVisibility())) {
+                expectedNames.add(feature.getName());
+            }
+        }
+        List<String> names = new ArrayList<String>();
+        features.forEach(f -> names.add(f.getName()));
+        assertEquals(expectedNames, names);
+
+        Feature servlet = features.get(0);
+        assertEquals("Servlet 6.0", servlet.getShortDescription());
+        // unused fields are not bound
+        assertNull(servlet.getDescription());
+        assertEquals("servlet-6.0", servlet.getWlpInformation().getShortName());
+        assertEquals(List.of("jakartaee-10.0"), servlet.getWlpInformation().getPlatforms());
+        assertEquals(List.of("com.ibm.websphere.appserver.eeCompatible-10.0"), servlet.getWlpInformation().getRequireFeature());
+        assertEquals("io.openliberty.servlet.internal-6.0", servlet.getWlpInformation().getRequireFeatureWithTolerates().get(0).getFeature());
+        assertEquals(List.of("6.1"), servlet.getWlpInformation().getRequireFeatureWithTolerates().get(0).getTolerates());
+
+        Feature jsonb = features.get(1);
+        assertNull(jsonb.getShortDescription());
+        assertNull(jsonb.getWlpInformation().getPlatforms());
+
+        assertThrows(JsonParseException.class, () -> FeatureJsonReader.readPublicFeatures(new StringReader("{\"name\":\"x\"}")));
+    }
+
+    @Test
+    public void validationContextTest() {
+        File srcResourcesDir = new File("src/test/resources/sample");
+        String serverXmlURI = new File(srcResourcesDir, "src/main/liberty/config/server.xml").toURI().toString();
+
+        // document outside of any workspace uses the default features and feature list
+        LibertyProjectsManager.getInstance().cleanInstance();
+        ValidationContext context = ValidationContext.create(serverXmlURI);
+        assertNull(context.getWorkspace());
+        assertNull(context.getRuntimeInfo());
+        assertNull(context.getLibertyVersion());
+        assertEquals(serverXmlURI, context.getDocumentURI());
+        FeatureCatalog catalog = context.getFeatureCatalog();
+        assertFalse(catalog.isEmpty());
+        assertSame(catalog, context.getFeatureCatalog());
+        assertSame(FeatureService.getInstance().getDefaultFeatureList(), context.getFeatureListGraph());
+        assertEquals(FeatureService.getInstance().getAllPlatformsForVersionLessFeature("servlet", null, null, 0, serverXmlURI),
+                FeatureService.getInstance().getAllPlatformsForVersionLessFeature("servlet", catalog));
+
+        // document in a workspace uses the feature list graph of the workspace
+        List<WorkspaceFolder> initList = new ArrayList<WorkspaceFolder>();
+        initList.add(new WorkspaceFolder(srcResourcesDir.toURI().toString()));
+        LibertyProjectsManager.getInstance().setWorkspaceFolders(initList);
+        LibertyWorkspace libWorkspace = LibertyProjectsManager.getInstance().getLibertyWorkspaceFolders().iterator().next();
+        context = ValidationContext.create(serverXmlURI);
+        assertSame(libWorkspace, context.getWorkspace());
+        assertSame(libWorkspace.getFeatureListGraph(), context.getFeatureListGraph());
+        LibertyProjectsManager.getInstance().cleanInstance();
+    }
+
+    private static Feature createFeature(String shortName, String[] platforms, String[] requireFeatures) {
+        Feature feature = new Feature();
+        feature.setName(shortName);
+        WlpInformation wlpInfo = new WlpInformation(shortName);
+        if (platforms != null) {
+            wlpInfo.setPlatforms(List.of(platforms));
+        }
+        if (requireFeatures != null) {
+            wlpInfo.setRequireFeature(new ArrayList<String>(List.of(requireFeatures)));
+        }
+        feature.setWlpInformation(wlpInfo);
+        return feature;
+    }
 }
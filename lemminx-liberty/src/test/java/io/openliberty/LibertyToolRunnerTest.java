@@ -0,0 +1,129 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.JsonParser;
+
+import io.openliberty.tools.langserver.lemminx.services.LibertyToolRunner;
+import io.openliberty.tools.langserver.lemminx.services.ProcessExecutor.ProcessResult;
+import io.openliberty.tools.langserver.lemminx.services.SettingsService;
+
+public class LibertyToolRunnerTest {
+
+    static Path toolJar(Path dir, String name, String mainBody) throws IOException {
+        return toolClassJar(dir, name, "public static void main(String[] args) throws Exception { " + mainBody + " }");
+    }
+
+    private static Path toolClassJar(Path dir, String name, String members) throws IOException {
+        Path source = dir.resolve(name + ".java");
+        Files.writeString(source, "public class " + name + " { " + members + " }");
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", dir.toString(), source.toString()));
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, name);
+        Path jar = dir.resolve(name + ".jar");
+        try (JarOutputStream jos = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+            jos.putNextEntry(new JarEntry(name + ".class"));
+            Files.copy(dir.resolve(name + ".class"), jos);
+            jos.closeEntry();
+        }
+        return jar;
+    }
+
+    @Test
+    public void testToolRunsInProcess(@TempDir Path tempDir) throws Exception {
+        Path jar = toolJar(tempDir, "Tool", "System.out.print(\"generated \" + args[0]); System.err.print(\" done\");"
+                + " if (args.length > 1) { throw new IllegalStateException(args[1]); }");
+        LibertyToolRunner runner = LibertyToolRunner.getInstance();
+
+        ProcessResult result = runner.runInProcess(jar, Arrays.asList("featurelist.xml"), null, 30, TimeUnit.SECONDS);
+        assertTrue(result.isSuccessful());
+        assertEquals("generated featurelist.xml done", result.getStdout());
+
+        Path logFile = tempDir.resolve("tool.log");
+        result = runner.runInProcess(jar, Arrays.asList("server.xsd", "failure"), logFile.toFile(), 30, TimeUnit.SECONDS);
+        assertFalse(result.isSuccessful());
+        assertEquals(1, result.getExitValue());
+        assertTrue(result.getStderr().contains("failure"));
+        assertEquals("generated server.xsd done", Files.readString(logFile));
+    }
+
+    @Test
+    public void testToolInitializationFails(@TempDir Path tempDir) throws Exception {
+        Path jar = toolClassJar(tempDir, "BrokenTool", "static { if (Boolean.TRUE) { throw new IllegalStateException(\"initialization\"); } }"
+                + " public static void main(String[] args) { }");
+
+        ProcessResult result = LibertyToolRunner.getInstance().runInProcess(jar, Arrays.asList("server.xsd"), null, 30, TimeUnit.SECONDS);
+        assertFalse(result.isSuccessful());
+        assertEquals(1, result.getExitValue());
+        assertTrue(result.getStderr().contains("ExceptionInInitializerError"));
+    }
+
+    @Test
+    public void testTimedOutToolOutputIsDiscarded(@TempDir Path tempDir) throws Exception {
+        Path release = tempDir.resolve("release");
+        Path jar = toolJar(tempDir, "SlowTool", "while (!java.nio.file.Files.exists(java.nio.file.Paths.get(args[0]))) {"
+                + " System.out.println(\"running\"); try { Thread.sleep(20); } catch (InterruptedException e) { } }");
+        LibertyToolRunner runner = LibertyToolRunner.getInstance();
+        int routedTools = runner.getRoutedToolCount();
+
+        Path logFile = tempDir.resolve("slow.log");
+        ProcessResult result = runner.runInProcess(jar, Arrays.asList(release.toString()), logFile.toFile(), 1, TimeUnit.SECONDS);
+        try {
+            assertTrue(result.isTimedOut());
+            assertEquals(-1, result.getExitValue());
+            // the output of the tool is still routed while it runs, but no longer written to the log file
+            assertEquals(routedTools + 1, runner.getRoutedToolCount());
+            long logSize = Files.size(logFile);
+            assertTrue(logSize > 0);
+            Thread.sleep(200);
+            assertEquals(logSize, Files.size(logFile));
+        } finally {
+            Files.createFile(release);
+        }
+
+        // the output is released once the tool terminates
+        long deadline = System.currentTimeMillis() + 10000;
+        while (runner.getRoutedToolCount() > routedTools && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(routedTools, runner.getRoutedToolCount());
+    }
+
+    @Test
+    public void testFailedToolRunsInNewJvm(@TempDir Path tempDir) throws Exception {
+        // fails when run in-process, on a thread of the runner
+        Path jar = toolJar(tempDir, "Generator", "if (Thread.currentThread().getName().startsWith(\"liberty-ls-tool\")) {"
+                + " throw new IllegalStateException(\"in-process\"); } java.nio.file.Files.writeString(java.nio.file.Paths.get(args[0]), \"generated\");");
+        Path generatedFile = tempDir.resolve("featurelist.xml");
+        SettingsService settings = SettingsService.getInstance();
+        settings.updateLibertySettings(JsonParser.parseString("{\"liberty\":{\"inProcessTools\":true}}"));
+        try {
+            assertTrue(settings.isInProcessToolsEnabled());
+            ProcessResult result = LibertyToolRunner.getInstance().run(jar, Arrays.asList(generatedFile.toString()), tempDir.toFile(),
+                    tempDir.resolve("generator.log").toFile(), 60, TimeUnit.SECONDS);
+            assertTrue(result.isSuccessful());
+            assertEquals("generated", Files.readString(generatedFile));
+        } finally {
+            settings.updateLibertySettings(JsonParser.parseString("{\"liberty\":{}}"));
+        }
+        assertFalse(settings.isInProcessToolsEnabled());
+    }
+}
@@ -1,5 +1,6 @@
 package io.openliberty;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -8,10 +9,20 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import io.openliberty.tools.langserver.lemminx.services.FileWatchService;
+import io.openliberty.tools.langserver.lemminx.services.GeneratedArtifactCache;
 import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
+import io.openliberty.tools.langserver.lemminx.services.WorkspaceFileIndex;
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 
 public class LibertyWorkspaceTest {
@@ -32,6 +43,192 @@ public class LibertyWorkspaceTest {
         // assertTrue(libertyWorkspace.isContainerAlive());
     }
 
+    @Test
+    public void testWorkspaceFileIndex(@TempDir Path workspaceDir) throws Exception {
+        Path oldProps = workspaceDir.resolve("old/wlp/lib/versions/openliberty.properties");
+        Path newProps = workspaceDir.resolve("target/liberty/wlp/lib/versions/openliberty.properties");
+        Files.createDirectories(oldProps.getParent());
+        Files.createDirectories(newProps.getParent());
+        Files.createFile(oldProps);
+        Files.createFile(newProps);
+        Files.setLastModifiedTime(oldProps, FileTime.fromMillis(1000000L));
+
+        LibertyWorkspace libertyWorkspace = new LibertyWorkspace(workspaceDir.toUri().toString());
+        try {
+            assertEquals(newProps, LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("openliberty.properties")));
+            assertEquals(newProps, LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("versions", "openliberty.properties")));
+            assertEquals(oldProps, LibertyUtils.findLastModifiedMatchingFileInDirectory(libertyWorkspace, workspaceDir.resolve("old"), Paths.get("openliberty.properties")));
+            assertEquals(2, libertyWorkspace.getFileIndex().findFiles(Paths.get("lib", "versions", "openliberty.properties")).size());
+            assertNull(LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("liberty-plugin-config.xml")));
+
+            // files created or deleted after the index is built are picked up by the watcher
+            Path pluginConfig = workspaceDir.resolve("target/liberty-plugin-config.xml");
+            Files.createFile(pluginConfig);
+            assertEquals(pluginConfig, waitFor(() -> LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("liberty-plugin-config.xml"))));
+
+            Path metadata = workspaceDir.resolve("build/new/dir/server-liberty-devc-metadata.xml");
+            Files.createDirectories(metadata.getParent());
+            Files.createFile(metadata);
+            assertEquals(metadata, waitFor(() -> libertyWorkspace.getFileIndex().findFilesEndsWith("-LIBERTY-DEVC-METADATA.XML").stream().findFirst().orElse(null)));
+
+            Files.delete(newProps);
+            assertEquals(oldProps, LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("openliberty.properties")));
+            assertTrue(waitFor(() -> libertyWorkspace.getFileIndex().findFiles(Paths.get("openliberty.properties")).size() == 1 ? true : null));
+        } finally {
+            libertyWorkspace.closeFileIndex();
+        }
+    }
+
+    @Test
+    public void testWorkspaceFileIndexPrunesDirectories(@TempDir Path workspaceDir) throws Exception {
+        Path installDir = workspaceDir.resolve("target/liberty/wlp");
+        Path props = Files.createDirectories(installDir.resolve("lib/versions")).resolve("openliberty.properties");
+        Path schemaGenJar = Files.createDirectories(installDir.resolve("bin/tools")).resolve("ws-schemagen.jar");
+        Path featureManifest = Files.createDirectories(installDir.resolve("lib/features")).resolve("servlet-6.0.mf");
+        Path apiJar = Files.createDirectories(installDir.resolve("dev/api/spec")).resolve("servlet.jar");
+        Path gitConfig = Files.createDirectories(workspaceDir.resolve(".git/refs")).resolve("config.xml");
+        Path nodeModule = Files.createDirectories(workspaceDir.resolve("node_modules/pkg")).resolve("server.xml");
+        Path source = Files.createDirectories(workspaceDir.resolve("src/main/java/pkg")).resolve("App.java");
+        for (Path file : Arrays.asList(props, schemaGenJar, featureManifest, apiJar, gitConfig, nodeModule, source)) {
+            Files.createFile(file);
+        }
+
+        LibertyWorkspace libertyWorkspace = new LibertyWorkspace(workspaceDir.toUri().toString());
+        FileWatchService watchService = FileWatchService.getInstance();
+        int watchedDirs = watchService.getWatchedDirectoryCount();
+        try {
+            assertEquals(props, LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("openliberty.properties")));
+            assertEquals(schemaGenJar, LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("bin", "tools", "ws-schemagen.jar")));
+            assertNull(LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("servlet-6.0.mf")));
+            assertNull(LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("servlet.jar")));
+            assertNull(LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("config.xml")));
+            assertNull(LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("server.xml")));
+            assertEquals(source, LibertyUtils.findFileInWorkspace(libertyWorkspace, Paths.get("App.java")));
+            // the workspace, target, target/liberty, wlp, bin, bin/tools, lib and lib/versions are watched, and the
+            // source directories are polled
+            assertTrue(libertyWorkspace.getFileIndex().isWatching());
+            assertEquals(watchedDirs + 8, watchService.getWatchedDirectoryCount());
+            assertEquals(4, libertyWorkspace.getFileIndex().getPolledDirectoryCount());
+        } finally {
+            libertyWorkspace.close();
+        }
+        assertEquals(watchedDirs, watchService.getWatchedDirectoryCount());
+    }
+
+    @Test
+    public void testWorkspaceFileIndexPollsDirectories(@TempDir Path workspaceDir) throws Exception {
+        Path sourceDir = Files.createDirectories(workspaceDir.resolve("src/main/java"));
+        Path configDir = Files.createDirectories(workspaceDir.resolve("src/main/liberty/config"));
+        WorkspaceFileIndex fileIndex = new WorkspaceFileIndex(workspaceDir, 0);
+        try {
+            assertTrue(fileIndex.findFiles(Paths.get("App.java")).isEmpty());
+            // src, src/main, src/main/java and src/main/liberty
+            assertEquals(4, fileIndex.getPolledDirectoryCount());
+
+            // a polled directory is listed again once its last modified time changed
+            Path source = Files.createFile(sourceDir.resolve("App.java"));
+            Files.setLastModifiedTime(sourceDir, FileTime.fromMillis(1000000L));
+            assertEquals(Arrays.asList(source), fileIndex.findFiles(Paths.get("App.java")));
+            Path packageDir = Files.createDirectories(sourceDir.resolve("pkg"));
+            Path packageSource = Files.createFile(packageDir.resolve("Service.java"));
+            Files.delete(source);
+            Files.setLastModifiedTime(sourceDir, FileTime.fromMillis(2000000L));
+            assertTrue(fileIndex.findFiles(Paths.get("App.java")).isEmpty());
+            assertEquals(Arrays.asList(packageSource), fileIndex.findFiles(Paths.get("Service.java")));
+            assertEquals(5, fileIndex.getPolledDirectoryCount());
+
+            // deleted polled directories are removed from the index
+            Files.delete(packageSource);
+            Files.delete(packageDir);
+            assertTrue(fileIndex.findFiles(Paths.get("Service.java")).isEmpty());
+            assertEquals(4, fileIndex.getPolledDirectoryCount());
+
+            // the config directory is watched
+            Path serverXml = createXml(configDir.resolve("server.xml"), "<server/>");
+            assertEquals(serverXml, waitFor(() -> fileIndex.findFiles(Paths.get("server.xml")).stream().findFirst().orElse(null)));
+        } finally {
+            fileIndex.close();
+        }
+    }
+
+    @Test
+    public void testWatchFilesSharesWatcherThread(@TempDir Path workspaceDir) throws Exception {
+        Path propsFile = workspaceDir.resolve("wlp/lib/versions/openliberty.properties");
+        Files.createDirectories(propsFile.getParent());
+        Files.writeString(propsFile, "com.ibm.websphere.productId=io.openliberty\n");
+
+        LibertyWorkspace libertyWorkspace = new LibertyWorkspace(workspaceDir.toUri().toString());
+        FileWatchService watchService = FileWatchService.getInstance();
+        int watchedDirs = watchService.getWatchedDirectoryCount();
+        try {
+            // repeated runtime detection replaces the watch instead of adding threads and watches
+            for (int i = 0; i < 5; i++) {
+                LibertyUtils.watchFiles(propsFile, libertyWorkspace);
+            }
+            assertEquals(watchedDirs + 1, watchService.getWatchedDirectoryCount());
+            assertEquals(1, Thread.getAllStackTraces().keySet().stream().filter(t -> t.getName().equals("liberty-ls-file-watcher")).count());
+
+            libertyWorkspace.setLibertyInstalled(true);
+            Files.writeString(propsFile, "com.ibm.websphere.productVersion=24.0.0.10\n");
+            assertTrue(waitFor(() -> libertyWorkspace.isLibertyInstalled() ? null : true));
+        } finally {
+            libertyWorkspace.close();
+        }
+        assertEquals(watchedDirs, watchService.getWatchedDirectoryCount());
+    }
+
+    static <T> T waitFor(Supplier<T> supplier) throws InterruptedException {
+        // watch events are delivered asynchronously, and by polling on some platforms
+        for (int i = 0; i < 300; i++) {
+            T value = supplier.get();
+            if (value != null) {
+                return value;
+            }
+            Thread.sleep(100);
+        }
+        return null;
+    }
+
+    @Test
+    public void testInstallationFingerprintWatched(@TempDir Path tempDir) throws Exception {
+        Path installDir = tempDir.resolve("wlp");
+        Path featuresDir = Files.createDirectories(installDir.resolve("lib/features"));
+        Files.writeString(featuresDir.resolve("servlet-6.0.mf"), "Manifest-Version: 1.0");
+        LibertyWorkspace libertyWorkspace = new LibertyWorkspace(tempDir.toUri().toString());
+        FileWatchService watchService = FileWatchService.getInstance();
+        int watchedDirs = watchService.getWatchedDirectoryCount();
+        try {
+            libertyWorkspace.setLibertyInstallationDir(installDir.toString());
+            libertyWorkspace.setLibertyInstalled(true);
+            String fingerprint = libertyWorkspace.getInstallationFingerprint();
+            assertEquals(GeneratedArtifactCache.getInstance().getFingerprint(installDir), fingerprint);
+            // lib/features, and lib and wlp for the missing lib/versions and usr/extension/lib/features
+            assertEquals(watchedDirs + 3, watchService.getWatchedDirectoryCount());
+
+            libertyWorkspace.setFeatureListFingerprint(fingerprint);
+            assertFalse(libertyWorkspace.isFeatureListStale());
+
+            // installing a feature makes the feature list stale, without deleting the generated files
+            Files.writeString(featuresDir.resolve("jsonp-2.1.mf"), "Manifest-Version: 1.0");
+            assertTrue(waitFor(() -> libertyWorkspace.isFeatureListStale() ? true : null));
+            assertFalse(fingerprint.equals(libertyWorkspace.getInstallationFingerprint()));
+
+            libertyWorkspace.setFeatureListFingerprint(libertyWorkspace.getInstallationFingerprint());
+            assertFalse(libertyWorkspace.isFeatureListStale());
+            libertyWorkspace.invalidateFeatureList();
+            assertTrue(libertyWorkspace.isFeatureListStale());
+        } finally {
+            libertyWorkspace.close();
+        }
+        assertEquals(watchedDirs, watchService.getWatchedDirectoryCount());
+    }
+
+    static Path createXml(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+
     @Test
     public void testConfigDropinsDefaults() throws IOException {
         File mockXML = new File("src/test/resources/configDropins/defaults/my.xml");
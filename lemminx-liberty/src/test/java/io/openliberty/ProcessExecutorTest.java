@@ -0,0 +1,131 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.services.ProcessExecutor;
+import io.openliberty.tools.langserver.lemminx.services.ProcessExecutor.ProcessResult;
+
+public class ProcessExecutorTest {
+
+    private static final String JAVA = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    // main body writing the pid of the process to the file passed as first argument
+    private static final String WRITE_PID = "java.nio.file.Files.writeString(java.nio.file.Paths.get(args[0]), String.valueOf(ProcessHandle.current().pid()));";
+
+    private static List<String> javaProgram(Path dir, String name, String mainBody) throws IOException {
+        Path source = dir.resolve(name + ".java");
+        Files.writeString(source, "public class " + name + " { public static void main(String[] args) throws Exception { " + mainBody + " } }");
+        return Arrays.asList(JAVA, source.toString());
+    }
+
+    @Test
+    public void testLargeOutputIsDrained(@TempDir Path tempDir) throws Exception {
+        // more output than a pipe buffer holds, the process would block if it was read after the process exits
+        List<String> command = javaProgram(tempDir, "LargeOutput",
+                "String line = \"x\".repeat(99); for (int i = 0; i < 5000; i++) { System.out.println(line); } System.err.print(\"done\"); System.exit(3);");
+
+        ProcessResult result = ProcessExecutor.getInstance().execute(command, 60, TimeUnit.SECONDS).get();
+
+        assertFalse(result.isTimedOut());
+        assertEquals(3, result.getExitValue());
+        assertFalse(result.isSuccessful());
+        assertEquals(5000, result.getStdout().lines().count());
+        assertEquals("done", result.getStderr());
+    }
+
+    @Test
+    public void testTimeoutDestroysProcess(@TempDir Path tempDir) throws Exception {
+        List<String> command = javaProgram(tempDir, "Sleep", "Thread.sleep(60000);");
+
+        long start = System.currentTimeMillis();
+        ProcessResult result = ProcessExecutor.getInstance().run(command, tempDir.toFile(), tempDir.resolve("sleep.log").toFile(), 2, TimeUnit.SECONDS);
+
+        assertTrue(result.isTimedOut());
+        assertEquals(-1, result.getExitValue());
+        assertTrue(System.currentTimeMillis() - start < 30000, "The process was not destroyed after its timeout");
+        assertTrue(Files.exists(tempDir.resolve("sleep.log")));
+    }
+
+    private static ProcessHandle waitForProcess(Path pidFile) throws Exception {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (System.currentTimeMillis() < deadline) {
+            if (Files.exists(pidFile)) {
+                try {
+                    return ProcessHandle.of(Long.parseLong(Files.readString(pidFile))).orElseThrow();
+                } catch (NumberFormatException e) {
+                    // still being written
+                }
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("The process did not start");
+    }
+
+    @Test
+    public void testInterruptDestroysProcess(@TempDir Path tempDir) throws Exception {
+        Path pidFile = tempDir.resolve("pid");
+        List<String> command = new ArrayList<String>(javaProgram(tempDir, "Interrupted", WRITE_PID + " Thread.sleep(60000);"));
+        command.add(pidFile.toString());
+        AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        Thread caller = new Thread(() -> {
+            try {
+                ProcessExecutor.getInstance().run(command, tempDir.toFile(), tempDir.resolve("interrupted.log").toFile(), 60, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        });
+        caller.start();
+        ProcessHandle process = waitForProcess(pidFile);
+
+        caller.interrupt();
+        caller.join(10000);
+        assertTrue(failure.get() instanceof InterruptedException);
+        // completes once the process is destroyed
+        process.onExit().get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testSlotWaitIsBounded(@TempDir Path tempDir) throws Exception {
+        ProcessExecutor processExecutor = ProcessExecutor.getInstance();
+        List<CompletableFuture<ProcessResult>> running = new ArrayList<CompletableFuture<ProcessResult>>();
+        List<ProcessHandle> processes = new ArrayList<ProcessHandle>();
+        try {
+            for (int i = 0; i < ProcessExecutor.MAX_CONCURRENT_PROCESSES; i++) {
+                Path pidFile = tempDir.resolve("pid" + i);
+                List<String> command = new ArrayList<String>(javaProgram(tempDir, "Busy", WRITE_PID + " Thread.sleep(60000);"));
+                command.add(pidFile.toString());
+                running.add(processExecutor.execute(command, 60, TimeUnit.SECONDS));
+                processes.add(waitForProcess(pidFile));
+            }
+
+            // the time waiting for a slot counts towards the timeout
+            long start = System.currentTimeMillis();
+            ProcessResult result = processExecutor.run(javaProgram(tempDir, "Quick", ""), null, null, 1, TimeUnit.SECONDS);
+            assertTrue(result.isTimedOut());
+            assertTrue(System.currentTimeMillis() - start < 10000, "The command waited for a slot after its timeout");
+        } finally {
+            for (CompletableFuture<ProcessResult> result : running) {
+                result.cancel(true);
+            }
+        }
+        // cancelling a command destroys its process
+        for (ProcessHandle process : processes) {
+            process.onExit().get(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.lsp4j.WorkspaceFolder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.LibertyXSDURIResolver;
+import io.openliberty.tools.langserver.lemminx.services.GeneratedArtifactCache;
+import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
+import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
+import io.openliberty.tools.langserver.lemminx.services.SchemaGenerationService;
+import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
+
+public class SchemaGenerationServiceTest {
+
+    @Test
+    public void testSchemaGenerationRunsInBackground(@TempDir Path tempDir) throws Exception {
+        Path workspaceDir = Files.createDirectories(tempDir.resolve("workspace"));
+        String serverXml = LibertyWorkspaceTest.createXml(workspaceDir.resolve("src/main/liberty/config/server.xml"), "<server/>").toUri().toString();
+        Path installDir = workspaceDir.resolve("target/liberty/wlp");
+        Files.writeString(Files.createDirectories(installDir.resolve("lib/versions")).resolve("openliberty.properties"),
+                "com.ibm.websphere.productId=io.openliberty\ncom.ibm.websphere.productVersion=24.0.0.91\n");
+        // ws-schemagen.jar writes the schema once the release file exists
+        Path release = tempDir.resolve("release");
+        Path toolJar = LibertyToolRunnerTest.toolJar(Files.createDirectories(tempDir.resolve("tool")), "SchemaGen",
+                "while (!java.nio.file.Files.exists(java.nio.file.Paths.get(\"" + release + "\"))) { Thread.sleep(50); }"
+                + " java.nio.file.Files.writeString(java.nio.file.Paths.get(args[2]), \"<xsd:schema xmlns:xsd='http://www.w3.org/2001/XMLSchema'/>\");");
+        Path schemaGenJar = Files.copy(toolJar, Files.createDirectories(installDir.resolve("bin/tools")).resolve("ws-schemagen.jar"));
+
+        LibertyProjectsManager projectsManager = LibertyProjectsManager.getInstance();
+        GeneratedArtifactCache artifactCache = GeneratedArtifactCache.getInstance();
+        SchemaGenerationService schemaGenService = SchemaGenerationService.getInstance();
+        LibertyXSDURIResolver resolver = new LibertyXSDURIResolver();
+        projectsManager.cleanInstance();
+        artifactCache.setCacheDirectory(tempDir.resolve("cache"));
+        try {
+            projectsManager.setWorkspaceFolders(Collections.singletonList(new WorkspaceFolder(workspaceDir.toUri().toString())));
+            LibertyWorkspace libertyWorkspace = projectsManager.getWorkspaceFolder(serverXml);
+
+            // detecting the installation starts the generation before the schema is requested
+            LibertyUtils.getLibertyRuntimeInfo(libertyWorkspace);
+            assertTrue(libertyWorkspace.isLibertyInstalled());
+            assertTrue(LibertyWorkspaceTest.waitFor(() -> Files.exists(workspaceDir.resolve(".libertyls/schemagen.log")) ? true : null));
+
+            // the cached schema is used until the generation completes
+            String cachedSchema = resolver.resolve(serverXml, null, null);
+            File xsdFile = SchemaGenerationService.getServerSchemaFile(libertyWorkspace);
+            assertNotEquals(xsdFile.toURI().toString(), cachedSchema);
+            CompletableFuture<File> schema = schemaGenService.getServerSchemaXsd(libertyWorkspace, schemaGenJar, xsdFile);
+            assertFalse(schema.isDone());
+            assertEquals(cachedSchema, resolver.resolve(serverXml, null, null));
+            // concurrent requests share the generation
+            assertSame(schema, schemaGenService.getServerSchemaXsd(libertyWorkspace, schemaGenJar, xsdFile));
+
+            Files.createFile(release);
+            assertEquals(xsdFile, schema.get(30, TimeUnit.SECONDS));
+            assertEquals(xsdFile.toURI().toString(), resolver.resolve(serverXml, null, null));
+        } finally {
+            if (!Files.exists(release)) {
+                Files.createFile(release);
+            }
+            schemaGenService.awaitGenerations(30, TimeUnit.SECONDS);
+            artifactCache.setCacheDirectory(null);
+            projectsManager.cleanInstance();
+        }
+    }
+
+    @Test
+    public void testFailedSchemaGenerationIsNotUsed(@TempDir Path workspaceDir) throws Exception {
+        Path schemaGenJar = Files.writeString(workspaceDir.resolve("ws-schemagen.jar"), "not a jar");
+        Path tempDir = Files.createDirectories(workspaceDir.resolve(".libertyls"));
+        LibertyWorkspace libertyWorkspace = new LibertyWorkspace(workspaceDir.toUri().toString());
+        SchemaGenerationService schemaGenService = SchemaGenerationService.getInstance();
+
+        // the generation fails since the jar is not valid
+        File xsdFile = tempDir.resolve("ol-24.0.0.10.xsd").toFile();
+        CompletableFuture<File> schema = schemaGenService.getServerSchemaXsd(libertyWorkspace, schemaGenJar, xsdFile);
+        schemaGenService.awaitGenerations(30, TimeUnit.SECONDS);
+        assertTrue(schema.isCompletedExceptionally());
+        assertFalse(xsdFile.exists());
+
+        // an existing schema file is used without generating it
+        Files.writeString(xsdFile.toPath(), "<xsd:schema xmlns:xsd=\"http://www.w3.org/2001/XMLSchema\"/>");
+        assertEquals(xsdFile, schemaGenService.getServerSchemaXsd(libertyWorkspace, schemaGenJar, xsdFile).getNow(null));
+    }
+}
@@ -0,0 +1,35 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.eclipse.lsp4j.WorkspaceFolder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
+import io.openliberty.tools.langserver.lemminx.services.StartupService;
+
+public class StartupServiceTest {
+
+    @Test
+    public void testStartupBuildsWorkspacesInBackground(@TempDir Path workspaceDir) throws Exception {
+        String serverXml = LibertyWorkspaceTest.createXml(workspaceDir.resolve("src/main/liberty/config/server.xml"), "<server/>").toUri().toString();
+        LibertyProjectsManager projectsManager = LibertyProjectsManager.getInstance();
+        StartupService startupService = StartupService.getInstance();
+        projectsManager.cleanInstance();
+        assertTrue(startupService.isReady());
+        try {
+            startupService.start(Collections.singletonList(new WorkspaceFolder(workspaceDir.toUri().toString()))).get();
+            assertTrue(startupService.isReady());
+            assertEquals(workspaceDir.toUri().toString().replace("///", "/"), projectsManager.getWorkspaceFolder(serverXml).getWorkspaceString());
+        } finally {
+            startupService.stop();
+            projectsManager.cleanInstance();
+        }
+        assertTrue(startupService.isReady());
+    }
+}
@@ -0,0 +1,59 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.eclipse.lsp4j.WorkspaceFolder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.openliberty.tools.langserver.lemminx.services.LibertyProjectsManager;
+import io.openliberty.tools.langserver.lemminx.services.WorkspaceDiscovery;
+
+public class WorkspaceDiscoveryTest {
+
+    @Test
+    public void testWorkspaceDiscoveryPrunesDirectories(@TempDir Path workspaceDir) throws Exception {
+        Path serverXml = LibertyWorkspaceTest.createXml(workspaceDir.resolve("src/main/liberty/config/server.xml"), "<server/>");
+        Path customXml = LibertyWorkspaceTest.createXml(workspaceDir.resolve("config/custom.xml"), "<!-- " + "x".repeat(5000) + " -->\n<server/>");
+        LibertyWorkspaceTest.createXml(workspaceDir.resolve("src/main/resources/other.xml"), "<client/>");
+        LibertyWorkspaceTest.createXml(workspaceDir.resolve("node_modules/pkg/server.xml"), "<server/>");
+        LibertyWorkspaceTest.createXml(workspaceDir.resolve(".git/server.xml"), "<server/>");
+        LibertyWorkspaceTest.createXml(workspaceDir.resolve("out/liberty/config/server.xml"), "<server/>");
+        LibertyWorkspaceTest.createXml(workspaceDir.resolve("config/generated.xml"), "<server/>");
+        LibertyWorkspaceTest.createXml(workspaceDir.resolve("config/ignored/server.xml"), "<server/>");
+        Files.writeString(workspaceDir.resolve(".gitignore"), "# build output\n/out/\n");
+        Files.writeString(workspaceDir.resolve("config/.gitignore"), "*.xml\n!custom.xml\n");
+
+        WorkspaceDiscovery discovery = new WorkspaceDiscovery(workspaceDir);
+        assertEquals(new HashSet<Path>(Arrays.asList(serverXml, customXml)), new HashSet<Path>(discovery.scan()));
+        assertEquals(3, discovery.getScannedFileCount());
+    }
+
+    @Test
+    public void testWorkspaceDiscoveryContinuesInBackground(@TempDir Path workspaceDir) throws Exception {
+        LibertyWorkspaceTest.createXml(workspaceDir.resolve("modA/src/main/liberty/config/server.xml"), "<server/>");
+        LibertyWorkspaceTest.createXml(workspaceDir.resolve("modB/src/main/liberty/config/server.xml"), "<server/>");
+        String modAServerXml = workspaceDir.resolve("modA/src/main/liberty/config/server.xml").toUri().toString();
+
+        LibertyProjectsManager projectsManager = LibertyProjectsManager.getInstance();
+        projectsManager.cleanInstance();
+        projectsManager.setDiscoveryTimeBudget(0);
+        try {
+            projectsManager.setWorkspaceFolders(Collections.singletonList(new WorkspaceFolder(workspaceDir.toUri().toString())));
+            // the folder is usable right away, and replaced by its sub-modules once they are found
+            assertTrue(projectsManager.getWorkspaceFolder(modAServerXml) != null);
+            assertTrue(LibertyWorkspaceTest.waitFor(() -> projectsManager.getLibertyWorkspaceFolders().size() == 2 ? true : null));
+            assertTrue(projectsManager.getWorkspaceFolder(modAServerXml).getWorkspaceString().endsWith("/modA/"));
+        } finally {
+            projectsManager.setDiscoveryTimeBudget(5000);
+            projectsManager.cleanInstance();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.openliberty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import io.openliberty.tools.langserver.lemminx.services.LibertyWorkspace;
+import io.openliberty.tools.langserver.lemminx.services.WorkspaceFolderTrie;
+
+public class WorkspaceFolderTrieTest {
+
+    @Test
+    public void testWorkspaceFolderTrie() {
+        LibertyWorkspace parent = new LibertyWorkspace("file:/projects/multi-mod/");
+        LibertyWorkspace modA = new LibertyWorkspace("file:/projects/multi-mod/modA");
+        LibertyWorkspace modAB = new LibertyWorkspace("file:/projects/multi-mod/modAB/");
+        WorkspaceFolderTrie trie = new WorkspaceFolderTrie(Arrays.asList(modAB, parent, modA));
+
+        assertEquals(modA, trie.find("file:/projects/multi-mod/modA/src/main/liberty/config/server.xml"));
+        assertEquals(modAB, trie.find("file:/projects/multi-mod/modAB/src/main/liberty/config/server.xml"));
+        assertEquals(parent, trie.find("file:/projects/multi-mod/modC/server.xml"));
+        assertEquals(parent, trie.find("file:/projects/multi-mod/server.xml"));
+        assertEquals(modA, trie.find("file:/projects/multi-mod/modA/"));
+        // resolved again from the remembered URIs
+        assertEquals(modA, trie.find("file:/projects/multi-mod/modA/src/main/liberty/config/server.xml"));
+
+        assertNull(trie.find("file:/projects/multi-mod"));
+        assertNull(trie.find("file:/projects/multi-mod-other/server.xml"));
+        assertNull(trie.find("file:/other/server.xml"));
+    }
+}
@@ -4,13 +4,16 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import io.openliberty.tools.langserver.lemminx.util.LibertyUtils;
 import io.openliberty.tools.langserver.lemminx.util.XmlReader;
@@ -32,6 +35,40 @@ public class XmlReaderTest {
         assertTrue(LibertyUtils.isConfigXMLFile(sampleServerXml.toURI().toString()));
     }
 
+    @Test
+    public void serverRootCachedUntilFileChanges(@TempDir Path tempDir) throws IOException {
+        Path xmlFile = tempDir.resolve("my_config.xml");
+        Files.writeString(xmlFile, "<server></server>");
+        FileTime lastModified = Files.getLastModifiedTime(xmlFile);
+        assertTrue(XmlReader.hasServerRoot(xmlFile));
+
+        // same size and modification time, so the cached result is returned without reading the file
+        Files.writeString(xmlFile, "<client></client>");
+        Files.setLastModifiedTime(xmlFile, lastModified);
+        assertTrue(XmlReader.hasServerRoot(xmlFile));
+
+        // modified file is read again
+        Files.setLastModifiedTime(xmlFile, FileTime.fromMillis(lastModified.toMillis() + 10000));
+        assertFalse(XmlReader.hasServerRoot(xmlFile));
+        Files.writeString(xmlFile, "<server description=\"test\"></server>");
+        assertTrue(XmlReader.hasServerRoot(xmlFile));
+
+        Files.delete(xmlFile);
+        assertFalse(XmlReader.hasServerRoot(xmlFile));
+    }
+
+    @Test
+    public void readServerRootAfterLongProlog(@TempDir Path tempDir) throws IOException {
+        // the root element is past the first bytes read, so the whole file is parsed
+        Path xmlFile = tempDir.resolve("long_prolog.xml");
+        Files.writeString(xmlFile, "<?xml version=\"1.0\"?>\n<!-- " + "x".repeat(10000) + " -->\n<server description=\"test\"></server>");
+        assertTrue(XmlReader.hasServerRoot(xmlFile));
+
+        Path truncatedRoot = tempDir.resolve("truncated_root.xml");
+        Files.writeString(truncatedRoot, "<!-- " + "x".repeat(4080) + " --><server description=\"" + "y".repeat(100) + "\"/>");
+        assertTrue(XmlReader.hasServerRoot(truncatedRoot));
+    }
+
     @Test
     public void readLibertyPluginConfigXml() throws IOException {
         File lpcXml = new File(resourcesDir, "sample/liberty-plugin-config.xml");